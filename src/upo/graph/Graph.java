@@ -270,6 +270,48 @@ public interface Graph extends Iterable<Vertex>
 	 */
 	public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException;
 	
+	/**
+	 * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+	 * DFS and BFS reach only the vertices reachable from source, DFS_TOT then goes on
+	 * from the vertices not discovered yet.
+	 * By default it is the visit of the collection holding source only.
+	 * 
+	 * @param type the search type.
+	 * @param source the vertex the visit starts from.
+	 * 
+	 * @throws UnsupportedOperationException if the visit cannot be performed on the current graph 
+	 * (e.g., a Dijkstra visit on an unweighted graph).
+	 * @throws IllegalArgumentException if source is not found in the graph.
+	 * @throws NullPointerException if source is <code>null</code>.
+	 * 
+	 * @return a GraphSearchResult representing the result of the visit performed.
+	 * 
+	 */
+	default GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+		return visit(type, Collections.singletonList(source));
+	}
+	
+	/**
+	 * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices
+	 * at once: for BFS and DIJKSTRA every source is at distance 0 and a vertex is reached from the nearest one,
+	 * DFS and DFS_TOT start a tree from each source in order. The source of the result is the first one.
+	 * By default it is not supported.
+	 * 
+	 * @param type the search type.
+	 * @param sources the vertices the visit starts from.
+	 * 
+	 * @throws UnsupportedOperationException if the visit cannot be performed on the current graph 
+	 * (e.g., a Dijkstra visit on an unweighted graph).
+	 * @throws IllegalArgumentException if sources is empty or any source is not found in the graph.
+	 * @throws NullPointerException if any source is <code>null</code>.
+	 * 
+	 * @return a GraphSearchResult representing the result of the visit performed.
+	 * 
+	 */
+	default GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This graph does not support visits from given sources");
+	}
+	
 	/**
 	 * Check whether the current graph contains cycles or not.
 	 * @return true if the current graph contains cycles, false otherwise.
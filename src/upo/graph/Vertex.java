@@ -7,6 +7,11 @@ public abstract class Vertex implements Iterable<Vertex> {
 	 */
 	private final String label;
 	
+	/**
+	 * The hash code of the label, computed once since vertices are looked up by label
+	 */
+	private final int hash;
+	
 	/**
 	 * Constructs a vertex with the given label.
 	 *  
@@ -14,6 +19,7 @@ public abstract class Vertex implements Iterable<Vertex> {
 	 */
 	public Vertex(String label) {
 		this.label = label;
+		this.hash = label == null ? 0 : label.hashCode();
 	}
 	
 	/**
@@ -52,7 +58,18 @@ public abstract class Vertex implements Iterable<Vertex> {
 	 */
 	@Override
 	public boolean equals(Object o) {
-		return (o != null) && (o instanceof Vertex) && ((Vertex) o).getLabel().equals(this.getLabel()); 
+		return (o != null) && (o instanceof Vertex) && ((Vertex) o).hash == this.hash && ((Vertex) o).getLabel().equals(this.getLabel()); 
+	}
+	
+	/**
+	 * Returns a hash code for this vertex, consistent with {@link #equals(Object)}:
+	 * two vertices with the same label have the same hash code.
+	 * 
+	 * @return the hash code of the label of this vertex
+	 */
+	@Override
+	public int hashCode() {
+		return this.hash;
 	}
 
 
@@ -0,0 +1,42 @@
+package upo.graphimpl;
+
+/**
+ * Chooses the direction of each level of a breadth first visit, as in Beamer's direction optimizing BFS.
+ * A top-down step scans the edges leaving the frontier, a bottom-up step scans the edges entering
+ * the vertices not discovered yet and stops at the first one coming from the frontier:
+ * the second is cheaper when the frontier is large, as in the middle levels of a low diameter graph.
+ */
+final class BfsDirection {
+    //Goes bottom-up when the frontier has more than 1/ALPHA of the edges left to explore
+    private static final int ALPHA = 14;
+    //Goes back top-down when the frontier has less than 1/BETA of the vertices and is shrinking
+    private static final int BETA = 24;
+
+    private final int vertexCount;
+    private boolean bottomUp;
+    private int previousSize;
+
+    /**
+     * @param vertexCount the number of vertices of the graph
+     */
+    BfsDirection(int vertexCount) {
+        this.vertexCount = vertexCount;
+    }
+
+    /**
+     * Decides the direction of the next level
+     *
+     * @param frontierEdges   the number of edges leaving the frontier
+     * @param unexploredEdges the number of edges entering the vertices not discovered yet
+     * @param frontierSize    the number of vertices of the frontier
+     * @return true if the level is to be visited bottom-up
+     */
+    boolean bottomUp(long frontierEdges, long unexploredEdges, int frontierSize) {
+        if (!bottomUp)
+            bottomUp = frontierSize >= previousSize && frontierEdges > unexploredEdges / ALPHA;
+        else
+            bottomUp = frontierSize >= previousSize || frontierSize >= vertexCount / BETA;
+        previousSize = frontierSize;
+        return bottomUp;
+    }
+}
\ No newline at end of file
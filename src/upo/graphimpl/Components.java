@@ -0,0 +1,56 @@
+package upo.graphimpl;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a graph, as the component of each vertex id.
+ * The components are numbered in order of their lowest vertex id, so the result
+ * does not depend on the order the visit closes them.
+ */
+final class Components {
+    //componentOf[id] is the component of the vertex id, -1 if no vertex has the id
+    private final int[] componentOf;
+    private final int count;
+
+    /**
+     * @param componentOf the component of each vertex id, numbered in the order they were closed,
+     *                    -1 if no vertex has the id. It is renumbered in place.
+     * @param count       the number of components
+     */
+    Components(int[] componentOf, int count) {
+        int[] number = new int[count];
+        int next = 0;
+        Arrays.fill(number, -1);
+        for (int id = 0; id < componentOf.length; id++) {
+            int c = componentOf[id];
+            if (c < 0)
+                continue;
+            if (number[c] < 0)
+                number[c] = next++;
+            componentOf[id] = number[c];
+        }
+        this.componentOf = componentOf;
+        this.count = count;
+    }
+
+    /**
+     * @return the ids of the vertices of each component, in increasing order
+     */
+    int[][] members() {
+        int[] size = new int[count];
+        for (int c : componentOf)
+            if (c >= 0)
+                size[c]++;
+        int[][] members = new int[count][];
+        for (int c = 0; c < count; c++) {
+            members[c] = new int[size[c]];
+            size[c] = 0;
+        }
+        for (int id = 0; id < componentOf.length; id++) {
+            int c = componentOf[id];
+            if (c >= 0)
+                members[c][size[c]++] = id;
+        }
+        return members;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,805 @@
+package upo.graphimpl;
+
+import upo.graph.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Implements Graph through adjacency lists that many threads can change at the same time without locking.
+ * The vertices are kept in a ConcurrentHashMap and the adjacency list of each vertex in an array
+ * that is never modified: a change builds a new array and installs it with a compare and set,
+ * retrying if another thread changed the list meanwhile. So a reader always sees a consistent
+ * list of successors of a vertex, as it was after some change.
+ *
+ * <p>
+ * The algorithms (visits, cycles, topological sort and strongly connected components) run on a
+ * CsrGraph snapshot taken when they are called, with the vertices in order of insertion.
+ * </p>
+ *
+ * @author Simone Massaro
+ */
+public class ConcurrentDirectedGraphAdjList implements Graph {
+    private static final Node[] EMPTY = new Node[0];
+    //Installed in place of the adjacency list of a removed vertex, so that no edge can leave it anymore
+    private static final Node[] REMOVED = new Node[0];
+    private static final AtomicReferenceFieldUpdater<Node, Node[]> SUCCESSORS =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class, "successors");
+
+    private final ConcurrentHashMap<Vertex, Node> nodes;
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicInteger edgeCount = new AtomicInteger();
+    private final boolean isDirected = true;
+
+    /**
+     * A vertex of the graph with its adjacency list.
+     * The nodes are compared by identity, so a vertex removed and added again is a different node.
+     */
+    private static final class Node {
+        private final Vertex vertex;
+        //Order of insertion of the vertex
+        private final long order;
+        //The targets of the edges leaving the vertex, in insertion order
+        private volatile Node[] successors = EMPTY;
+        //The number of edges entering the vertex, self loops excluded
+        private final AtomicInteger inDegree = new AtomicInteger();
+
+        private Node(Vertex vertex, long order) {
+            this.vertex = vertex;
+            this.order = order;
+        }
+
+        /**
+         * Appends t to the adjacency list, unless it is there already.
+         *
+         * @param t
+         * @return 1 if t has been added, 0 if it was there already, -1 if this node has been removed
+         */
+        private int addSuccessor(Node t) {
+            while (true) {
+                Node[] current = successors;
+                if (current == REMOVED)
+                    return -1;
+                if (indexOf(current, t) >= 0)
+                    return 0;
+                Node[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = t;
+                if (SUCCESSORS.compareAndSet(this, current, next))
+                    return 1;
+            }
+        }
+
+        /**
+         * Appends to the adjacency list the given targets that are not there already, with a single swap.
+         *
+         * @param targets
+         * @return the targets added, or null if this node has been removed
+         */
+        private Node[] addSuccessors(List<Node> targets) {
+            while (true) {
+                Node[] current = successors;
+                if (current == REMOVED)
+                    return null;
+                Node[] next = Arrays.copyOf(current, current.length + targets.size());
+                int length = current.length;
+                for (Node t : targets)
+                    if (indexOf(current, t) < 0 && indexOf(next, current.length, length, t) < 0)
+                        next[length++] = t;
+                if (length == current.length)
+                    return EMPTY;
+                if (SUCCESSORS.compareAndSet(this, current, Arrays.copyOf(next, length)))
+                    return Arrays.copyOfRange(next, current.length, length);
+            }
+        }
+
+        /**
+         * Removes t from the adjacency list, keeping the order of the others.
+         *
+         * @param t
+         * @return true if t has been removed by this call
+         */
+        private boolean removeSuccessor(Node t) {
+            while (true) {
+                Node[] current = successors;
+                int k = indexOf(current, t);
+                if (k < 0)
+                    return false;
+                Node[] next = new Node[current.length - 1];
+                System.arraycopy(current, 0, next, 0, k);
+                System.arraycopy(current, k + 1, next, k, next.length - k);
+                if (SUCCESSORS.compareAndSet(this, current, next))
+                    return true;
+            }
+        }
+
+        /**
+         * @param list
+         * @param n
+         * @return the position of n in list, -1 if it is not there
+         */
+        private static int indexOf(Node[] list, Node n) {
+            return indexOf(list, 0, list.length, n);
+        }
+
+        /**
+         * @param list
+         * @param from first position to look at
+         * @param to   position after the last one to look at
+         * @param n
+         * @return the position of n in list between from and to, -1 if it is not there
+         */
+        private static int indexOf(Node[] list, int from, int to, Node n) {
+            for (int k = from; k < to; k++)
+                if (list[k] == n)
+                    return k;
+            return -1;
+        }
+    }
+
+    /**
+     * Initializes the graph
+     */
+    public ConcurrentDirectedGraphAdjList() {
+        nodes = new ConcurrentHashMap<Vertex, Node>();
+    }
+
+    /**
+     * Initializes the graph with room for the given number of vertices.
+     *
+     * @param capacity the expected number of vertices
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public ConcurrentDirectedGraphAdjList(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("The capacity cannot be negative.");
+        nodes = new ConcurrentHashMap<Vertex, Node>(capacity);
+    }
+
+    /**
+     * Returns the adjacency lists of the graph, with the vertices in order of insertion.
+     * Each list is the one the vertex had when it was read, without the vertices removed
+     * before the list of vertices was read.
+     *
+     * @return the successors of each vertex
+     */
+    Map<Vertex, List<Vertex>> adjacency() {
+        Node[] order = nodes.values().toArray(EMPTY);
+        Arrays.sort(order, Comparator.comparingLong(n -> n.order));
+        Set<Node> present = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>(order.length * 2));
+        present.addAll(Arrays.asList(order));
+
+        Map<Vertex, List<Vertex>> adjacency = new LinkedHashMap<Vertex, List<Vertex>>(order.length * 2);
+        for (Node n : order) {
+            List<Vertex> targets = new ArrayList<Vertex>(n.successors.length);
+            for (Node t : n.successors)
+                if (present.contains(t))
+                    targets.add(t.vertex);
+            adjacency.put(n.vertex, targets);
+        }
+        return adjacency;
+    }
+
+    /**
+     * @return a snapshot of the graph for the algorithms
+     */
+    private CsrGraph snapshot() {
+        return new CsrGraph(this);
+    }
+
+    @Override
+    public Iterator<Vertex> iterator() {
+        //Weakly consistent iterator over the vertices, it never throws ConcurrentModificationException
+        return Collections.unmodifiableSet(nodes.keySet()).iterator();
+    }
+
+    /**
+     * Adds the specified vertex to this graph if not already present. More
+     * formally, adds the specified vertex, <code>v</code>, to this graph if this
+     * graph contains no vertex <code>u</code> such that <code>
+     * u.equals(v)</code>. If this graph already contains such vertex, the call
+     * leaves this graph unchanged and returns <tt>false</tt>. In combination with
+     * the restriction on constructors, this ensures that graphs never contain
+     * duplicate vertices.
+     *
+     * @param v vertex to be added to this graph.
+     * @return <tt>true</tt> if this graph did not already contain the specified
+     * vertex.
+     * @throws NullPointerException if the specified vertex is <code>
+     *                              null</code>               .
+     */
+    @Override
+    public boolean addVertex(Vertex v) {
+        // If the vertex is null, throws NullPointerException
+        if (v == null)
+            throw new NullPointerException("The given parameter is null");
+
+        return nodes.putIfAbsent(v, new Node(v, insertions.getAndIncrement())) == null;
+    }
+
+    /**
+     * Adds all the given vertices, as addVertex would do one at a time.
+     *
+     * @param vs the vertices to add
+     * @return the number of vertices added, the ones already in the graph are skipped
+     * @throws NullPointerException if any of the vertices is <code>null</code>,
+     *                              in which case no vertex is added.
+     */
+    public int addVertices(Collection<? extends Vertex> vs) {
+        for (Vertex v : vs)
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+
+        int added = 0;
+        for (Vertex v : vs)
+            if (addVertex(v))
+                added++;
+        return added;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this graph contains the specified vertex. More
+     * formally, returns <tt>true</tt> if and only if this graph contains a vertex
+     * <code>u</code> such that <code>u.equals(v)</code>. If the specified vertex is
+     * <code>null</code> returns <code>false</code>.
+     *
+     * @param v vertex whose presence in this graph is to be tested.
+     * @return <tt>true</tt> if this graph contains the specified vertex.
+     */
+    @Override
+    public boolean containsVertex(Vertex v) {
+        // If the vertex is null or does not exist in the graph, returns false
+        return v != null && nodes.containsKey(v);
+    }
+
+    /**
+     * Removes the specified vertex from this graph including all its touching edges
+     * if present. More formally, if the graph contains a vertex <code>
+     * u</code> such that <code>u.equals(v)</code>, the call removes all edges that
+     * touch <code>u</code> and then removes <code>u</code> itself. If no such
+     * <code>u</code> is found, the call leaves the graph unchanged. Returns
+     * <tt>true</tt> if the graph contained the specified vertex. (The graph will
+     * not contain the specified vertex once the call returns).
+     *
+     * <p>
+     * If the specified vertex is <code>null</code> returns <code>
+     * false</code>.
+     * </p>
+     *
+     * @param v vertex to be removed from this graph, if present.
+     * @return <code>true</code> if the graph contained the specified vertex;
+     * <code>false</code> otherwise.
+     */
+    @Override
+    public boolean removeVertex(Vertex v) {
+        //If the vertex is null or the graph doesn't contain it, returns false
+        Node node = v == null ? null : nodes.remove(v);
+        if (node == null)
+            return false;
+
+        //Closes its adjacency list, so that no edge can be added to it, and drops the edges leaving it
+        Node[] leaving = SUCCESSORS.getAndSet(node, REMOVED);
+        edgeCount.addAndGet(-leaving.length);
+        for (Node t : leaving)
+            if (t != node)
+                t.inDegree.decrementAndGet();
+
+        //Drops the edges entering it. An edge added meanwhile is taken back by addEdge
+        for (Node s : nodes.values())
+            if (s.removeSuccessor(node))
+                edgeCount.decrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Returns a set of the vertices contained in this graph.
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes.
+     *
+     * @return a set view of the vertices contained in this graph.
+     */
+    @Override
+    public Set<Vertex> vertexSet() {
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+
+    /**
+     * Creates a new edge in this graph, going from the source vertex to the target
+     * vertex, and returns the created edge. Some graphs do not allow
+     * edge-multiplicity. In such cases, if the graph already contains an edge from
+     * the specified source to the specified target, then this method does not
+     * change the graph and returns <code>null</code>.
+     *
+     * <p>
+     * The source and target vertices must already be contained in this graph. If
+     * they are not found in graph IllegalArgumentException is thrown.
+     * </p>
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The newly created edge if added to the graph, otherwise <code>
+     * null</code>.
+     * @throws IllegalArgumentException if source or target vertices are not found in the graph.
+     * @throws NullPointerException     if any of the specified vertices is <code>
+     *                                  null</code>.
+     */
+    @Override
+    public Edge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        //If any of the specified vertex are null, throws NullPointerException
+        if (sourceVertex == null || targetVertex == null)
+            throw new NullPointerException("One or more given parameter is null.");
+
+        //If the graph doesn't contain both the specified vertex, throws IllegalArgumentException
+        Node s = nodes.get(sourceVertex);
+        Node t = nodes.get(targetVertex);
+        if (s == null || t == null)
+            throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+
+        //Appends the target to the list of the source, if the source has not been removed meanwhile
+        int added = s.addSuccessor(t);
+        if (added < 0)
+            throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+        if (added == 0)
+            return null;
+        edgeCount.incrementAndGet();
+        if (s != t)
+            t.inDegree.incrementAndGet();
+
+        //If the target has been removed meanwhile, its removal may have missed the edge: takes it back
+        if (t.successors == REMOVED) {
+            if (s.removeSuccessor(t))
+                edgeCount.decrementAndGet();
+            throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+        }
+
+        return new EdgeImpl(sourceVertex, targetVertex, this);
+    }
+
+    /**
+     * Adds all the given edges, skipping the ones the graph contains already.
+     * The edges are checked before changing the graph, then they are grouped by source
+     * so that each adjacency list is swapped once instead of once per edge.
+     * The edges touching a vertex removed meanwhile by another thread are not added.
+     *
+     * @param edges the edges to add
+     * @return the number of edges added
+     * @throws IllegalArgumentException if the source or the target of an edge is not found in the graph,
+     *                                  in which case no edge is added.
+     * @throws NullPointerException     if an edge or any of its vertices is <code>null</code>,
+     *                                  in which case no edge is added.
+     */
+    public int addEdges(Collection<? extends DirectedEdge> edges) {
+        //Groups the targets by source, keeping the order of the edges
+        Map<Node, List<Node>> bySource = new LinkedHashMap<>();
+        for (DirectedEdge e : edges) {
+            if (e == null || e.getSource() == null || e.getTarget() == null)
+                throw new NullPointerException("One or more given parameter is null.");
+            Node s = nodes.get(e.getSource());
+            Node t = nodes.get(e.getTarget());
+            if (s == null || t == null)
+                throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+            bySource.computeIfAbsent(s, k -> new ArrayList<>()).add(t);
+        }
+
+        int added = 0;
+        for (Map.Entry<Node, List<Node>> entry : bySource.entrySet()) {
+            Node s = entry.getKey();
+            Node[] targets = s.addSuccessors(entry.getValue());
+            if (targets == null)
+                continue;
+            edgeCount.addAndGet(targets.length);
+            added += targets.length;
+            for (Node t : targets) {
+                if (s != t)
+                    t.inDegree.incrementAndGet();
+                //If the target has been removed meanwhile, its removal may have missed the edge: takes it back
+                if (t.successors == REMOVED && s.removeSuccessor(t)) {
+                    edgeCount.decrementAndGet();
+                    added--;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Returns <tt>true</tt> if and only if this graph contains an edge going from
+     * the source vertex to the target vertex. If any of the specified vertices does
+     * not exist in the graph, or if is <code>
+     * null</code>, returns <code>false</code>.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return <tt>true</tt> if this graph contains the specified edge.
+     */
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        //Returns false if any of the specified vertex does not exist in the current graph
+        if (sourceVertex == null || targetVertex == null)
+            return false;
+        Node s = nodes.get(sourceVertex);
+        Node t = nodes.get(targetVertex);
+        if (s == null || t == null)
+            return false;
+
+        //If the graph contains an edge from source to target, returns true. Does not consider edge weight.
+        return Node.indexOf(s.successors, t) >= 0;
+    }
+
+    /**
+     * Returns a set of the edges contained in this graph.
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes:
+     * its size is kept by the graph and the edges are created while iterating.
+     * The iteration reads the adjacency list of each vertex when it gets to it.
+     *
+     * @return a set of the edges contained in this graph.
+     */
+    @Override
+    public Set<Edge> edgeSet() {
+        return new AbstractSet<Edge>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new Iterator<Edge>() {
+                    private final Iterator<Node> sources = nodes.values().iterator();
+                    //The next edge is the k-th of the adjacency list of s
+                    private Node s;
+                    private Node[] list = EMPTY;
+                    private int k = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (k >= list.length) {
+                            if (!sources.hasNext())
+                                return false;
+                            s = sources.next();
+                            list = s.successors;
+                            k = 0;
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public Edge next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return new EdgeImpl(s.vertex, list[k++].vertex, ConcurrentDirectedGraphAdjList.this);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Math.max(edgeCount.get(), 0);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof DirectedEdge && containsEdge(((DirectedEdge) o).getSource(), ((DirectedEdge) o).getTarget());
+            }
+        };
+    }
+
+    /**
+     * Returns the degree of the specified vertex.
+     *
+     * <p>
+     * A degree of a vertex in an undirected graph is the number of edges touching
+     * that vertex. Edges with same source and target vertices (self-loops) are
+     * counted twice.
+     *
+     * <p>
+     * In directed graphs this method returns the sum of the "in degree" and the
+     * "out degree".
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int degreeOf(Vertex vertex) {
+        if (!isDirected)
+            throw new UnsupportedOperationException();
+
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    /**
+     * Returns the "in degree" of the specified vertex.
+     *
+     * <p>
+     * The "in degree" of a vertex in a directed graph is the number of inward
+     * directed edges from that vertex.
+     *
+     * <p>
+     * In the case of undirected graphs this method returns the number of edges
+     * touching the vertex. Edges with same source and target vertices (self-loops)
+     * are counted twice.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        Node node = vertex == null ? null : nodes.get(vertex);
+        return node == null ? 0 : Math.max(node.inDegree.get(), 0);
+    }
+
+    /**
+     * Returns the "out degree" of the specified vertex.
+     *
+     * <p>
+     * The "out degree" of a vertex in a directed graph is the number of outward
+     * directed edges from that vertex.
+     *
+     * <p>
+     * Edges with same source and target vertices (self-loops) are counted twice.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        Node node = vertex == null ? null : nodes.get(vertex);
+        if (node == null)
+            throw new IllegalArgumentException("The vertex is not contained in the graph.");
+        return node.successors.length;
+    }
+
+    /**
+     * Returns true if this is a directed graph.
+     *
+     * @return true if this is a directed graph, false otherwise
+     */
+    @Override
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    /**
+     * Removes an edge going from source vertex to target vertex, if such vertices
+     * and such edge exist in this graph. Returns the edge if removed or
+     * <code>null</code> otherwise.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The removed edge, or <code>null</code> if no edge removed.
+     */
+    @Override
+    public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        //Returns null if any of the specified vertex does not exist in the current graph
+        if (sourceVertex == null || targetVertex == null)
+            return null;
+        Node s = nodes.get(sourceVertex);
+        Node t = nodes.get(targetVertex);
+        if (s == null || t == null)
+            return null;
+
+        //Finds the edge with sourceVertex and targetVertex and removes it
+        if (s.removeSuccessor(t)) {
+            edgeCount.decrementAndGet();
+            if (s != t)
+                t.inDegree.decrementAndGet();
+            return new EdgeImpl(sourceVertex, targetVertex, this);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes all the given edges that the graph contains, as removeEdge would do one at a time.
+     *
+     * @param edges the edges to remove, the ones not in the graph are skipped
+     * @return the number of edges removed
+     */
+    public int removeEdges(Collection<? extends DirectedEdge> edges) {
+        int removed = 0;
+        for (DirectedEdge e : edges)
+            if (e != null && removeEdge(e.getSource(), e.getTarget()) != null)
+                removed++;
+        return removed;
+    }
+
+    /**
+     * Returns the weight assigned to a given edge. Unweighted graphs return 1.0 (as
+     * defined by {@link #DEFAULT_EDGE_WEIGHT}), allowing weighted-graph algorithms
+     * to apply to them when meaningful.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return edge weight
+     */
+    @Override
+    public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
+        //Returns 0 if any of the specified vertex does not exist in the current graph
+        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+            return 0;
+
+        //Unweighted graph
+        return DEFAULT_EDGE_WEIGHT;
+    }
+
+    /**
+     * Assigns a weight to an edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @param weight       new weight for edge
+     * @throws UnsupportedOperationException if the graph does not support weights
+     */
+    @Override
+    public void setEdgeWeight(Vertex sourceVertex, Vertex targetVertex, double weight) {
+        //If any of the specified vertex does not exist in the current graph does nothing
+        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+            return;
+
+        //Unweighted graph
+        throw new UnsupportedOperationException("This graph does not support weights");
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph.
+     * The visit runs on a snapshot of the graph, the result refers to the snapshot.
+     *
+     * @param type the search type.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
+        return snapshot().visit(type);
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     * The visit runs on a snapshot of the graph, the result refers to the snapshot.
+     *
+     * @param type   the search type.
+     * @param source the vertex the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if source is not found in the graph.
+     * @throws NullPointerException          if source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return snapshot().visit(type, source);
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices at once.
+     * The visit runs on a snapshot of the graph, the result refers to the snapshot.
+     *
+     * @param type    the search type.
+     * @param sources the vertices the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException          if any source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        return snapshot().visit(type, sources);
+    }
+
+    /**
+     * Performs a breadth first visit starting from source, expanding each level in parallel
+     * on the common ForkJoinPool.
+     * The visit runs on a snapshot of the graph, the result refers to the snapshot.
+     *
+     * @param source the vertex the visit starts from.
+     * @return a GraphSearchResult with the parents and the distances of the vertices reached.
+     * @throws IllegalArgumentException if source is not found in the graph.
+     * @throws NullPointerException     if source is <code>null</code>.
+     */
+    public GraphSearchResult parallelBFS(Vertex source) {
+        return snapshot().parallelBFS(source);
+    }
+
+    /**
+     * Performs a breadth first visit starting from all the given vertices at once, expanding each level
+     * in parallel on pool.
+     * The visit runs on a snapshot of the graph, the result refers to the snapshot.
+     *
+     * @param sources the vertices the visit starts from.
+     * @param pool    the pool that expands the levels.
+     * @return a GraphSearchResult with the parents and the distances of the vertices reached.
+     * @throws IllegalArgumentException if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException     if any source or pool is <code>null</code>.
+     */
+    public GraphSearchResult parallelBFS(Collection<Vertex> sources, ForkJoinPool pool) {
+        return snapshot().parallelBFS(sources, pool);
+    }
+
+    /**
+     * Check whether the current graph contains cycles or not.
+     *
+     * @return true if the current graph contains cycles, false otherwise.
+     */
+    @Override
+    public boolean isCyclic() {
+        return snapshot().isCyclic();
+    }
+
+    /**
+     * Returns a cycle of the graph, as CsrGraph.findCycle.
+     *
+     * @return the vertices of the cycle in order, the last one has an edge to the first one;
+     * an empty list if the graph is acyclic.
+     */
+    public List<Vertex> findCycle() {
+        return snapshot().findCycle();
+    }
+
+    /**
+     * Check whether the current graph is a directed acyclic graph (DAG) or not.
+     *
+     * @return true if the current graph is a DAG, false otherwise.
+     */
+    @Override
+    public boolean isDAG() {
+        return snapshot().isDAG();
+    }
+
+    /**
+     * If the current graph is a DAG, it returns a topological sort of this graph.
+     *
+     * @return a topological sort of this graph.
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     */
+    @Override
+    public Vertex[] topologicalSort() {
+        return snapshot().topologicalSort();
+    }
+
+    /**
+     * If the current graph is a DAG, it returns its vertices grouped in levels, as CsrGraph.topologicalLevels.
+     *
+     * @return the levels of the graph, starting from the vertices with no edges entering them.
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     */
+    public Vertex[][] topologicalLevels() {
+        return snapshot().topologicalLevels();
+    }
+
+    /**
+     * If the current graph is directed, this method returns the strongly connected components
+     * of the graph. Otherwise, the method throws an UnsupportedOperationException.
+     *
+     * @return a collection of collections of vertices representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public Collection<Collection<Vertex>> stronglyConnectedComponents() {
+        return snapshot().stronglyConnectedComponents();
+    }
+
+    /**
+     * Returns a string representing the strongly connected components of the graph.
+     * For instance: {{1,2,3},{4,6},{5}}
+     *
+     * @return a string representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public String toStringSCC() {
+        return snapshot().toStringSCC();
+    }
+
+    /**
+     * Writes the graph to a file as a CsrGraph snapshot, which CsrGraph.map loads back
+     * without rebuilding it. The adjacency list of each vertex is the one it had when it was read.
+     *
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        new CsrGraph(this).write(file);
+    }
+}
\ No newline at end of file
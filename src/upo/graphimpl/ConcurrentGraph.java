@@ -0,0 +1,444 @@
+package upo.graphimpl;
+
+import upo.graph.*;
+
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Makes any Graph safe to share between threads, guarding it with a StampedLock.
+ * The point lookups (containsVertex, containsEdge, getEdgeWeight and the degrees) are first
+ * tried without locking and repeated under the read lock only if a write happened meanwhile,
+ * the traversals take the read lock and the mutations the write lock.
+ * So lookups and traversals don't block each other and are blocked only by the writes.
+ *
+ * <p>
+ * The sets and the iterator are copies taken under the read lock.
+ * The results of visit keep referring to the wrapped graph, so they should be queried
+ * while no thread is changing it.
+ * </p>
+ */
+public class ConcurrentGraph implements Graph {
+    private final Graph graph;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Wraps the given graph, which must not be used directly anymore
+     *
+     * @param graph
+     * @throws NullPointerException if graph is null
+     */
+    public ConcurrentGraph(Graph graph) {
+        if (graph == null)
+            throw new NullPointerException("The given parameter is null");
+        this.graph = graph;
+    }
+
+    /**
+     * Runs a lookup without locking, then runs it again under the read lock if a write started meanwhile.
+     * Without the lock the wrapped graph can be read while it is changing, so an exception
+     * thrown by the first try is not trusted either: the lookup is repeated under the lock,
+     * where it throws again if it has to.
+     *
+     * @param lookup
+     * @return the result of the lookup
+     */
+    private boolean optimisticRead(BooleanSupplier lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean result = lookup.getAsBoolean();
+                if (lock.validate(stamp))
+                    return result;
+            } catch (RuntimeException e) {
+                //A write happened meanwhile, the lookup is repeated under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.getAsBoolean();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Same as optimisticRead, for lookups returning an int
+     *
+     * @param lookup
+     * @return the result of the lookup
+     */
+    private int optimisticReadInt(IntSupplier lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int result = lookup.getAsInt();
+                if (lock.validate(stamp))
+                    return result;
+            } catch (RuntimeException e) {
+                //A write happened meanwhile, the lookup is repeated under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Same as optimisticRead, for lookups returning a double
+     *
+     * @param lookup
+     * @return the result of the lookup
+     */
+    private double optimisticReadDouble(DoubleSupplier lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                double result = lookup.getAsDouble();
+                if (lock.validate(stamp))
+                    return result;
+            } catch (RuntimeException e) {
+                //A write happened meanwhile, the lookup is repeated under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.getAsDouble();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a read under the read lock
+     *
+     * @param read
+     * @return the result of the read
+     */
+    private <T> T read(Supplier<T> read) {
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a change under the write lock
+     *
+     * @param write
+     * @return the result of the change
+     */
+    private <T> T write(Supplier<T> write) {
+        long stamp = lock.writeLock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Iterates over a copy of the vertices taken under the read lock
+     */
+    @Override
+    public Iterator<Vertex> iterator() {
+        return Collections.unmodifiableList(read(() -> new ArrayList<Vertex>(graph.vertexSet()))).iterator();
+    }
+
+    /**
+     * Adds the specified vertex to this graph if not already present. More
+     * formally, adds the specified vertex, <code>v</code>, to this graph if this
+     * graph contains no vertex <code>u</code> such that <code>
+     * u.equals(v)</code>. If this graph already contains such vertex, the call
+     * leaves this graph unchanged and returns <tt>false</tt>. In combination with
+     * the restriction on constructors, this ensures that graphs never contain
+     * duplicate vertices.
+     *
+     * @param v vertex to be added to this graph.
+     * @return <tt>true</tt> if this graph did not already contain the specified
+     * vertex.
+     * @throws NullPointerException if the specified vertex is <code>
+     *                              null</code>               .
+     */
+    @Override
+    public boolean addVertex(Vertex v) {
+        return write(() -> graph.addVertex(v));
+    }
+
+    /**
+     * Returns <tt>true</tt> if this graph contains the specified vertex. More
+     * formally, returns <tt>true</tt> if and only if this graph contains a vertex
+     * <code>u</code> such that <code>u.equals(v)</code>. If the specified vertex is
+     * <code>null</code> returns <code>false</code>.
+     *
+     * @param v vertex whose presence in this graph is to be tested.
+     * @return <tt>true</tt> if this graph contains the specified vertex.
+     */
+    @Override
+    public boolean containsVertex(Vertex v) {
+        return optimisticRead(() -> graph.containsVertex(v));
+    }
+
+    /**
+     * Removes the specified vertex from this graph including all its touching edges
+     * if present.
+     *
+     * @param v vertex to be removed from this graph, if present.
+     * @return <code>true</code> if the graph contained the specified vertex;
+     * <code>false</code> otherwise.
+     */
+    @Override
+    public boolean removeVertex(Vertex v) {
+        return write(() -> graph.removeVertex(v));
+    }
+
+    /**
+     * Returns a set of the vertices contained in this graph.
+     * The set is an unmodifiable copy taken under the read lock.
+     *
+     * @return a set of the vertices contained in this graph.
+     */
+    @Override
+    public Set<Vertex> vertexSet() {
+        return Collections.unmodifiableSet(read(() -> new HashSet<Vertex>(graph.vertexSet())));
+    }
+
+    /**
+     * Creates a new edge in this graph, going from the source vertex to the target
+     * vertex, and returns the created edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The newly created edge if added to the graph, otherwise <code>
+     * null</code>.
+     * @throws IllegalArgumentException if source or target vertices are not found in the graph.
+     * @throws NullPointerException     if any of the specified vertices is <code>
+     *                                  null</code>.
+     */
+    @Override
+    public Edge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return write(() -> graph.addEdge(sourceVertex, targetVertex));
+    }
+
+    /**
+     * Returns <tt>true</tt> if and only if this graph contains an edge going from
+     * the source vertex to the target vertex. If any of the specified vertices does
+     * not exist in the graph, or if is <code>
+     * null</code>, returns <code>false</code>.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return <tt>true</tt> if this graph contains the specified edge.
+     */
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return optimisticRead(() -> graph.containsEdge(sourceVertex, targetVertex));
+    }
+
+    /**
+     * Returns a set of the edges contained in this graph.
+     * The set is an unmodifiable copy taken under the read lock.
+     *
+     * @return a set of the edges contained in this graph.
+     */
+    @Override
+    public Set<Edge> edgeSet() {
+        return Collections.unmodifiableSet(read(() -> new HashSet<Edge>(graph.edgeSet())));
+    }
+
+    /**
+     * Returns the degree of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int degreeOf(Vertex vertex) {
+        return optimisticReadInt(() -> graph.degreeOf(vertex));
+    }
+
+    /**
+     * Returns the "in degree" of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        return optimisticReadInt(() -> graph.inDegreeOf(vertex));
+    }
+
+    /**
+     * Returns the "out degree" of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        return optimisticReadInt(() -> graph.outDegreeOf(vertex));
+    }
+
+    /**
+     * Returns true if this is a directed graph.
+     *
+     * @return true if this is a directed graph, false otherwise
+     */
+    @Override
+    public boolean isDirected() {
+        return graph.isDirected();
+    }
+
+    /**
+     * Removes an edge going from source vertex to target vertex, if such vertices
+     * and such edge exist in this graph. Returns the edge if removed or
+     * <code>null</code> otherwise.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The removed edge, or <code>null</code> if no edge removed.
+     */
+    @Override
+    public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return write(() -> graph.removeEdge(sourceVertex, targetVertex));
+    }
+
+    /**
+     * Returns the weight assigned to a given edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return edge weight
+     */
+    @Override
+    public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
+        return optimisticReadDouble(() -> graph.getEdgeWeight(sourceVertex, targetVertex));
+    }
+
+    /**
+     * Assigns a weight to an edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @param weight       new weight for edge
+     * @throws UnsupportedOperationException if the graph does not support weights
+     */
+    @Override
+    public void setEdgeWeight(Vertex sourceVertex, Vertex targetVertex, double weight) {
+        long stamp = lock.writeLock();
+        try {
+            graph.setEdgeWeight(sourceVertex, targetVertex, weight);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph.
+     *
+     * @param type the search type.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
+        return read(() -> graph.visit(type));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     *
+     * @param type   the search type.
+     * @param source the vertex the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if source is not found in the graph.
+     * @throws NullPointerException          if source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return read(() -> graph.visit(type, source));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices at once.
+     *
+     * @param type    the search type.
+     * @param sources the vertices the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException          if any source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        return read(() -> graph.visit(type, sources));
+    }
+
+    /**
+     * Check whether the current graph contains cycles or not.
+     *
+     * @return true if the current graph contains cycles, false otherwise.
+     */
+    @Override
+    public boolean isCyclic() {
+        return read(graph::isCyclic);
+    }
+
+    /**
+     * Check whether the current graph is a directed acyclic graph (DAG) or not.
+     *
+     * @return true if the current graph is a DAG, false otherwise.
+     */
+    @Override
+    public boolean isDAG() {
+        return read(graph::isDAG);
+    }
+
+    /**
+     * If the current graph is a DAG, it returns a topological sort of this graph.
+     *
+     * @return a topological sort of this graph.
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     */
+    @Override
+    public Vertex[] topologicalSort() {
+        return read(graph::topologicalSort);
+    }
+
+    /**
+     * If the current graph is directed, this method returns the strongly connected components
+     * of the graph. Otherwise, the method throws an UnsupportedOperationException.
+     *
+     * @return a collection of collections of vertices representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public Collection<Collection<Vertex>> stronglyConnectedComponents() {
+        return read(graph::stronglyConnectedComponents);
+    }
+
+    /**
+     * Returns a string representing the strongly connected components of the graph.
+     * For instance: {{1,2,3},{4,6},{5}}
+     *
+     * @return a string representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public String toStringSCC() {
+        return read(graph::toStringSCC);
+    }
+}
\ No newline at end of file
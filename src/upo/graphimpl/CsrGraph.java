@@ -0,0 +1,1413 @@
+package upo.graphimpl;
+
+import upo.graph.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Implements an immutable snapshot of a Graph in compressed sparse row form:
+ * the targets of the edges leaving the vertex i are stored, sorted, in
+ * targets[offsets[i]] ... targets[offsets[i + 1] - 1].
+ * The edges entering each vertex are stored in the same way, so that the in degree
+ * is available without scanning the graph.
+ *
+ * <p>
+ * A snapshot can be written to a file with write and mapped back with map. The arrays are kept
+ * in buffers, which wrap arrays in the heap or views of the mapped file, so a mapped snapshot
+ * reads its edges and looks its labels up straight from the mapping: mapping it costs the same
+ * for any size, and the vertices are created only when they are asked for.
+ * </p>
+ *
+ * <p>
+ * Each array is split in segments of at most 1 GiB, so a mapped snapshot can be larger than the heap:
+ * the visits and the strongly connected components keep in the heap only a few arrays with an element
+ * per vertex, while the edges and the weights are paged in from the file by the operating system.
+ * </p>
+ */
+public class CsrGraph implements Graph {
+    //"UPOG", the first int of a snapshot file
+    private static final int MAGIC = 0x55504F47;
+    private static final int VERSION = 1;
+    private static final int WEIGHTED = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final int vertexCount;
+    //The vertices by position, filled when they are first asked for if the snapshot is mapped
+    private final Vertex[] vertices;
+    //Finds the position of a vertex: index for a snapshot in the heap, labels for a mapped one
+    private final HashMap<Vertex, Integer> index;
+    private final MappedLabels labels;
+    private final IntArray offsets;
+    private final IntArray targets;
+    private final DoubleArray weights;
+    private final IntArray inOffsets;
+    private final IntArray inSources;
+    private final boolean isDirected = true;
+
+    /**
+     * Builds the snapshot of a graph implemented with adjacency lists
+     *
+     * @param source the graph to copy
+     */
+    public CsrGraph(DirectedGraphAdjList source) {
+        this(source, source::getEdgees, null);
+    }
+
+    /**
+     * Builds the snapshot of a graph implemented with an adjacency matrix.
+     * If the graph is weighted the weights of the edges are copied too.
+     *
+     * @param source the graph to copy
+     */
+    public CsrGraph(DirectedGraphAdjMatr source) {
+        this(source, source::getEdgees, source instanceof DirectedWeightedGraphAdjMatr ? source : null);
+    }
+
+    /**
+     * Builds the snapshot of a graph that other threads may be changing:
+     * the adjacency list of each vertex is the one it had when it was read.
+     *
+     * @param source the graph to copy
+     */
+    public CsrGraph(ConcurrentDirectedGraphAdjList source) {
+        this(source.adjacency());
+    }
+
+    /**
+     * Builds the snapshot of any graph from its vertices and its edges.
+     * The weights are copied if the graph is a DirectedWeightedGraphAdjMatr, a weighted snapshot,
+     * or a graph, such as a decorated one, with an edge whose weight is not the default one.
+     *
+     * @param source the graph to copy
+     */
+    public CsrGraph(Graph source) {
+        this(source, successors(source)::get, hasWeights(source) ? source : null);
+    }
+
+    /**
+     * Tells if the weights of the edges of a graph are to be copied. A graph that is not known to be weighted
+     * is read through getEdgeWeight: the copy of a graph whose weights are all the default one is unweighted,
+     * and gives back the same weights.
+     *
+     * @param source
+     * @return true if the graph is weighted
+     */
+    private static boolean hasWeights(Graph source) {
+        if (source instanceof DirectedWeightedGraphAdjMatr)
+            return true;
+        if (source instanceof CsrGraph)
+            return ((CsrGraph) source).isWeighted();
+        try {
+            for (Edge e : source.edgeSet()) {
+                DirectedEdge d = (DirectedEdge) e;
+                if (source.getEdgeWeight(d.getSource(), d.getTarget()) != Graph.DEFAULT_EDGE_WEIGHT)
+                    return true;
+            }
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Groups the edges of a graph by source
+     *
+     * @param source
+     * @return the targets of the edges leaving each vertex
+     */
+    private static Map<Vertex, List<Vertex>> successors(Graph source) {
+        Map<Vertex, List<Vertex>> successors = new HashMap<Vertex, List<Vertex>>();
+        for (Vertex v : source)
+            successors.put(v, new ArrayList<Vertex>());
+        for (Edge e : source.edgeSet()) {
+            DirectedEdge d = (DirectedEdge) e;
+            successors.get(d.getSource()).add(d.getTarget());
+        }
+        return successors;
+    }
+
+    /**
+     * Builds the snapshot of the given adjacency lists
+     *
+     * @param adjacency the targets of the edges leaving each vertex
+     */
+    private CsrGraph(Map<Vertex, List<Vertex>> adjacency) {
+        this(adjacency.keySet(), adjacency::get, null);
+    }
+
+    /**
+     * Builds the snapshot in O(V+E): the vertices are numbered in iteration order, the in edges
+     * are bucketed by target scanning the sources in order, then the out edges are bucketed by
+     * source scanning the targets in order, so that every row comes out sorted.
+     *
+     * @param source    the vertices to copy
+     * @param adjacency returns the targets of the edges leaving a vertex of source
+     * @param weighted  the graph to copy the weights of the edges from, null if unweighted
+     */
+    private CsrGraph(Iterable<Vertex> source, Function<Vertex, ? extends Collection<Vertex>> adjacency, Graph weighted) {
+        ArrayList<Vertex> order = new ArrayList<Vertex>();
+        for (Vertex v : source)
+            order.add(v);
+        int n = order.size();
+        vertexCount = n;
+        vertices = order.toArray(new Vertex[n]);
+        index = new HashMap<Vertex, Integer>(n * 2);
+        labels = null;
+        for (int i = 0; i < n; i++)
+            index.put(vertices[i], i);
+
+        //Counts the edges entering each vertex
+        int m = 0;
+        int[] inOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            for (Vertex t : adjacency.apply(vertices[i])) {
+                inOffsets[index.get(t) + 1]++;
+                m++;
+            }
+        for (int i = 0; i < n; i++)
+            inOffsets[i + 1] += inOffsets[i];
+
+        //Fills the in edges, sorted by source
+        int[] inSources = new int[m];
+        double[] inWeights = weighted != null ? new double[m] : null;
+        int[] position = Arrays.copyOf(inOffsets, n);
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            for (Vertex t : adjacency.apply(vertices[i])) {
+                int k = position[index.get(t)]++;
+                inSources[k] = i;
+                if (weighted != null)
+                    inWeights[k] = weighted.getEdgeWeight(vertices[i], t);
+                offsets[i + 1]++;
+            }
+        for (int i = 0; i < n; i++)
+            offsets[i + 1] += offsets[i];
+
+        //Fills the out edges, sorted by target
+        int[] targets = new int[m];
+        double[] weights = weighted != null ? new double[m] : null;
+        position = Arrays.copyOf(offsets, n);
+        for (int t = 0; t < n; t++)
+            for (int k = inOffsets[t]; k < inOffsets[t + 1]; k++) {
+                int e = position[inSources[k]]++;
+                targets[e] = t;
+                if (weighted != null)
+                    weights[e] = inWeights[k];
+            }
+
+        this.offsets = IntArray.wrap(offsets, n + 1);
+        this.targets = IntArray.wrap(targets, m);
+        this.weights = weights != null ? DoubleArray.wrap(weights, m) : null;
+        this.inOffsets = IntArray.wrap(inOffsets, n + 1);
+        this.inSources = IntArray.wrap(inSources, m);
+    }
+
+    /**
+     * Builds the snapshot of the edges from sources[k] to targets[k], for k lower than count,
+     * between new vertices numbered by their position in labels.
+     * The edges are bucketed by target and then by source, so that every row comes out sorted
+     * with the copies of an edge next to each other in input order: only the first copy is kept.
+     *
+     * @param labels      the labels of the vertices
+     * @param sources     the positions in labels of the sources
+     * @param targets     the positions in labels of the targets
+     * @param edgeWeights the weights of the edges, null if unweighted
+     * @param count       the number of edges
+     */
+    CsrGraph(String[] labels, int[] sources, int[] targets, double[] edgeWeights, int count) {
+        int n = labels.length;
+        vertexCount = n;
+        vertices = new Vertex[n];
+        index = new HashMap<Vertex, Integer>(n * 2);
+        this.labels = null;
+        for (int i = 0; i < n; i++) {
+            vertices[i] = new VertexImpl(labels[i], this);
+            index.put(vertices[i], i);
+        }
+
+        //Sorts the edges by target
+        int[] start = new int[n + 1];
+        for (int k = 0; k < count; k++)
+            start[targets[k] + 1]++;
+        for (int i = 0; i < n; i++)
+            start[i + 1] += start[i];
+        int[] byTarget = new int[count];
+        for (int k = 0; k < count; k++)
+            byTarget[start[targets[k]]++] = k;
+
+        //Sorts them by source, keeping the order by target inside each row
+        int[] rowOffsets = new int[n + 1];
+        for (int k = 0; k < count; k++)
+            rowOffsets[sources[k] + 1]++;
+        for (int i = 0; i < n; i++)
+            rowOffsets[i + 1] += rowOffsets[i];
+        int[] rowTargets = new int[count];
+        double[] rowWeights = edgeWeights != null ? new double[count] : null;
+        int[] position = Arrays.copyOf(rowOffsets, n);
+        for (int k : byTarget) {
+            int e = position[sources[k]]++;
+            rowTargets[e] = targets[k];
+            if (edgeWeights != null)
+                rowWeights[e] = edgeWeights[k];
+        }
+
+        //Drops the copies of the edges
+        int[] offsets = new int[n + 1];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            for (int e = rowOffsets[i]; e < rowOffsets[i + 1]; e++)
+                if (e == rowOffsets[i] || rowTargets[e] != rowTargets[e - 1]) {
+                    rowTargets[m] = rowTargets[e];
+                    if (edgeWeights != null)
+                        rowWeights[m] = rowWeights[e];
+                    m++;
+                }
+            offsets[i + 1] = m;
+        }
+
+        //Fills the in edges, scanning the sources in order so that they come out sorted
+        int[] inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++)
+            inOffsets[rowTargets[e] + 1]++;
+        for (int i = 0; i < n; i++)
+            inOffsets[i + 1] += inOffsets[i];
+        int[] inSources = new int[m];
+        position = Arrays.copyOf(inOffsets, n);
+        for (int i = 0; i < n; i++)
+            for (int e = offsets[i]; e < offsets[i + 1]; e++)
+                inSources[position[rowTargets[e]]++] = i;
+
+        this.offsets = IntArray.wrap(offsets, n + 1);
+        this.targets = IntArray.wrap(rowTargets, m);
+        this.weights = edgeWeights != null ? DoubleArray.wrap(rowWeights, m) : null;
+        this.inOffsets = IntArray.wrap(inOffsets, n + 1);
+        this.inSources = IntArray.wrap(inSources, m);
+    }
+
+    /**
+     * Builds a snapshot over the sections of a mapped file
+     *
+     * @param vertexCount
+     * @param labels
+     * @param offsets
+     * @param targets
+     * @param weights     null if unweighted
+     * @param inOffsets
+     * @param inSources
+     */
+    private CsrGraph(int vertexCount, MappedLabels labels, IntArray offsets, IntArray targets, DoubleArray weights,
+                     IntArray inOffsets, IntArray inSources) {
+        this.vertexCount = vertexCount;
+        this.vertices = new Vertex[vertexCount];
+        this.index = null;
+        this.labels = labels;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    /**
+     * Writes the snapshot to a file, which map can load back. The file is made of
+     * <ul>
+     * <li>a header of 32 bytes: the ints MAGIC, VERSION, flags (1 if weighted), the number of vertices n,
+     * the number of edges m, the number of slots of the label table and the number of bytes of the labels;</li>
+     * <li>if weighted, the double array of the weights (m), first so that it starts at a multiple of 8;</li>
+     * <li>the int arrays offsets (n + 1), targets (m), inOffsets (n + 1) and inSources (m);</li>
+     * <li>the label table, as kept by LabelTable: the int arrays of the starts of the labels (n + 1),
+     * their hashes (n) and the slots;</li>
+     * <li>the UTF-8 bytes of the labels.</li>
+     * </ul>
+     * All the numbers are big endian.
+     *
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        LabelTable table = new LabelTable();
+        for (int i = 0; i < vertexCount; i++) {
+            byte[] label = vertex(i).getLabel().getBytes(StandardCharsets.UTF_8);
+            int hash = 0;
+            for (byte b : label)
+                hash = LabelTable.hash(hash, b);
+            table.idOf(label, 0, label.length, hash);
+        }
+        int m = targets.length();
+        long[] sections = sections(vertexCount, m, table.slotCount(), table.byteCount(), weights != null);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(weights != null ? WEIGHTED : 0).putInt(vertexCount)
+                    .putInt(m).putInt(table.slotCount()).putInt(table.byteCount());
+            FileChannel.MapMode mode = FileChannel.MapMode.READ_WRITE;
+            int shift = SegmentedArray.SEGMENT_SHIFT;
+            if (weights != null)
+                weights.copyTo(DoubleArray.map(channel, mode, sections[0], m, shift));
+            offsets.copyTo(IntArray.map(channel, mode, sections[1], vertexCount + 1, shift));
+            targets.copyTo(IntArray.map(channel, mode, sections[2], m, shift));
+            inOffsets.copyTo(IntArray.map(channel, mode, sections[3], vertexCount + 1, shift));
+            inSources.copyTo(IntArray.map(channel, mode, sections[4], m, shift));
+            table.copyTo(IntArray.map(channel, mode, sections[5], vertexCount + 1, shift),
+                    IntArray.map(channel, mode, sections[6], vertexCount, shift),
+                    IntArray.map(channel, mode, sections[7], table.slotCount(), shift),
+                    map(channel, mode, sections[8], sections[9]));
+        }
+    }
+
+    /**
+     * Maps a snapshot written by write. The file must not change while the snapshot is in use.
+     *
+     * @param file
+     * @return the snapshot, reading from the mapping
+     * @throws IOException if the file cannot be read or is not a snapshot of a known version
+     */
+    public static CsrGraph map(Path file) throws IOException {
+        return map(file, SegmentedArray.SEGMENT_SHIFT);
+    }
+
+    /**
+     * Maps a snapshot written by write, each array in mappings of at most 2^segmentShift elements.
+     * Smaller mappings take less contiguous address space, the largest ones allowed have 2^27 elements.
+     * The file must not change while the snapshot is in use.
+     *
+     * @param file
+     * @param segmentShift the base 2 logarithm of the number of elements of each mapping
+     * @return the snapshot, reading from the mapping
+     * @throws IOException              if the file cannot be read or is not a snapshot of a known version
+     * @throws IllegalArgumentException if segmentShift is negative or greater than 27
+     */
+    public static CsrGraph map(Path file, int segmentShift) throws IOException {
+        if (segmentShift < 0 || segmentShift > SegmentedArray.SEGMENT_SHIFT)
+            throw new IllegalArgumentException("The segments can have from 2^0 to 2^" + SegmentedArray.SEGMENT_SHIFT + " elements.");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("The file is not a graph snapshot");
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC)
+                throw new IOException("The file is not a graph snapshot");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version " + version);
+            boolean weighted = (header.getInt() & WEIGHTED) != 0;
+            int n = header.getInt();
+            int m = header.getInt();
+            int slotCount = header.getInt();
+            int byteCount = header.getInt();
+            if (n < 0 || m < 0 || Integer.bitCount(slotCount) != 1 || byteCount < 0)
+                throw new IOException("The header of the snapshot is corrupted");
+            long[] sections = sections(n, m, slotCount, byteCount, weighted);
+            if (channel.size() != sections[9])
+                throw new IOException("The snapshot is truncated");
+
+            //The mappings stay valid after the channel is closed
+            FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+            MappedLabels labels = new MappedLabels(
+                    IntArray.map(channel, mode, sections[5], n + 1, segmentShift),
+                    IntArray.map(channel, mode, sections[6], n, segmentShift),
+                    IntArray.map(channel, mode, sections[7], slotCount, segmentShift),
+                    map(channel, mode, sections[8], sections[9]));
+            return new CsrGraph(n, labels,
+                    IntArray.map(channel, mode, sections[1], n + 1, segmentShift),
+                    IntArray.map(channel, mode, sections[2], m, segmentShift),
+                    weighted ? DoubleArray.map(channel, mode, sections[0], m, segmentShift) : null,
+                    IntArray.map(channel, mode, sections[3], n + 1, segmentShift),
+                    IntArray.map(channel, mode, sections[4], m, segmentShift));
+        }
+    }
+
+    /**
+     * Returns where the sections of a snapshot file start: weights, offsets, targets, inOffsets, inSources,
+     * label starts, label hashes, slots and label bytes, followed by the size of the file.
+     *
+     * @param n         the number of vertices
+     * @param m         the number of edges
+     * @param slotCount the number of slots of the label table
+     * @param byteCount the number of bytes of the labels
+     * @param weighted
+     * @return the positions of the sections
+     */
+    private static long[] sections(int n, int m, int slotCount, int byteCount, boolean weighted) {
+        long[] sizes = {weighted ? 8L * m : 0, 4L * (n + 1), 4L * m, 4L * (n + 1), 4L * m, 4L * (n + 1), 4L * n, 4L * slotCount, byteCount};
+        long[] sections = new long[sizes.length + 1];
+        sections[0] = HEADER_BYTES;
+        for (int i = 0; i < sizes.length; i++)
+            sections[i + 1] = sections[i] + sizes[i];
+        return sections;
+    }
+
+    /**
+     * Maps the bytes of the file from start to end
+     *
+     * @param channel
+     * @param mode
+     * @param start
+     * @param end
+     * @return the mapped bytes, big endian
+     * @throws IOException if the section is larger than a buffer can be
+     */
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE)
+            throw new IOException("A section of the snapshot is larger than " + Integer.MAX_VALUE + " bytes");
+        return channel.map(mode, start, end - start);
+    }
+
+    /**
+     * Returns the vertex in the given position, creating it if the snapshot is mapped
+     * and it has not been asked for yet.
+     *
+     * @param i
+     * @return the vertex
+     */
+    private Vertex vertex(int i) {
+        Vertex v = vertices[i];
+        if (v == null) {
+            //Two threads may both create it, the vertices are equal
+            v = new VertexImpl(labels.label(i), this);
+            vertices[i] = v;
+        }
+        return v;
+    }
+
+    /**
+     * @return the number of vertices of the graph.
+     */
+    private int getVerticesNumber() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the position of v in the snapshot.
+     * if v is null or does not exist returns -1.
+     *
+     * @param v
+     * @return the position of v
+     */
+    private int findVertex(Vertex v) {
+        if (v == null)
+            return -1;
+        if (labels != null)
+            return v.getLabel() == null ? -1 : labels.indexOf(v.getLabel());
+        Integer i = index.get(v);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the positions of the sources of a visit, in order.
+     *
+     * @param sources
+     * @return the positions
+     * @throws NullPointerException     if any source is <code>null</code>
+     * @throws IllegalArgumentException if sources is empty or any source is not in the snapshot
+     */
+    private int[] findSources(Collection<Vertex> sources) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("A visit needs at least one source.");
+        int[] roots = new int[sources.size()];
+        int n = 0;
+        for (Vertex v : sources) {
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+            roots[n] = findVertex(v);
+            if (roots[n++] < 0)
+                throw new IllegalArgumentException("The source is not contained in the graph.");
+        }
+        return roots;
+    }
+
+    /**
+     * Returns the position in targets of the edge from s to t.
+     * if the edge does not exist returns -1.
+     *
+     * @param s position of the source
+     * @param t position of the target
+     * @return the position of the edge
+     */
+    private int findEdge(int s, int t) {
+        int low = offsets.get(s);
+        int high = offsets.get(s + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int target = targets.get(middle);
+            if (target < t)
+                low = middle + 1;
+            else if (target > t)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Return the first head vertex of the graph.
+     * If there aren't, returns the first vertex of the graph.
+     *
+     * @return position of the head vertex
+     */
+    private int getHeadVertex() {
+        for (int i = 0; i < getVerticesNumber(); i++)
+            if (inOffsets.get(i) == inOffsets.get(i + 1) && offsets.get(i) < offsets.get(i + 1))
+                return i;
+        return 0;
+    }
+
+    /**
+     * @return a new array of colors, all set to 'not visited'.
+     */
+    private Colors[] notVisitedNodes() {
+        Colors[] visitedNodes = new Colors[getVerticesNumber()];
+        Arrays.fill(visitedNodes, Colors.WHITE);
+        return visitedNodes;
+    }
+
+    @Override
+    public Iterator<Vertex> iterator() {
+        return new Iterator<Vertex>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < vertexCount;
+            }
+
+            @Override
+            public Vertex next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return vertex(i++);
+            }
+        };
+    }
+
+    /**
+     * The snapshot is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean addVertex(Vertex v) {
+        throw new UnsupportedOperationException("This graph is an immutable snapshot");
+    }
+
+    /**
+     * Returns <tt>true</tt> if this graph contains the specified vertex. More
+     * formally, returns <tt>true</tt> if and only if this graph contains a vertex
+     * <code>u</code> such that <code>u.equals(v)</code>. If the specified vertex is
+     * <code>null</code> returns <code>false</code>.
+     *
+     * @param v vertex whose presence in this graph is to be tested.
+     *
+     * @return <tt>true</tt> if this graph contains the specified vertex.
+     */
+    @Override
+    public boolean containsVertex(Vertex v) {
+        return findVertex(v) >= 0;
+    }
+
+    /**
+     * The snapshot is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean removeVertex(Vertex v) {
+        throw new UnsupportedOperationException("This graph is an immutable snapshot");
+    }
+
+    /**
+     * Returns a set of the vertices contained in this graph.
+     * The set is an unmodifiable view over the vertices of the snapshot.
+     *
+     * @return a set view of the vertices contained in this graph.
+     */
+    @Override
+    public Set<Vertex> vertexSet() {
+        return new AbstractSet<Vertex>() {
+            @Override
+            public Iterator<Vertex> iterator() {
+                return CsrGraph.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Vertex && findVertex((Vertex) o) >= 0;
+            }
+        };
+    }
+
+    /**
+     * The snapshot is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Edge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("This graph is an immutable snapshot");
+    }
+
+    /**
+     * Returns <tt>true</tt> if and only if this graph contains an edge going from
+     * the source vertex to the target vertex. If any of the specified vertices does
+     * not exist in the graph, or if is <code>
+     * null</code>, returns <code>false</code>.
+     *
+     * @param sourceVertex
+     *            source vertex of the edge.
+     * @param targetVertex
+     *            target vertex of the edge.
+     *
+     * @return <tt>true</tt> if this graph contains the specified edge.
+     */
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        return s >= 0 && t >= 0 && findEdge(s, t) >= 0;
+    }
+
+    /**
+     * Returns a set of the edges contained in this graph.
+     * The set is an unmodifiable view over the edges of the snapshot:
+     * the edges are created while iterating.
+     *
+     * @return a set of the edges contained in this graph.
+     */
+    @Override
+    public Set<Edge> edgeSet() {
+        return new AbstractSet<Edge>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new Iterator<Edge>() {
+                    //The next edge is the k-th of the targets array, leaving s
+                    private int s = 0;
+                    private int k = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return k < targets.length();
+                    }
+
+                    @Override
+                    public Edge next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        while (offsets.get(s + 1) <= k)
+                            s++;
+                        Edge e = new EdgeImpl(vertex(s), vertex(targets.get(k)), weights == null ? DEFAULT_EDGE_WEIGHT : weights.get(k), CsrGraph.this);
+                        k++;
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return targets.length();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof DirectedEdge && containsEdge(((DirectedEdge) o).getSource(), ((DirectedEdge) o).getTarget());
+            }
+        };
+    }
+
+    /**
+     * Returns the degree of the specified vertex.
+     *
+     * <p>
+     * In directed graphs this method returns the sum of the "in degree" and the
+     * "out degree".
+     *
+     * @param vertex
+     *            vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int degreeOf(Vertex vertex) {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    /**
+     * Returns the "in degree" of the specified vertex.
+     *
+     * <p>
+     * The "in degree" of a vertex in a directed graph is the number of inward
+     * directed edges from that vertex. As in the graphs the snapshots are built from,
+     * a self loop is not counted and a vertex not in the snapshot has in degree 0.
+     *
+     * @param vertex
+     *            vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        int i = findVertex(vertex);
+        if (i < 0)
+            return 0;
+        //The entering edges keep the self loop for the topological sort, the graphs do not count it
+        int degree = inOffsets.get(i + 1) - inOffsets.get(i);
+        return findEdge(i, i) >= 0 ? degree - 1 : degree;
+    }
+
+    /**
+     * Returns the "out degree" of the specified vertex.
+     *
+     * <p>
+     * The "out degree" of a vertex in a directed graph is the number of outward
+     * directed edges from that vertex.
+     *
+     * @param vertex
+     *            vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        int i = findVertex(vertex);
+        if (i < 0)
+            throw new IllegalArgumentException("The vertex is not contained in the graph.");
+        return offsets.get(i + 1) - offsets.get(i);
+    }
+
+    /**
+     * @return true if the snapshot has the weights of the edges
+     */
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    /**
+     * Returns true if this is a directed graph.
+     *
+     * @return true if this is a directed graph, false otherwise
+     */
+    @Override
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    /**
+     * The snapshot is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        throw new UnsupportedOperationException("This graph is an immutable snapshot");
+    }
+
+    /**
+     * Returns the weight assigned to a given edge. Unweighted graphs return 1.0 (as
+     * defined by {@link #DEFAULT_EDGE_WEIGHT}), allowing weighted-graph algorithms
+     * to apply to them when meaningful.
+     *
+     * @param sourceVertex
+     *            source vertex of the edge.
+     * @param targetVertex
+     *            target vertex of the edge.
+     * @return edge weight, or 0 if the edge does not exist
+     */
+    @Override
+    public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        int k = s >= 0 && t >= 0 ? findEdge(s, t) : -1;
+        if (k < 0)
+            return 0;
+        return weights == null ? DEFAULT_EDGE_WEIGHT : weights.get(k);
+    }
+
+    /**
+     * The snapshot is immutable.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void setEdgeWeight(Vertex sourceVertex, Vertex targetVertex, double weight) {
+        throw new UnsupportedOperationException("This graph is an immutable snapshot");
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph.
+     * Unweighted snapshots support BFS, DFS and DFS_TOT, weighted snapshots support DIJKSTRA,
+     * as the graphs they are built from.
+     *
+     * @param type the search type.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
+        //If there's no nodes, returns null
+        if (getVerticesNumber() == 0)
+            return null;
+        return visit(type, Collections.singletonList(vertex(getHeadVertex())));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     * DFS and BFS reach only the vertices reachable from source, DFS_TOT then goes on
+     * from the vertices not discovered yet.
+     *
+     * @param type the search type.
+     * @param source the vertex the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if source is not found in the graph.
+     * @throws NullPointerException if source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return visit(type, Collections.singletonList(source));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices
+     * at once: for BFS and DIJKSTRA every source is at distance 0 and a vertex is reached from the nearest one,
+     * DFS and DFS_TOT start a tree from each source in order. The source of the result is the first one.
+     *
+     * @param type the search type.
+     * @param sources the vertices the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException if any source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        int[] roots = findSources(sources);
+        if ((type == SearchType.DIJKSTRA) != (weights != null))
+            throw new UnsupportedOperationException(weights != null
+                    ? "This visit cannot be performed on weighted graphs"
+                    : "This visit cannot be performed on unweighted graphs");
+        GraphSearchResultImpl tree = new GraphSearchResultImpl(type, vertex(roots[0]), this);
+        switch (type) {
+            case BFS:
+                return BFS(tree, roots);
+            case DFS:
+                return DFS(tree, roots, false);
+            case DFS_TOT:
+                return DFS(tree, roots, true);
+            case DIJKSTRA:
+                return dijkstra(tree, roots);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Visits in breadth the vertices reachable from the roots, all of them at distance 0.
+     * Each level is visited top-down, from the edges leaving the frontier, or bottom-up, looking in the
+     * entering edges of each vertex not discovered yet for one coming from the frontier, in the direction
+     * chosen by BfsDirection. Both give a breadth first tree with the same distances.
+     *
+     * @param tree  receives the visit forest and the distances
+     * @param roots positions of the first vertices visited
+     * @return the tree
+     */
+    private GraphSearchResultImpl BFS(GraphSearchResultImpl tree, int[] roots) {
+        Colors[] visitedNodes = notVisitedNodes();
+        int[] queue = new int[getVerticesNumber()];
+        int[] distance = new int[getVerticesNumber()];
+        //The frontier as a bitset, filled only for the bottom-up levels
+        long[] frontier = new long[(getVerticesNumber() + 63) >>> 6];
+        BfsDirection direction = new BfsDirection(getVerticesNumber());
+        long unexplored = inSources.length();
+        int head = 0, tail = 0;
+        //Adds the roots to the queue and sets them as gray
+        for (int root : roots) {
+            if (visitedNodes[root] != Colors.WHITE)
+                continue;
+            visitedNodes[root] = Colors.GREY;
+            queue[tail++] = root;
+            unexplored -= inOffsets.get(root + 1) - inOffsets.get(root);
+            tree.addRoot(vertex(root));
+            tree.setDistance(vertex(root), 0);
+        }
+        //Each pass visits the level in queue[head, end)
+        while (head < tail) {
+            int end = tail;
+            long frontierEdges = 0;
+            for (int k = head; k < end; k++)
+                frontierEdges += offsets.get(queue[k] + 1) - offsets.get(queue[k]);
+            if (direction.bottomUp(frontierEdges, unexplored, end - head)) {
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] |= 1L << queue[k];
+                //Every vertex not discovered yet looks for a predecessor in the frontier
+                for (int v = 0; v < getVerticesNumber(); v++) {
+                    if (visitedNodes[v] != Colors.WHITE)
+                        continue;
+                    for (int k = inOffsets.get(v); k < inOffsets.get(v + 1); k++) {
+                        int parent = inSources.get(k);
+                        if ((frontier[parent >>> 6] & 1L << parent) != 0) {
+                            discover(visitedNodes, tree, distance, parent, v);
+                            queue[tail++] = v;
+                            unexplored -= inOffsets.get(v + 1) - inOffsets.get(v);
+                            break;
+                        }
+                    }
+                }
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] = 0;
+            } else {
+                //Add the vertices connected to the frontier in the queue and in the BFS tree if they are white
+                for (int j = head; j < end; j++) {
+                    int current = queue[j];
+                    for (int k = offsets.get(current); k < offsets.get(current + 1); k++) {
+                        int neighbor = targets.get(k);
+                        if (visitedNodes[neighbor] == Colors.WHITE) {
+                            discover(visitedNodes, tree, distance, current, neighbor);
+                            queue[tail++] = neighbor;
+                            unexplored -= inOffsets.get(neighbor + 1) - inOffsets.get(neighbor);
+                        }
+                    }
+                }
+            }
+            for (int k = head; k < end; k++)
+                visitedNodes[queue[k]] = Colors.BLACK;
+            head = end;
+        }
+        return tree;
+    }
+
+    /**
+     * Adds to a breadth first tree the vertex child, reached from parent.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         the tree
+     * @param distance     the distance of each position discovered
+     * @param parent       position of the parent
+     * @param child        position of the vertex discovered
+     */
+    private void discover(Colors[] visitedNodes, GraphSearchResultImpl tree, int[] distance, int parent, int child) {
+        distance[child] = distance[parent] + 1;
+        tree.addLeaves(vertex(child));
+        tree.addEdge(vertex(parent), vertex(child));
+        tree.setDistance(vertex(child), distance[child]);
+        visitedNodes[child] = Colors.GREY;
+    }
+
+    /**
+     * Visits in depth from each root in order and, if total, then from each vertex not discovered yet,
+     * recording the times each vertex is discovered and closed on a single clock starting from 1.
+     *
+     * @param tree  receives the visit forest and the times
+     * @param roots positions of the first vertices visited
+     * @param total whether to visit the whole graph
+     * @return the tree
+     */
+    private GraphSearchResultImpl DFS(GraphSearchResultImpl tree, int[] roots, boolean total) {
+        Colors[] visitedNodes = notVisitedNodes();
+        //next[v] is the position of the next edge of v to explore
+        int[] next = new int[getVerticesNumber()];
+        int[] startTime = new int[getVerticesNumber()];
+        int[] stack = new int[getVerticesNumber()];
+        int time = 0;
+        //Negative k start the trees from the roots, the next ones start from the positions in order
+        for (int k = -roots.length; k < (total ? getVerticesNumber() : 0); k++) {
+            int start = k < 0 ? roots[roots.length + k] : k;
+            if (visitedNodes[start] != Colors.WHITE)
+                continue;
+            int top = 0;
+            visitedNodes[start] = Colors.GREY;
+            startTime[start] = ++time;
+            next[start] = offsets.get(start);
+            stack[top++] = start;
+            tree.addRoot(vertex(start));
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < offsets.get(current + 1)) {
+                    int neighbor = targets.get(next[current]++);
+                    //If the node has not been visited, goes down into it
+                    if (visitedNodes[neighbor] == Colors.WHITE) {
+                        tree.addLeaves(vertex(neighbor));
+                        tree.addEdge(vertex(current), vertex(neighbor));
+                        visitedNodes[neighbor] = Colors.GREY;
+                        startTime[neighbor] = ++time;
+                        next[neighbor] = offsets.get(neighbor);
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes[current] = Colors.BLACK;
+                    tree.setTimes(vertex(current), startTime[current], ++time);
+                    top--;
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Finds the shortest paths from the roots, all of them at distance 0, with a priority queue.
+     *
+     * @param tree  receives the shortest paths tree and the distances
+     * @param roots positions of the sources
+     * @return the tree
+     */
+    private GraphSearchResultImpl dijkstra(GraphSearchResultImpl tree, int[] roots) {
+        Colors[] visitedNodes = notVisitedNodes();
+        double[] distance = new double[getVerticesNumber()];
+        int[] parentEdge = new int[getVerticesNumber()];
+        int[] parent = new int[getVerticesNumber()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> queue = new PriorityQueue<double[]>(Comparator.comparingDouble(e -> e[0]));
+        //Every source starts at distance 0
+        for (int root : roots) {
+            distance[root] = 0;
+            parent[root] = -1;
+            queue.add(new double[]{0, root});
+        }
+        while (!queue.isEmpty()) {
+            int current = (int) queue.poll()[1];
+            //Skips the stale entries of vertices already closed
+            if (visitedNodes[current] == Colors.BLACK)
+                continue;
+            visitedNodes[current] = Colors.BLACK;
+            if (parent[current] < 0) {
+                tree.addRoot(vertex(current));
+            } else {
+                tree.addLeaves(vertex(current));
+                tree.addEdge(vertex(parent[current]), vertex(current), weights.get(parentEdge[current]));
+            }
+            tree.setDistance(vertex(current), distance[current]);
+            for (int k = offsets.get(current); k < offsets.get(current + 1); k++) {
+                int neighbor = targets.get(k);
+                if (visitedNodes[neighbor] != Colors.BLACK && distance[current] + weights.get(k) < distance[neighbor]) {
+                    distance[neighbor] = distance[current] + weights.get(k);
+                    parent[neighbor] = current;
+                    parentEdge[neighbor] = k;
+                    visitedNodes[neighbor] = Colors.GREY;
+                    queue.add(new double[]{distance[neighbor], neighbor});
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Performs a breadth first visit starting from source, expanding each level in parallel
+     * on the common ForkJoinPool.
+     *
+     * @param source the vertex the visit starts from.
+     * @return a GraphSearchResult with the parents and the distances of the vertices reached.
+     * @throws UnsupportedOperationException if the snapshot is weighted.
+     * @throws IllegalArgumentException      if source is not found in the graph.
+     * @throws NullPointerException          if source is <code>null</code>.
+     */
+    public GraphSearchResult parallelBFS(Vertex source) throws UnsupportedOperationException {
+        return parallelBFS(Collections.singletonList(source), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Performs a breadth first visit starting from all the given vertices at once, expanding each level
+     * in parallel on pool: the threads claim the vertices of the next level with a compare and set,
+     * so the parent of a vertex can be any of its predecessors in the previous level.
+     * The snapshot is immutable, so the threads read it without locks. The result is built once the visit
+     * is over, by the calling thread.
+     *
+     * @param sources the vertices the visit starts from.
+     * @param pool    the pool that expands the levels.
+     * @return a GraphSearchResult with the parents and the distances of the vertices reached.
+     * @throws UnsupportedOperationException if the snapshot is weighted.
+     * @throws IllegalArgumentException      if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException          if any source or pool is <code>null</code>.
+     */
+    public GraphSearchResult parallelBFS(Collection<Vertex> sources, ForkJoinPool pool) throws UnsupportedOperationException {
+        int[] roots = findSources(sources);
+        if (pool == null)
+            throw new NullPointerException("The given parameter is null");
+        if (weights != null)
+            throw new UnsupportedOperationException("This visit cannot be performed on weighted graphs");
+        ParallelBfs bfs = new ParallelBfs(offsets, targets, getVerticesNumber());
+        int count = bfs.visit(roots, pool);
+        GraphSearchResultImpl tree = new GraphSearchResultImpl(SearchType.BFS, vertex(roots[0]), this);
+        //The vertices come level by level, so every parent is in the tree before its children
+        for (int i = 0; i < count; i++) {
+            int v = bfs.get(i);
+            int parent = bfs.parentOf(v);
+            if (parent < 0) {
+                tree.addRoot(vertex(v));
+            } else {
+                tree.addLeaves(vertex(v));
+                tree.addEdge(vertex(parent), vertex(v));
+            }
+            tree.setDistance(vertex(v), bfs.distanceOf(v));
+        }
+        return tree;
+    }
+
+    /**
+     * Check whether the current graph contains cycles or not.
+     * @return true if the current graph contains cycles, false otherwise.
+     */
+    @Override
+    public boolean isCyclic() {
+        return !findCycle().isEmpty();
+    }
+
+    /**
+     * Returns a cycle of the graph, found by a single depth first visit that stops
+     * at the first edge going back to a vertex on the current path.
+     *
+     * @return the vertices of the cycle in order, the last one has an edge to the first one;
+     * an empty list if the graph is acyclic.
+     */
+    public List<Vertex> findCycle() {
+        Colors[] visitedNodes = notVisitedNodes();
+        int[] next = new int[getVerticesNumber()];
+        int[] stack = new int[getVerticesNumber()];
+        for (int root = 0; root < getVerticesNumber(); root++) {
+            if (visitedNodes[root] != Colors.WHITE)
+                continue;
+            int top = 0;
+            visitedNodes[root] = Colors.GREY;
+            next[root] = offsets.get(root);
+            stack[top++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < offsets.get(current + 1)) {
+                    int neighbor = targets.get(next[current]++);
+                    //An edge back to a vertex on the current path closes a cycle
+                    if (visitedNodes[neighbor] == Colors.GREY) {
+                        int from = top - 1;
+                        while (stack[from] != neighbor)
+                            from--;
+                        List<Vertex> cycle = new ArrayList<Vertex>(top - from);
+                        for (int i = from; i < top; i++)
+                            cycle.add(vertex(stack[i]));
+                        return cycle;
+                    }
+                    if (visitedNodes[neighbor] == Colors.WHITE) {
+                        visitedNodes[neighbor] = Colors.GREY;
+                        next[neighbor] = offsets.get(neighbor);
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes[current] = Colors.BLACK;
+                    top--;
+                }
+            }
+        }
+        return new ArrayList<Vertex>();
+    }
+
+    /**
+     * Check whether the current graph is a directed acyclic graph (DAG) or not.
+     * @return true if the current graph is a DAG, false otherwise.
+     */
+    @Override
+    public boolean isDAG() {
+        return !isCyclic() && isDirected;
+    }
+
+    /**
+     * If the current graph is a DAG, it returns a topological sort of this graph.
+     * The vertices with no entering edges are removed first (Kahn's algorithm).
+     *
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     *
+     * @return a topological sort of this graph.
+     */
+    @Override
+    public Vertex[] topologicalSort() {
+        int[] order = new int[getVerticesNumber()];
+        if (kahn(order, new int[getVerticesNumber() + 1]) < 0)
+            throw new UnsupportedOperationException("The current graph is not a DAG.");
+        Vertex[] topologicalSortVertexs = new Vertex[order.length];
+        for (int i = 0; i < order.length; i++)
+            topologicalSortVertexs[i] = vertex(order[i]);
+        return topologicalSortVertexs;
+    }
+
+    /**
+     * If the current graph is a DAG, it returns its vertices grouped in levels: a vertex is in the level
+     * after the last level of the vertices with an edge to it, so no two vertices of a level are connected.
+     * The levels, one after the other, are the order returned by topologicalSort.
+     *
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     *
+     * @return the levels of the graph, starting from the vertices with no edges entering them.
+     */
+    public Vertex[][] topologicalLevels() {
+        int[] order = new int[getVerticesNumber()];
+        int[] levelStart = new int[getVerticesNumber() + 1];
+        int levels = kahn(order, levelStart);
+        if (levels < 0)
+            throw new UnsupportedOperationException("The current graph is not a DAG.");
+        Vertex[][] topologicalLevels = new Vertex[levels][];
+        for (int l = 0; l < levels; l++) {
+            topologicalLevels[l] = new Vertex[levelStart[l + 1] - levelStart[l]];
+            for (int i = levelStart[l]; i < levelStart[l + 1]; i++)
+                topologicalLevels[l][i - levelStart[l]] = vertex(order[i]);
+        }
+        return topologicalLevels;
+    }
+
+    /**
+     * Sorts the positions with Kahn's algorithm, in O(V + E), counting down the in degrees.
+     * The queue is filled a level at a time, so the positions taken while a level is scanned form the next one.
+     * If some vertices are never taken, they are on a cycle.
+     *
+     * @param order      receives the positions in topological order
+     * @param levelStart receives where each level starts in order, and where the last one ends
+     * @return the number of levels, -1 if the graph has a cycle
+     */
+    private int kahn(int[] order, int[] levelStart) {
+        int[] inDegree = new int[getVerticesNumber()];
+        int tail = 0;
+        for (int i = 0; i < getVerticesNumber(); i++) {
+            inDegree[i] = inOffsets.get(i + 1) - inOffsets.get(i);
+            if (inDegree[i] == 0)
+                order[tail++] = i;
+        }
+
+        int levels = 0;
+        int head = 0;
+        while (head < tail) {
+            levelStart[levels++] = head;
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int current = order[head];
+                for (int k = offsets.get(current); k < offsets.get(current + 1); k++)
+                    if (--inDegree[targets.get(k)] == 0)
+                        order[tail++] = targets.get(k);
+            }
+        }
+        levelStart[levels] = tail;
+        //The vertices on a cycle never reach in degree 0
+        return tail < order.length ? -1 : levels;
+    }
+
+    /**
+     * If the current graph is directed, this method returns the strongly connected components
+     * of the graph (Tarjan's algorithm). The components are in order of their first vertex and the
+     * vertices of each component in the order of the snapshot.
+     *
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     *
+     * @return a collection of collections of vertices representing the strongly connected components of the graph.
+     */
+    @Override
+    public Collection<Collection<Vertex>> stronglyConnectedComponents() {
+        if (!isDirected)
+            throw new UnsupportedOperationException("The current graph is not directed.");
+
+        Collection<Collection<Vertex>> components = new LinkedList<Collection<Vertex>>();
+        for (int[] members : tarjan().members()) {
+            Collection<Vertex> currentComponents = new ArrayList<Vertex>(members.length);
+            for (int i : members)
+                currentComponents.add(vertex(i));
+            components.add(currentComponents);
+        }
+        return components;
+    }
+
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm, in O(V + E),
+     * keeping the path of the visit in an explicit stack.
+     *
+     * @return the component of each position
+     */
+    private Components tarjan() {
+        //number[v] is the discovery order of v (0 if not discovered), low[v] the lowest number reachable from v
+        int[] number = new int[getVerticesNumber()];
+        int[] low = new int[getVerticesNumber()];
+        int[] next = new int[getVerticesNumber()];
+        int[] stack = new int[getVerticesNumber()];
+        //The vertices discovered whose component is not closed yet
+        int[] open = new int[getVerticesNumber()];
+        int[] componentOf = new int[getVerticesNumber()];
+        Arrays.fill(componentOf, -1);
+        int counter = 0, openTop = 0, count = 0;
+
+        for (int root = 0; root < getVerticesNumber(); root++) {
+            if (number[root] != 0)
+                continue;
+            int top = 0;
+            number[root] = low[root] = ++counter;
+            next[root] = offsets.get(root);
+            stack[top++] = root;
+            open[openTop++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < offsets.get(current + 1)) {
+                    int neighbor = targets.get(next[current]++);
+                    if (number[neighbor] == 0) {
+                        number[neighbor] = low[neighbor] = ++counter;
+                        next[neighbor] = offsets.get(neighbor);
+                        stack[top++] = neighbor;
+                        open[openTop++] = neighbor;
+                    } else if (componentOf[neighbor] < 0)
+                        low[current] = Math.min(low[current], number[neighbor]);
+                } else {
+                    top--;
+                    if (top > 0)
+                        low[stack[top - 1]] = Math.min(low[stack[top - 1]], low[current]);
+                    //current is the first vertex discovered of its component: closes it
+                    if (low[current] == number[current]) {
+                        int v;
+                        do {
+                            v = open[--openTop];
+                            componentOf[v] = count;
+                        } while (v != current);
+                        count++;
+                    }
+                }
+            }
+        }
+        return new Components(componentOf, count);
+    }
+
+    /**
+     * Returns a string representing the strongly connected components of the graph.
+     * For instance: {{1,2,3},{4,6},{5}}
+     *
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     *
+     * @return a string representing the strongly connected components of the graph.
+     */
+    @Override
+    public String toStringSCC() {
+        StringBuilder ren = new StringBuilder("{");
+        int[][] components = tarjan().members();
+        for (int k = 0; k < components.length; k++) {
+            if (k > 0)
+                ren.append(",");
+            ren.append("{");
+            for (int i = 0; i < components[k].length; i++) {
+                if (i > 0)
+                    ren.append(",");
+                ren.append(vertex(components[k][i]).getLabel());
+            }
+            ren.append("}");
+        }
+        return ren.append("}").toString();
+    }
+}
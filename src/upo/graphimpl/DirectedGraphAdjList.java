@@ -5,6 +5,8 @@ package upo.graphimpl;
 
 import upo.graph.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -13,95 +15,157 @@ import java.util.*;
  * @author Simone Massaro
  */
 public class DirectedGraphAdjList implements Graph {
-    private LinkedHashMap<Vertex, LinkedList<Vertex>> graph;
-    private HashMap<Vertex, Colors> visitedNodes;
+    private VertexIndex vertices;
+    private int[][] successors;
+    private int[] outDegree;
+    //predecessors[t] lists the sources of the edges entering t, self loops excluded, in no particular order
+    private int[][] predecessors;
+    private int[] inDegree;
+    private int edgeCount;
+    //Visit state of each thread, so that read-only algorithms can run on the graph at the same time
+    private final ThreadLocal<VisitMarks> visitWorkspace = ThreadLocal.withInitial(() -> new VisitMarks(16));
     private final boolean isDirected = true;
 
     /**
      * Initializes the graph
      */
     public DirectedGraphAdjList() {
-        graph = new LinkedHashMap<>();
-        visitedNodes = new HashMap<>();
+        this(16);
+    }
+
+    /**
+     * Initializes the graph with room for the given number of vertices,
+     * so that loading up to capacity vertices allocates the arrays indexed by id only once.
+     * The arrays grow anyway if more vertices are added.
+     *
+     * @param capacity the expected number of vertices
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public DirectedGraphAdjList(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("The capacity cannot be negative.");
+        capacity = Math.max(capacity, 1);
+        vertices = new VertexIndex(capacity);
+        successors = new int[capacity][];
+        outDegree = new int[capacity];
+        predecessors = new int[capacity][];
+        inDegree = new int[capacity];
     }
 
     /**
      * @return the number of vertices of the graph.
      */
     private int getVerticesNumber() {
-        return graph.keySet().size();
-    }
-
-    /**
-     * Return a list of head vertices of the graph.
-     * If there aren't, returns the first vertex inserted in the graph.
-     *
-     * @return list of head vertices
-     */
-    private LinkedList<Vertex> getHeadVertices() {
-        LinkedList<Vertex> root = new LinkedList<Vertex>();
-        for (Vertex v : graph.keySet())
-            if (inDegreeOf(v) == 0 && !graph.get(v).isEmpty())
-                root.add(v);
-        if (root.isEmpty())
-            root.add(graph.keySet().stream().findFirst().orElse(null));
-        return root;
-    }
-
-    /**
-     * Find the shortest path from current to find.
-     * Returns null if it does not exist.
-     *
-     * @param current
-     * @param find
-     * @return the list of vertices of the route
-     */
-    private Collection<Vertex> checkCicle(Vertex current, Vertex find) {
-        Collection<Vertex> currentComponents = new LinkedList<Vertex>();
-        Collection<Vertex> neighborComponents = new LinkedList<Vertex>();
-        Collection<Vertex> components = new LinkedList<Vertex>();
-        setColorVertextVisitedNodes(current, Colors.GREY);
-        //Gets the vertices connected to it
-        if (current != null)
-            for (Vertex neighbor : graph.get(current)) {
-                if (neighbor.equals(find) && (currentComponents.size() < components.size() || components.isEmpty())) {
-                    components.clear();
-                    components.add(neighbor);
-                } else if (visitedNodes.get(neighbor).equals(Colors.WHITE)) {
-                    neighborComponents = checkCicle(neighbor, find);
-                    if (!neighborComponents.isEmpty() && (neighborComponents.size() < components.size() || components.isEmpty())) {
-                        components.clear();
-                        components.addAll(neighborComponents);
-                        components.add(neighbor);
-                    }
-                }
-            }
-        return components;
+        return vertices.size();
+    }
+
+    /**
+     * Makes room in the arrays indexed by id for the ids lower than bound.
+     *
+     * @param bound
+     */
+    private void ensureCapacity(int bound) {
+        if (bound <= outDegree.length)
+            return;
+        int capacity = Math.max(bound, outDegree.length * 2);
+        successors = Arrays.copyOf(successors, capacity);
+        outDegree = Arrays.copyOf(outDegree, capacity);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        inDegree = Arrays.copyOf(inDegree, capacity);
     }
 
     /**
-     * Initializes the variable visitedNodes to 'not visited'.
+     * Returns the position of the edge from s to t in the adjacency list of s.
+     * if the edge does not exist returns -1.
+     *
+     * @param s id of the source
+     * @param t id of the target
+     * @return the position of t in the adjacency list of s
+     */
+    private int findEdge(int s, int t) {
+        for (int k = 0; k < outDegree[s]; k++)
+            if (successors[s][k] == t)
+                return k;
+        return -1;
+    }
+
+    /**
+     * Return the id of a head vertex of the graph, the first one with no entering edges and some exiting ones.
+     * If there aren't, returns the first vertex inserted in the graph. Stops at the first match.
+     *
+     * @return id of the head vertex, -1 if the graph is empty
      */
-    private void setNotVisitedNodes() {
+    private int getHeadVertex() {
+        int first = -1;
+        for (int i = 0; i < vertices.bound(); i++) {
+            if (!vertices.isUsed(i))
+                continue;
+            if (inDegree[i] == 0 && outDegree[i] > 0)
+                return i;
+            if (first < 0)
+                first = i;
+        }
+        return first;
+    }
+
+    /**
+     * Returns the ids of the sources of a visit, in order.
+     *
+     * @param sources
+     * @return the ids
+     * @throws NullPointerException     if any source is <code>null</code>
+     * @throws IllegalArgumentException if sources is empty or any source is not in the graph
+     */
+    private int[] findSources(Collection<Vertex> sources) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("A visit needs at least one source.");
+        int[] ids = new int[sources.size()];
+        int n = 0;
+        for (Vertex v : sources) {
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+            int id = vertices.indexOf(v);
+            if (id < 0)
+                throw new IllegalArgumentException("The source is not contained in the graph.");
+            ids[n++] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * Initializes the visit state of the calling thread to 'not visited', in constant time.
+     * Every thread has its own state, so visits running at the same time don't interfere.
+     *
+     * @return the visit state to use in the current call
+     */
+    private VisitMarks setNotVisitedNodes() {
+        VisitMarks visitedNodes = visitWorkspace.get();
+        visitedNodes.ensureCapacity(vertices.bound());
         visitedNodes.clear();
-        for (Vertex v : graph.keySet())
-            visitedNodes.put(v, Colors.WHITE);
+        return visitedNodes;
     }
 
     /**
-     * Change the value of the vertex v in the variable visitedNodes with color.
+     * returns the list of Edgees of v.
+     * if v is not a vertex of the graph returns null.
      *
      * @param v
-     * @param color
+     * @return
      */
-    private void setColorVertextVisitedNodes(Vertex v, Colors color) {
-        visitedNodes.put(ListStructuresFunctions.getKeyAsVertex(v, graph), color);
+    protected Collection<Vertex> getEdgees(Vertex v) {
+        int id = vertices.indexOf(v);
+        if (id < 0)
+            return null;
+        LinkedList<Vertex> edgeesList = new LinkedList<Vertex>();
+        for (int k = 0; k < outDegree[id]; k++)
+            edgeesList.add(vertices.get(successors[id][k]));
+        return edgeesList;
     }
 
     @Override
     public Iterator<Vertex> iterator() {
-        //Iterator over the HashMap keys
-        return graph.keySet().iterator();
+        //Iterator over the vertices, in order of id
+        return vertices.iterator();
     }
 
     /**
@@ -128,13 +192,50 @@ public class DirectedGraphAdjList implements Graph {
             throw new NullPointerException("The given parameter is null");
 
         //Vertex exists
-        if (containsVertex(v))
+        int id = vertices.add(v);
+        if (id < 0)
             return false;
-        else {
-            //Adds the vertex and initializes an empty list
-            graph.put(v, new LinkedList<Vertex>());
-            return true;
+
+        //Initializes an empty list for the new id
+        ensureCapacity(vertices.bound());
+        successors[id] = new int[4];
+        outDegree[id] = 0;
+        predecessors[id] = new int[4];
+        inDegree[id] = 0;
+        return true;
+    }
+
+    /**
+     * Adds all the given vertices, as addVertex would do one at a time,
+     * growing the arrays indexed by id only once.
+     *
+     * @param vs the vertices to add
+     * @return the number of vertices added, the ones already in the graph are skipped
+     * @throws NullPointerException if any of the vertices is <code>null</code>,
+     *                              in which case no vertex is added.
+     */
+    public int addVertices(Collection<? extends Vertex> vs) {
+        for (Vertex v : vs)
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+
+        int[] ids = new int[vs.size()];
+        int added = 0;
+        for (Vertex v : vs) {
+            int id = vertices.add(v);
+            if (id >= 0)
+                ids[added++] = id;
         }
+
+        //Initializes an empty list for the new ids
+        ensureCapacity(vertices.bound());
+        for (int k = 0; k < added; k++) {
+            successors[ids[k]] = new int[4];
+            outDegree[ids[k]] = 0;
+            predecessors[ids[k]] = new int[4];
+            inDegree[ids[k]] = 0;
+        }
+        return added;
     }
 
     /**
@@ -150,7 +251,7 @@ public class DirectedGraphAdjList implements Graph {
     @Override
     public boolean containsVertex(Vertex v) {
         // If the vertex is null or does not exist in the graph, returns false
-        return v != null && ListStructuresFunctions.keyExists(v, graph);
+        return vertices.indexOf(v) >= 0;
     }
 
     /**
@@ -175,37 +276,41 @@ public class DirectedGraphAdjList implements Graph {
      */
     @Override
     public boolean removeVertex(Vertex v) {
-        //If the vertex is null or the graph doesn't contain it, returns null
-        //graph.keySet().stream().noneMatch(x -> x.getLabel().equals(v.getLabel()))
-        if (v == null || !containsVertex(v))
+        //If the vertex is null or the graph doesn't contain it, returns false
+        int id = vertices.remove(v);
+        if (id < 0)
             return false;
 
-        //Removes the key (aka the vertex)
-        graph.remove(ListStructuresFunctions.getKeyAsVertex(v, graph));
-
-        //For each keys, checks if the LinkedList contains the vertex and if it does, deletes it
-        for (Vertex key : graph.keySet()) {
-            if (ListStructuresFunctions.adjListContains(ListStructuresFunctions.getAdjListIfExists(v, graph), v))
-                (ListStructuresFunctions.getAdjListIfExists(v, graph)).remove(graph.get(key).stream().filter(x -> x.getLabel().equals(v.getLabel())).findFirst().orElse(null));
+        //Removes the vertex from the lists of the vertices it is linked to
+        for (int k = 0; k < outDegree[id]; k++) {
+            int t = successors[id][k];
+            if (t != id)
+                removePredecessor(t, id);
         }
+        for (int k = 0; k < inDegree[id]; k++) {
+            int s = predecessors[id][k];
+            removeFromList(s, findEdge(s, id));
+        }
+        edgeCount -= outDegree[id] + inDegree[id];
+
+        //Drops its adjacency lists
+        successors[id] = null;
+        outDegree[id] = 0;
+        predecessors[id] = null;
+        inDegree[id] = 0;
 
         return true;
     }
 
     /**
      * Returns a set of the vertices contained in this graph.
-     *
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes.
      *
      * @return a set view of the vertices contained in this graph.
      */
     @Override
     public Set<Vertex> vertexSet() {
-        Set<Vertex> vertices = new HashSet<Vertex>();
-
-        for (Vertex key : graph.keySet())
-            vertices.add(key);
-
-        return vertices;
+        return vertices.asSet();
     }
 
     /**
@@ -243,18 +348,163 @@ public class DirectedGraphAdjList implements Graph {
             throw new NullPointerException("One or more given parameter is null.");
 
         //If the graph doesn't contain both the specified vertex, throws IllegalArgumentException
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = vertices.indexOf(sourceVertex);
+        int t = vertices.indexOf(targetVertex);
+        if (s < 0 || t < 0)
             throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
 
-        //Checks if the list doesn't contain the value already, creates an edge, adds it to the edges set and returns it
-        if (!containsEdge(sourceVertex, targetVertex)) {
-            graph.get(ListStructuresFunctions.getKeyAsVertex(sourceVertex, graph)).add(targetVertex);
+        //Checks if the list doesn't contain the value already, appends the target and returns the edge
+        if (findEdge(s, t) < 0) {
+            if (outDegree[s] == successors[s].length)
+                successors[s] = Arrays.copyOf(successors[s], outDegree[s] * 2);
+            successors[s][outDegree[s]++] = t;
+            edgeCount++;
+            if (s != t)
+                addPredecessor(t, s);
             return new EdgeImpl(sourceVertex, targetVertex, this);
         }
 
         return null;
     }
 
+    /**
+     * Adds all the given edges, as addEdge would do one at a time, skipping the ones
+     * the graph contains already. The edges are checked before changing the graph,
+     * then they are grouped by source so that each adjacency list grows at most once
+     * and the duplicates are found without scanning the lists: the batch takes O(V + E).
+     *
+     * @param edges the edges to add
+     * @return the number of edges added
+     * @throws IllegalArgumentException if the source or the target of an edge is not found in the graph,
+     *                                  in which case no edge is added.
+     * @throws NullPointerException     if an edge or any of its vertices is <code>null</code>,
+     *                                  in which case no edge is added.
+     */
+    public int addEdges(Collection<? extends DirectedEdge> edges) {
+        int n = edges.size();
+        int[] sources = new int[n];
+        int[] targets = new int[n];
+        resolveEdges(edges, sources, targets, true);
+        return addEdges(sources, targets, n);
+    }
+
+    /**
+     * Adds the edges from endpoints[sources[k]] to endpoints[targets[k]] for k lower than count,
+     * as addEdges does, looking each endpoint up only once.
+     *
+     * @param endpoints the vertices the edges refer to
+     * @param sources   the positions in endpoints of the sources
+     * @param targets   the positions in endpoints of the targets
+     * @param count     the number of edges
+     * @return the number of edges added
+     * @throws IllegalArgumentException if an endpoint is not found in the graph, in which case no edge is added.
+     */
+    int addEdges(Vertex[] endpoints, int[] sources, int[] targets, int count) {
+        int[] ids = new int[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            ids[i] = vertices.indexOf(endpoints[i]);
+            if (ids[i] < 0)
+                throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+        }
+        int[] s = new int[count];
+        int[] t = new int[count];
+        for (int k = 0; k < count; k++) {
+            s[k] = ids[sources[k]];
+            t[k] = ids[targets[k]];
+        }
+        return addEdges(s, t, count);
+    }
+
+    /**
+     * Adds the edges from sources[k] to targets[k] for k lower than count, all ids in the graph.
+     *
+     * @param sources the ids of the sources
+     * @param targets the ids of the targets
+     * @param count   the number of edges
+     * @return the number of edges added
+     */
+    private int addEdges(int[] sources, int[] targets, int count) {
+        int bound = vertices.bound();
+        int[] start = new int[bound + 1];
+        int[] order = groupBySource(sources, count, start);
+
+        //mark[t] == s + 1 when t is in the adjacency list of s
+        int[] mark = new int[bound];
+        int added = 0;
+        for (int s = 0; s < bound; s++) {
+            if (start[s] == start[s + 1])
+                continue;
+            for (int k = 0; k < outDegree[s]; k++)
+                mark[successors[s][k]] = s + 1;
+            int needed = outDegree[s] + start[s + 1] - start[s];
+            if (needed > successors[s].length)
+                successors[s] = Arrays.copyOf(successors[s], needed);
+            for (int j = start[s]; j < start[s + 1]; j++) {
+                int t = targets[order[j]];
+                if (mark[t] == s + 1)
+                    continue;
+                mark[t] = s + 1;
+                successors[s][outDegree[s]++] = t;
+                added++;
+                if (s != t)
+                    addPredecessor(t, s);
+            }
+        }
+        edgeCount += added;
+        return added;
+    }
+
+    /**
+     * Finds the ids of the sources and the targets of the given edges.
+     *
+     * @param edges
+     * @param sources    filled with the ids of the sources, -1 for the vertices not in the graph
+     * @param targets    filled with the ids of the targets, -1 for the vertices not in the graph
+     * @param mustExist  whether a vertex not in the graph is an error
+     * @throws IllegalArgumentException if mustExist and a vertex is not in the graph
+     * @throws NullPointerException     if mustExist and an edge or a vertex is null
+     */
+    private void resolveEdges(Collection<? extends DirectedEdge> edges, int[] sources, int[] targets, boolean mustExist) {
+        int i = 0;
+        for (DirectedEdge e : edges) {
+            if (e == null || e.getSource() == null || e.getTarget() == null) {
+                if (mustExist)
+                    throw new NullPointerException("One or more given parameter is null.");
+                sources[i] = targets[i] = -1;
+            } else {
+                sources[i] = vertices.indexOf(e.getSource());
+                targets[i] = vertices.indexOf(e.getTarget());
+                if (mustExist && (sources[i] < 0 || targets[i] < 0))
+                    throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Sorts the positions of the edges by source id, keeping the order of the edges with the same source.
+     * The edges with a negative source are left out.
+     *
+     * @param sources the source ids of the edges
+     * @param count   the number of edges
+     * @param start   filled with the first position in the result of the edges leaving each id,
+     *                start[s + 1] - start[s] is the number of edges leaving s
+     * @return the positions of the edges, by source
+     */
+    private static int[] groupBySource(int[] sources, int count, int[] start) {
+        for (int k = 0; k < count; k++)
+            if (sources[k] >= 0)
+                start[sources[k] + 1]++;
+        for (int s = 0; s + 1 < start.length; s++)
+            start[s + 1] += start[s];
+        int[] order = new int[start[start.length - 1]];
+        int[] position = Arrays.copyOf(start, start.length - 1);
+        for (int k = 0; k < count; k++)
+            if (sources[k] >= 0)
+                order[position[sources[k]]++] = k;
+        return order;
+    }
+
 
     /**
      * Returns <tt>true</tt> if and only if this graph contains an edge going from
@@ -272,32 +522,69 @@ public class DirectedGraphAdjList implements Graph {
     @Override
     public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
         //Returns false if any of the specified vertex does not exist in the current graph
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = vertices.indexOf(sourceVertex);
+        int t = vertices.indexOf(targetVertex);
+        if (s < 0 || t < 0)
             return false;
 
         //If the graph contains an edge from source to target, returns true. Does not consider edge weight.
-        LinkedList<Vertex> vertices = ListStructuresFunctions.getAdjListIfExists(sourceVertex, graph);
-        if (vertices != null && vertices.size() > 0)
-            return ListStructuresFunctions.adjListContains(vertices, targetVertex);
-
-        return false;
+        return findEdge(s, t) >= 0;
     }
 
     /**
      * Returns a set of the edges contained in this graph.
-     *
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes:
+     * its size is kept by the graph and the edges are created while iterating.
      *
      * @return a set of the edges contained in this graph.
      */
     @Override
     public Set<Edge> edgeSet() {
-        Set<Edge> edges = new HashSet<Edge>();
+        return new AbstractSet<Edge>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new Iterator<Edge>() {
+                    //The next edge is the k-th of the adjacency list of s
+                    private int s = 0;
+                    private int k = 0;
 
-        for (Vertex key : graph.keySet())
-            for (Vertex vtx : graph.get(key))
-                edges.add(new EdgeImpl(key, vtx, this));
+                    {
+                        skipEmpty();
+                    }
+
+                    private void skipEmpty() {
+                        while (s < vertices.bound() && k >= outDegree[s]) {
+                            s++;
+                            k = 0;
+                        }
+                    }
 
-        return edges;
+                    @Override
+                    public boolean hasNext() {
+                        return s < vertices.bound();
+                    }
+
+                    @Override
+                    public Edge next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        Edge e = new EdgeImpl(vertices.get(s), vertices.get(successors[s][k++]), DirectedGraphAdjList.this);
+                        skipEmpty();
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return edgeCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof DirectedEdge && containsEdge(((DirectedEdge) o).getSource(), ((DirectedEdge) o).getTarget());
+            }
+        };
     }
 
     /**
@@ -343,20 +630,8 @@ public class DirectedGraphAdjList implements Graph {
     @Override
     public int inDegreeOf(Vertex vertex) {
         if (isDirected) {
-            int inCount = 0;
-            //Iterates between all vertices
-            for (Vertex key : graph.keySet()) {
-                //Doesn't consider itself
-                if (key.getLabel().equals(vertex.getLabel()))
-                    continue;
-
-                //Increments the counter if the given vertex is present in the Adj list
-                for (Vertex vtx : graph.get(key))
-                    if (vtx.getLabel().equals(vertex.getLabel()))
-                        inCount++;
-            }
-
-            return inCount;
+            int id = vertices.indexOf(vertex);
+            return id < 0 ? 0 : inDegree[id];
         } else {
             throw new UnsupportedOperationException();
         }
@@ -378,9 +653,12 @@ public class DirectedGraphAdjList implements Graph {
      */
     @Override
     public int outDegreeOf(Vertex vertex) {
-        if (isDirected)
-            return ListStructuresFunctions.getAdjListIfExists(vertex, graph).size();
-        else
+        if (isDirected) {
+            int id = vertices.indexOf(vertex);
+            if (id < 0)
+                throw new IllegalArgumentException("The vertex is not contained in the graph.");
+            return outDegree[id];
+        } else
             throw new UnsupportedOperationException();
     }
 
@@ -409,18 +687,108 @@ public class DirectedGraphAdjList implements Graph {
     @Override
     public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
         //Returns null if any of the specified vertex does not exist in the current graph
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = vertices.indexOf(sourceVertex);
+        int t = vertices.indexOf(targetVertex);
+        if (s < 0 || t < 0)
             return null;
 
         //Finds the edge with sourceVertex and targetVertex and removes it
-        if (ListStructuresFunctions.adjListContains(ListStructuresFunctions.getAdjListIfExists(sourceVertex, graph), targetVertex)) {
-            if (ListStructuresFunctions.getAdjListIfExists(sourceVertex, graph).remove(targetVertex))
-                return new EdgeImpl(sourceVertex, targetVertex, this);
+        if (removeFromList(s, findEdge(s, t))) {
+            edgeCount--;
+            if (s != t)
+                removePredecessor(t, s);
+            return new EdgeImpl(sourceVertex, targetVertex, this);
         }
 
         return null;
     }
 
+    /**
+     * Removes all the given edges that the graph contains, as removeEdge would do one at a time.
+     * The edges are grouped by source so that each adjacency list is compacted once.
+     *
+     * @param edges the edges to remove, the ones not in the graph are skipped
+     * @return the number of edges removed
+     */
+    public int removeEdges(Collection<? extends DirectedEdge> edges) {
+        int n = edges.size();
+        int[] sources = new int[n];
+        int[] targets = new int[n];
+        resolveEdges(edges, sources, targets, false);
+        for (int k = 0; k < n; k++)
+            if (targets[k] < 0)
+                sources[k] = -1;
+
+        int bound = vertices.bound();
+        int[] start = new int[bound + 1];
+        int[] order = groupBySource(sources, n, start);
+
+        //mark[t] == s + 1 when the edge from s to t has to be removed
+        int[] mark = new int[bound];
+        int removed = 0;
+        for (int s = 0; s < bound; s++) {
+            if (start[s] == start[s + 1])
+                continue;
+            for (int j = start[s]; j < start[s + 1]; j++)
+                mark[targets[order[j]]] = s + 1;
+            //Compacts the list keeping the order of the targets left
+            int kept = 0;
+            for (int k = 0; k < outDegree[s]; k++) {
+                int t = successors[s][k];
+                if (mark[t] == s + 1) {
+                    if (s != t)
+                        removePredecessor(t, s);
+                } else
+                    successors[s][kept++] = t;
+            }
+            removed += outDegree[s] - kept;
+            outDegree[s] = kept;
+        }
+        edgeCount -= removed;
+        return removed;
+    }
+
+    /**
+     * Removes the k-th element of the adjacency list of s, keeping the order of the others.
+     *
+     * @param s id of the source
+     * @param k position in the adjacency list, nothing is done if negative
+     * @return true if an element has been removed
+     */
+    private boolean removeFromList(int s, int k) {
+        if (k < 0)
+            return false;
+        System.arraycopy(successors[s], k + 1, successors[s], k, outDegree[s] - k - 1);
+        outDegree[s]--;
+        return true;
+    }
+
+    /**
+     * Appends s to the predecessors of t.
+     *
+     * @param t id of the target
+     * @param s id of the source
+     */
+    private void addPredecessor(int t, int s) {
+        if (inDegree[t] == predecessors[t].length)
+            predecessors[t] = Arrays.copyOf(predecessors[t], inDegree[t] * 2);
+        predecessors[t][inDegree[t]++] = s;
+    }
+
+    /**
+     * Removes s from the predecessors of t, moving the last one in its place.
+     *
+     * @param t id of the target
+     * @param s id of the source
+     */
+    private void removePredecessor(int t, int s) {
+        for (int k = 0; k < inDegree[t]; k++)
+            if (predecessors[t][k] == s) {
+                predecessors[t][k] = predecessors[t][--inDegree[t]];
+                return;
+            }
+    }
+
     /**
      * Returns the weight assigned to a given edge. Unweighted graphs return 1.0 (as
      * defined by {@link #DEFAULT_EDGE_WEIGHT}), allowing weighted-graph algorithms
@@ -481,65 +849,215 @@ public class DirectedGraphAdjList implements Graph {
     @Override
     public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
         //If there's no nodes, returns null
-        if (graph.keySet().isEmpty())
+        if (getVerticesNumber() == 0)
             return null;
-        setNotVisitedNodes();
-        Vertex root = getHeadVertices().get(0);
-        GraphSearchResultImpl tree = new GraphSearchResultImpl(type, root, this);
+        return visit(type, Collections.singletonList(vertices.get(getHeadVertex())));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     * DFS and BFS reach only the vertices reachable from source, DFS_TOT then goes on
+     * from the vertices not discovered yet.
+     *
+     * @param type the search type.
+     * @param source the vertex the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if source is not found in the graph.
+     * @throws NullPointerException if source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return visit(type, Collections.singletonList(source));
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices
+     * at once: for BFS every source is at distance 0 and a vertex is reached from the nearest one,
+     * DFS and DFS_TOT start a tree from each source in order. The source of the result is the first one.
+     *
+     * @param type the search type.
+     * @param sources the vertices the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException if any source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        int[] roots = findSources(sources);
+        if (type == SearchType.DIJKSTRA)
+            throw new UnsupportedOperationException("This visit cannot be performed on unweighted graphs");
+        VisitMarks visitedNodes = setNotVisitedNodes();
+        GraphSearchResultImpl tree = new GraphSearchResultImpl(type, vertices.get(roots[0]), this);
         switch (type) {
             case BFS:
-                LinkedList<Vertex> queue = new LinkedList<Vertex>();
-                //Adds the root to the queue and sets it as gray
-                setColorVertextVisitedNodes(root, Colors.GREY);
-                queue.add(root);
-                //Adds the root in the BFS tree
-                tree.addLeaves(root);
-                //While the queue is not empty
-                while (!queue.isEmpty()) {
-                    //Gets the first element from the queue
-                    Vertex current = queue.element();
-                    //Add the vertices connected to it in the queue and in the BFS tree if they are white
-                    for (Vertex neighbor : graph.get(current)) {
-                        //If the node has not been visited, adds it to the queue
-                        if (visitedNodes.get(neighbor).equals(Colors.WHITE)) {
-                            queue.add(neighbor);
-                            tree.addLeaves(neighbor);
-                            tree.addEdge(current, neighbor);
-                            setColorVertextVisitedNodes(neighbor, Colors.GREY);
-                        }
-                    }
-                    // delete the first of the queue end set it black
-                    queue.remove(0);
-                    setColorVertextVisitedNodes(current, Colors.BLACK);
-                }
-                return tree;
+                return BFS(visitedNodes, tree, roots);
             case DFS:
-                throw new UnsupportedOperationException();
+                return DFS(visitedNodes, tree, roots, false);
             case DFS_TOT:
-                //Adds the root to the queue and sets it as gray
-                setColorVertextVisitedNodes(root, Colors.GREY);
-                //Adds the root in the BFS tree
-                tree.addLeaves(root);
-                return DFSrecursive(tree, root);
-            case DIJKSTRA:
-                throw new UnsupportedOperationException("This visit cannot be performed on unweighted graphs");
+                return DFS(visitedNodes, tree, roots, true);
             default:
                 return null;
         }
     }
 
-    private GraphSearchResultImpl DFSrecursive(GraphSearchResultImpl tree, Vertex current) {
-        setColorVertextVisitedNodes(current, Colors.GREY);
-        //Add the vertices connected to it in the queue and in the DFS tree if they are white
-        for (Vertex neighbor : graph.get(current)) {
-            //If the node has not been visited, adds it to the queue
-            if (visitedNodes.get(neighbor).equals(Colors.WHITE)) {
-                tree.addLeaves(neighbor);
-                tree.addEdge(current, neighbor);
-                tree = DFSrecursive(tree, neighbor);
+    /**
+     * Visits in breadth the vertices reachable from the roots, all of them at distance 0.
+     * Each level is visited top-down, from the edges leaving the frontier, or bottom-up, looking for each
+     * vertex not discovered yet for an edge coming from the frontier, in the direction chosen by BfsDirection.
+     * Both give a breadth first tree with the same distances, the parent of a vertex can be any of its
+     * predecessors in the previous level. The queue is an array of ids, as every vertex enters it at most once.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         receives the visit forest and the distances
+     * @param roots        ids of the first vertices visited
+     * @return the tree
+     */
+    private GraphSearchResultImpl BFS(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] roots) {
+        int bound = vertices.bound();
+        int[] queue = new int[bound];
+        int[] distance = new int[bound];
+        //The frontier as a bitset, filled only for the bottom-up levels
+        long[] frontier = new long[(bound + 63) >>> 6];
+        BfsDirection direction = new BfsDirection(getVerticesNumber());
+        long unexplored = 0;
+        for (int v = 0; v < bound; v++)
+            if (vertices.isUsed(v))
+                unexplored += inDegree[v];
+        int head = 0, tail = 0;
+        //Adds the roots to the queue and sets them as gray
+        for (int root : roots) {
+            if (!visitedNodes.isWhite(root))
+                continue;
+            visitedNodes.set(root, Colors.GREY);
+            queue[tail++] = root;
+            unexplored -= inDegree[root];
+            tree.addRoot(vertices.get(root));
+            tree.setDistance(vertices.get(root), 0);
+        }
+        //Each pass visits the level in queue[head, end)
+        while (head < tail) {
+            int end = tail;
+            long frontierEdges = 0;
+            for (int k = head; k < end; k++)
+                frontierEdges += outDegree[queue[k]];
+            if (direction.bottomUp(frontierEdges, unexplored, end - head)) {
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] |= 1L << queue[k];
+                //Every vertex not discovered yet looks for a predecessor in the frontier
+                for (int v = 0; v < bound; v++) {
+                    if (!vertices.isUsed(v) || !visitedNodes.isWhite(v))
+                        continue;
+                    for (int k = 0; k < inDegree[v]; k++) {
+                        int parent = predecessors[v][k];
+                        if ((frontier[parent >>> 6] & 1L << parent) != 0) {
+                            discover(visitedNodes, tree, distance, parent, v);
+                            queue[tail++] = v;
+                            unexplored -= inDegree[v];
+                            break;
+                        }
+                    }
+                }
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] = 0;
+            } else {
+                //Add the vertices connected to the frontier in the queue and in the BFS tree if they are white
+                for (int k = head; k < end; k++) {
+                    int current = queue[k];
+                    for (int j = 0; j < outDegree[current]; j++) {
+                        int neighbor = successors[current][j];
+                        //If the node has not been visited, adds it to the queue
+                        if (visitedNodes.isWhite(neighbor)) {
+                            discover(visitedNodes, tree, distance, current, neighbor);
+                            queue[tail++] = neighbor;
+                            unexplored -= inDegree[neighbor];
+                        }
+                    }
+                }
+            }
+            for (int k = head; k < end; k++)
+                visitedNodes.set(queue[k], Colors.BLACK);
+            head = end;
+        }
+        return tree;
+    }
+
+    /**
+     * Adds to a breadth first tree the vertex child, reached from parent.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         the tree
+     * @param distance     the distance of each id discovered
+     * @param parent       id of the parent
+     * @param child        id of the vertex discovered
+     */
+    private void discover(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] distance, int parent, int child) {
+        distance[child] = distance[parent] + 1;
+        tree.addLeaves(vertices.get(child));
+        tree.addEdge(vertices.get(parent), vertices.get(child));
+        tree.setDistance(vertices.get(child), distance[child]);
+        visitedNodes.set(child, Colors.GREY);
+    }
+
+    /**
+     * Visits in depth from each root in order and, if total, then from each vertex not discovered yet.
+     * The path of the visit is kept in an explicit stack, so its depth is bounded by the heap
+     * and not by the call stack. The tree records the time each vertex is discovered and closed,
+     * on a single clock starting from 1, from which the edges can be classified.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         receives the visit forest and the times
+     * @param roots        ids of the first vertices visited
+     * @param total        whether to visit the whole graph
+     * @return the tree
+     */
+    private GraphSearchResultImpl DFS(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] roots, boolean total) {
+        int bound = vertices.bound();
+        //next[v] is the position in the successors of v of the next edge to explore
+        int[] next = new int[bound];
+        int[] startTime = new int[bound];
+        int[] stack = new int[bound];
+        int time = 0;
+        //Negative k start the trees from the roots, the next ones start from the ids in order
+        for (int k = -roots.length; k < (total ? bound : 0); k++) {
+            int start = k < 0 ? roots[roots.length + k] : k;
+            if (!vertices.isUsed(start) || !visitedNodes.isWhite(start))
+                continue;
+            int top = 0;
+            visitedNodes.set(start, Colors.GREY);
+            startTime[start] = ++time;
+            next[start] = 0;
+            stack[top++] = start;
+            tree.addRoot(vertices.get(start));
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < outDegree[current]) {
+                    int neighbor = successors[current][next[current]++];
+                    //If the node has not been visited, goes down into it
+                    if (visitedNodes.isWhite(neighbor)) {
+                        tree.addLeaves(vertices.get(neighbor));
+                        tree.addEdge(vertices.get(current), vertices.get(neighbor));
+                        visitedNodes.set(neighbor, Colors.GREY);
+                        startTime[neighbor] = ++time;
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes.set(current, Colors.BLACK);
+                    tree.setTimes(vertices.get(current), startTime[current], ++time);
+                    top--;
+                }
             }
         }
-        setColorVertextVisitedNodes(current, Colors.BLACK);
         return tree;
     }
 
@@ -549,12 +1067,62 @@ public class DirectedGraphAdjList implements Graph {
      */
     @Override
     public boolean isCyclic() {
-        for (Vertex v : graph.keySet()) {
-            setNotVisitedNodes();
-            if (!checkCicle(v, v).isEmpty())
-                return true;
+        return !findCycle().isEmpty();
+    }
+
+    /**
+     * Returns a cycle of the graph, found by a single depth first visit that stops
+     * at the first edge going back to a vertex on the current path: O(V + E).
+     *
+     * @return the vertices of the cycle in order, the last one has an edge to the first one;
+     * an empty list if the graph is acyclic.
+     */
+    public List<Vertex> findCycle() {
+        VisitMarks visitedNodes = setNotVisitedNodes();
+        int[] next = new int[vertices.bound()];
+        int[] stack = new int[vertices.bound()];
+        for (int root = 0; root < vertices.bound(); root++) {
+            if (!vertices.isUsed(root) || !visitedNodes.isWhite(root))
+                continue;
+            int top = 0;
+            visitedNodes.set(root, Colors.GREY);
+            next[root] = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < outDegree[current]) {
+                    int neighbor = successors[current][next[current]++];
+                    //An edge back to a vertex on the current path closes a cycle
+                    if (visitedNodes.get(neighbor) == Colors.GREY)
+                        return cycle(stack, top, neighbor);
+                    if (visitedNodes.isWhite(neighbor)) {
+                        visitedNodes.set(neighbor, Colors.GREY);
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes.set(current, Colors.BLACK);
+                    top--;
+                }
+            }
         }
-        return false;
+        return new ArrayList<Vertex>();
+    }
+
+    /**
+     * @param stack the path of the visit
+     * @param top   the length of the path
+     * @param start the vertex of the path the last one has an edge to
+     * @return the vertices of the path from start to the last one
+     */
+    private List<Vertex> cycle(int[] stack, int top, int start) {
+        int from = top - 1;
+        while (stack[from] != start)
+            from--;
+        List<Vertex> cycle = new ArrayList<Vertex>(top - from);
+        for (int i = from; i < top; i++)
+            cycle.add(vertices.get(stack[i]));
+        return cycle;
     }
 
     /**
@@ -575,37 +1143,77 @@ public class DirectedGraphAdjList implements Graph {
      */
     @Override
     public Vertex[] topologicalSort() {
-        if (!isDAG())
+        int[] order = new int[getVerticesNumber()];
+        if (kahn(order, new int[getVerticesNumber() + 1]) < 0)
             throw new UnsupportedOperationException("The current graph is not a DAG.");
-        setNotVisitedNodes();
-        LinkedList<Vertex> queue = new LinkedList<Vertex>();
-        Vertex[] topologicalSortVertexs = new Vertex[getVerticesNumber()];
-        int i = 0;
-        //Adds the root to the queue and sets it as gray
-        queue.addAll(getHeadVertices());
-        for (Vertex v : getHeadVertices())
-            setColorVertextVisitedNodes(v, Colors.GREY);
-        //While the queue is not empty
-        while (!queue.isEmpty()) {
-            //Gets the first element from the queue
-            Vertex current = queue.element();
-            //Add the vertices connected to it in the queue if they are white
-            for (Vertex neighbor : graph.get(current)) {
-                //If the node has not been visited, adds it to the queue
-                if (visitedNodes.get(neighbor).equals(Colors.WHITE)) {
-                    queue.add(neighbor);
-                    setColorVertextVisitedNodes(neighbor, Colors.GREY);
+        Vertex[] topologicalSortVertexs = new Vertex[order.length];
+        for (int i = 0; i < order.length; i++)
+            topologicalSortVertexs[i] = vertices.get(order[i]);
+        return topologicalSortVertexs;
+    }
+
+    /**
+     * If the current graph is a DAG, it returns its vertices grouped in levels: a vertex is in the level
+     * after the last level of the vertices with an edge to it, so no two vertices of a level are connected
+     * and each level can be processed once the ones before it are done.
+     * The levels, one after the other, are the order returned by topologicalSort.
+     *
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     *
+     * @return the levels of the graph, starting from the vertices with no edges entering them.
+     */
+    public Vertex[][] topologicalLevels() {
+        int[] order = new int[getVerticesNumber()];
+        int[] levelStart = new int[getVerticesNumber() + 1];
+        int levels = kahn(order, levelStart);
+        if (levels < 0)
+            throw new UnsupportedOperationException("The current graph is not a DAG.");
+        Vertex[][] topologicalLevels = new Vertex[levels][];
+        for (int l = 0; l < levels; l++) {
+            topologicalLevels[l] = new Vertex[levelStart[l + 1] - levelStart[l]];
+            for (int i = levelStart[l]; i < levelStart[l + 1]; i++)
+                topologicalLevels[l][i - levelStart[l]] = vertices.get(order[i]);
+        }
+        return topologicalLevels;
+    }
+
+    /**
+     * Sorts the vertex ids with Kahn's algorithm, in O(V + E): a vertex is taken when all the vertices
+     * with an edge to it have been taken, counting down a copy of the in degrees.
+     * The queue is filled a level at a time, so the ids taken while a level is scanned form the next one.
+     * If some vertices are never taken, they are on a cycle.
+     *
+     * @param order      receives the ids in topological order
+     * @param levelStart receives where each level starts in order, and where the last one ends
+     * @return the number of levels, -1 if the graph has a cycle
+     */
+    private int kahn(int[] order, int[] levelStart) {
+        int bound = vertices.bound();
+        int[] remaining = Arrays.copyOf(inDegree, bound);
+        int tail = 0;
+        for (int i = 0; i < bound; i++)
+            if (vertices.isUsed(i) && remaining[i] == 0)
+                order[tail++] = i;
+
+        int levels = 0;
+        int head = 0;
+        while (head < tail) {
+            levelStart[levels++] = head;
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int current = order[head];
+                for (int k = 0; k < outDegree[current]; k++) {
+                    int neighbor = successors[current][k];
+                    //The in degrees do not count the loops
+                    if (neighbor == current)
+                        return -1;
+                    if (--remaining[neighbor] == 0)
+                        order[tail++] = neighbor;
                 }
             }
-            // delete the first of the queue end set it black
-            queue.remove(0);
-            if (!visitedNodes.get(current).equals(Colors.BLACK)) {
-                topologicalSortVertexs[i] = current;
-                i++;
-                setColorVertextVisitedNodes(current, Colors.BLACK);
-            }
         }
-        return topologicalSortVertexs;
+        levelStart[levels] = tail;
+        return tail < order.length ? -1 : levels;
     }
 
     /**
@@ -622,21 +1230,71 @@ public class DirectedGraphAdjList implements Graph {
             throw new UnsupportedOperationException("The current graph is not directed.");
 
         Collection<Collection<Vertex>> components = new LinkedList<Collection<Vertex>>();
+        for (int[] members : tarjan().members()) {
+            Collection<Vertex> currentComponents = new ArrayList<Vertex>(members.length);
+            for (int id : members)
+                currentComponents.add(vertices.get(id));
+            components.add(currentComponents);
+        }
+        return components;
+    }
+
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm, in O(V + E).
+     * The depth first visit keeps its path in an explicit stack, so it does not
+     * overflow the call stack on long paths.
+     *
+     * @return the component of each vertex id
+     */
+    private Components tarjan() {
+        int bound = vertices.bound();
+        //number[v] is the discovery order of v (0 if not discovered), low[v] the lowest number reachable from v
+        int[] number = new int[bound];
+        int[] low = new int[bound];
+        int[] next = new int[bound];
+        int[] stack = new int[bound];
+        //The vertices discovered whose component is not closed yet
+        int[] open = new int[bound];
+        int[] componentOf = new int[bound];
+        Arrays.fill(componentOf, -1);
+        int counter = 0, openTop = 0, count = 0;
 
-        setNotVisitedNodes();
-
-        for (Vertex current : graph.keySet()) {
-            if (!visitedNodes.get(current).equals(Colors.BLACK)) {
-                Collection<Vertex> currentComponents = new LinkedList<Vertex>();
-                currentComponents.addAll(checkCicle(current, current));
-                if (currentComponents.isEmpty())
-                    currentComponents.add(current);
-                for (Vertex v : currentComponents)
-                    setColorVertextVisitedNodes(v, Colors.BLACK);
-                components.add(currentComponents);
+        for (int root = 0; root < bound; root++) {
+            if (!vertices.isUsed(root) || number[root] != 0)
+                continue;
+            int top = 0;
+            number[root] = low[root] = ++counter;
+            next[root] = 0;
+            stack[top++] = root;
+            open[openTop++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                if (next[current] < outDegree[current]) {
+                    int neighbor = successors[current][next[current]++];
+                    if (number[neighbor] == 0) {
+                        number[neighbor] = low[neighbor] = ++counter;
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                        open[openTop++] = neighbor;
+                    } else if (componentOf[neighbor] < 0)
+                        low[current] = Math.min(low[current], number[neighbor]);
+                } else {
+                    top--;
+                    if (top > 0)
+                        low[stack[top - 1]] = Math.min(low[stack[top - 1]], low[current]);
+                    //current is the first vertex discovered of its component: closes it
+                    if (low[current] == number[current]) {
+                        int v;
+                        do {
+                            v = open[--openTop];
+                            componentOf[v] = count;
+                        } while (v != current);
+                        count++;
+                    }
+                }
             }
         }
-        return components;
+        return new Components(componentOf, count);
     }
 
     /**
@@ -652,27 +1310,30 @@ public class DirectedGraphAdjList implements Graph {
         if (!isDirected)
             throw new UnsupportedOperationException("The current graoh is not directed.");
 
-        Collection<Collection<Vertex>> components = stronglyConnectedComponents();
-        String ren = "";
-        boolean k = false, i = false;
-
-        ren += "{";
-        for (Collection<Vertex> collectionV : components) {
-            if (k)
-                ren += ",";
-            k = true;
-            ren += "{";
-            i = false;
-            for (Vertex v : collectionV) {
-                if (i)
-                    ren += ",";
-                i = true;
-                ren += v.getLabel();
+        StringBuilder ren = new StringBuilder("{");
+        int[][] components = tarjan().members();
+        for (int k = 0; k < components.length; k++) {
+            if (k > 0)
+                ren.append(",");
+            ren.append("{");
+            for (int i = 0; i < components[k].length; i++) {
+                if (i > 0)
+                    ren.append(",");
+                ren.append(vertices.get(components[k][i]).getLabel());
             }
-            ren += "}";
+            ren.append("}");
         }
-        ren += "}";
+        return ren.append("}").toString();
+    }
 
-        return ren;
+    /**
+     * Writes the graph to a file as a CsrGraph snapshot, which CsrGraph.map loads back
+     * without rebuilding it.
+     *
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        new CsrGraph(this).write(file);
     }
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ package upo.graphimpl;
 
 import upo.graph.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -13,115 +15,239 @@ import java.util.*;
  * @author Simone Massaro
  */
 public class DirectedGraphAdjMatr implements Graph {
-    protected final int maxNVertex = 100;
+    //number of vertices the matrix can hold before growing
+    protected int capacity;
 
-    protected Vertex[] graph;
-    protected Colors[] visitedNodes;
-    protected EdgeImpl[] edgees;
+    protected VertexIndex vertices;
+    //Visit state of each thread, so that read-only algorithms can run on the graph at the same time
+    private final ThreadLocal<VisitMarks> visitWorkspace = ThreadLocal.withInitial(() -> new VisitMarks(16));
+    //rows[s] has the bit t set if there is an edge from s to t, columns is its transpose
+    protected long[][] rows;
+    protected long[][] columns;
+    //Number of edges entering (self loops excluded) and leaving each position, kept up to date by setEdge
+    protected int[] inCount;
+    protected int[] outCount;
+    private int edgeCount;
     private final boolean isDirected = true;
 
     /**
      * Initializes the graph
      */
     public DirectedGraphAdjMatr() {
-        graph = new Vertex[maxNVertex];
-        visitedNodes = new Colors[maxNVertex];
-        edgees = new EdgeImpl[maxNVertex];
+        this(16);
+    }
+
+    /**
+     * Initializes the graph with room for the given number of vertices,
+     * so that loading up to capacity vertices allocates the matrix only once.
+     * The matrix grows anyway if more vertices are added.
+     *
+     * @param capacity the expected number of vertices
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public DirectedGraphAdjMatr(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("The capacity cannot be negative.");
+        this.capacity = Math.max(capacity, 1);
+        vertices = new VertexIndex(this.capacity);
+        rows = resize(new long[0][], this.capacity);
+        columns = resize(new long[0][], this.capacity);
+        inCount = new int[this.capacity];
+        outCount = new int[this.capacity];
+    }
+
+    /**
+     * Makes room in the matrix for the positions lower than bound,
+     * at least doubling the capacity when it has to grow.
+     *
+     * @param bound
+     */
+    protected void ensureCapacity(int bound) {
+        if (bound > capacity)
+            grow(Math.max(bound, capacity * 2));
+    }
+
+    /**
+     * Reallocates the structures indexed by position with the new capacity.
+     *
+     * @param newCapacity
+     */
+    protected void grow(int newCapacity) {
+        rows = resize(rows, newCapacity);
+        columns = resize(columns, newCapacity);
+        inCount = Arrays.copyOf(inCount, newCapacity);
+        outCount = Arrays.copyOf(outCount, newCapacity);
+        capacity = newCapacity;
+    }
+
+    /**
+     * @param bits        a square bit matrix
+     * @param newCapacity
+     * @return a newCapacity x newCapacity bit matrix with the same bits set
+     */
+    private static long[][] resize(long[][] bits, int newCapacity) {
+        int words = (newCapacity + 63) >>> 6;
+        long[][] resized = new long[newCapacity][];
+        for (int i = 0; i < newCapacity; i++)
+            resized[i] = i < bits.length ? Arrays.copyOf(bits[i], words) : new long[words];
+        return resized;
     }
 
     /**
      * @return the number of vertices of the graph.
      */
     protected int getVerticesNumber() {
-        return vertexSet().size();
+        return vertices.size();
     }
 
     /**
-     * Return a list of head vertices of the graph.
-     * If there aren't, returns the first vertex inserted in the graph.
+     * Return the id of a head vertex of the graph, the first one with no entering edges.
+     * If there aren't, returns the first vertex inserted in the graph. Stops at the first match.
      *
-     * @return list of head vertices
+     * @return id of the head vertex, -1 if the graph is empty
      */
-    protected LinkedList<Vertex> getHeadVertices() {
-        LinkedList<Vertex> root = new LinkedList<Vertex>();
-        for (Vertex v : vertexSet())
-            if (inDegreeOf(v) == 0 && v != null) {
-                root.add(v);
-            }
-        if (root.isEmpty())
-            for (Vertex v : vertexSet()) {
-                root.add(v);
-                return root;
-            }
-        return root;
-    }
-
-    /**
-     * Find the shortest path from current to find.
-     * Returns null if it does not exist.
-     *
-     * @param current
-     * @param find
-     * @return the list of vertices of the route
-     */
-    private Collection<Vertex> checkCicle(Vertex current, Vertex find) {
-        Collection<Vertex> currentComponents = new LinkedList<Vertex>();
-        Collection<Vertex> neighborComponents = new LinkedList<Vertex>();
-        Collection<Vertex> components = new LinkedList<Vertex>();
-        setColorVertextVisitedNodes(current, Colors.GREY);
-        //Gets the vertices connected to it
-        if (current != null)
-            for (Vertex neighbor : getEdgees(current)) {
-                if (neighbor.equals(find) && (currentComponents.size() < components.size() || components.isEmpty())) {
-                    components.clear();
-                    components.add(neighbor);
-                } else if (visitedNodes[findVertex(neighbor)].equals(Colors.WHITE)) {
-                    neighborComponents = checkCicle(neighbor, find);
-                    if (!neighborComponents.isEmpty() && (neighborComponents.size() < components.size() || components.isEmpty())) {
-                        components.clear();
-                        components.addAll(neighborComponents);
-                        components.add(neighbor);
-                    }
-                }
-            }
-        return components;
+    protected int getHeadVertex() {
+        int first = -1;
+        for (int i = 0; i < vertices.bound(); i++) {
+            if (!vertices.isUsed(i))
+                continue;
+            if (inDegree(i) == 0)
+                return i;
+            if (first < 0)
+                first = i;
+        }
+        return first;
+    }
+
+    /**
+     * Returns the ids of the sources of a visit, in order.
+     *
+     * @param sources
+     * @return the ids
+     * @throws NullPointerException     if any source is <code>null</code>
+     * @throws IllegalArgumentException if sources is empty or any source is not in the graph
+     */
+    protected int[] findSources(Collection<Vertex> sources) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("A visit needs at least one source.");
+        int[] ids = new int[sources.size()];
+        int n = 0;
+        for (Vertex v : sources) {
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+            int id = findVertex(v);
+            if (id < 0)
+                throw new IllegalArgumentException("The source is not contained in the graph.");
+            ids[n++] = id;
+        }
+        return ids;
     }
 
     /**
-     * Initializes the variable visitedNodes to 'not visited'.
+     * Initializes the visit state of the calling thread to 'not visited', in constant time.
+     * Every thread has its own state, so visits running at the same time don't interfere.
+     *
+     * @return the visit state to use in the current call
      */
-    protected void setNotVisitedNodes() {
-        for (int i = 0; i < maxNVertex; i++)
-            visitedNodes[i] = Colors.WHITE;
+    protected VisitMarks setNotVisitedNodes() {
+        VisitMarks visitedNodes = visitWorkspace.get();
+        visitedNodes.ensureCapacity(vertices.bound());
+        visitedNodes.clear();
+        return visitedNodes;
     }
 
     /**
      * Change the value of the vertex v in the variable visitedNodes with color.
      *
+     * @param visitedNodes visit state of the current call
      * @param v
      * @param color
      */
-    protected void setColorVertextVisitedNodes(Vertex v, Colors color) {
-        visitedNodes[findVertex(v)] = color;
+    protected void setColorVertextVisitedNodes(VisitMarks visitedNodes, Vertex v, Colors color) {
+        visitedNodes.set(findVertex(v), color);
     }
 
     /**
      * Returns the position of v in the graph.
-     * if v is null returns 0.
+     * if v is null or does not exist in the graph returns -1.
      *
      * @param v
      * @return the position of v
      */
     protected int findVertex(Vertex v) {
-        // If the vertex is null or does not exist in the graph, returns false
-        if (v == null)
-            return 0;
-        for (int i = 0; i < maxNVertex; i++) {
-            if (graph[i].equals(v)) {
-                return i + 1;
-            }
+        return vertices.indexOf(v);
+    }
+
+    /**
+     * @param s position of the source
+     * @param t position of the target
+     * @return true if the matrix has the edge from s to t
+     */
+    protected boolean hasEdge(int s, int t) {
+        return (rows[s][t >>> 6] & (1L << t)) != 0;
+    }
+
+    /**
+     * Sets or clears the edge from s to t in the matrix.
+     *
+     * @param s     position of the source
+     * @param t     position of the target
+     * @param value true to add the edge, false to remove it
+     */
+    protected void setEdge(int s, int t, boolean value) {
+        if (hasEdge(s, t) == value)
+            return;
+        int delta = value ? 1 : -1;
+        if (value) {
+            rows[s][t >>> 6] |= 1L << t;
+            columns[t][s >>> 6] |= 1L << s;
+        } else {
+            rows[s][t >>> 6] &= ~(1L << t);
+            columns[t][s >>> 6] &= ~(1L << s);
         }
-        return 0;
+        outCount[s] += delta;
+        edgeCount += delta;
+        if (s != t)
+            inCount[t] += delta;
+    }
+
+    /**
+     * Returns the position of the first vertex, starting from position from,
+     * that has an edge coming from s.
+     * if there is not returns -1.
+     *
+     * @param s    position of the source
+     * @param from position to start from
+     * @return the position of the next target of s
+     */
+    protected int nextSuccessor(int s, int from) {
+        return nextSetBit(rows[s], from);
+    }
+
+    /**
+     * @param bits
+     * @param from
+     * @return the position of the first bit set starting from position from, -1 if there is not
+     */
+    private static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length)
+            return -1;
+        long word = bits[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == bits.length)
+                return -1;
+            word = bits[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @param id
+     * @return the number of edges entering the vertex with the given id, self loops excluded
+     */
+    protected int inDegree(int id) {
+        return inCount[id];
     }
 
     /**
@@ -133,19 +259,19 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     protected Collection<Vertex> getEdgees(Vertex v) {
         LinkedList<Vertex> edgeesList = new LinkedList<Vertex>();
-        // If the vertex is null or does not exist in the graph, returns false
-        if (v == null)
+        // If the vertex is null or does not exist in the graph, returns null
+        int id = findVertex(v);
+        if (id < 0)
             return null;
-        for (EdgeImpl e : edgees)
-            if (e != null)
-                if (e.getSource() == v)
-                    edgeesList.add(e.getTarget());
+        for (int t = nextSuccessor(id, 0); t >= 0; t = nextSuccessor(id, t + 1))
+            edgeesList.add(vertices.get(t));
         return edgeesList;
     }
 
     @Override
     public Iterator<Vertex> iterator() {
-        return graph[0].iterator();
+        //Iterator over the vertices, in order of position
+        return vertices.iterator();
     }
 
     /**
@@ -172,18 +298,34 @@ public class DirectedGraphAdjMatr implements Graph {
             throw new NullPointerException("The given parameter is null");
 
         //Vertex exists
-        if (containsVertex(v))
+        if (vertices.add(v) < 0)
             return false;
-        else {
-            //Adds the vertex and initializes an empty list
-            for (int i = 0; i < maxNVertex; i++) {
-                if (graph[i] == null) {
-                    graph[i] = v;
-                    return true;
-                }
-            }
-        }
-        return false;
+
+        //The vertex took the first free position, grows the matrix if it is outside
+        ensureCapacity(vertices.bound());
+        return true;
+    }
+
+    /**
+     * Adds all the given vertices, as addVertex would do one at a time,
+     * growing the matrix only once.
+     *
+     * @param vs the vertices to add
+     * @return the number of vertices added, the ones already in the graph are skipped
+     * @throws NullPointerException if any of the vertices is <code>null</code>,
+     *                              in which case no vertex is added.
+     */
+    public int addVertices(Collection<? extends Vertex> vs) {
+        for (Vertex v : vs)
+            if (v == null)
+                throw new NullPointerException("The given parameter is null");
+
+        int added = 0;
+        for (Vertex v : vs)
+            if (vertices.add(v) >= 0)
+                added++;
+        ensureCapacity(vertices.bound());
+        return added;
     }
 
 
@@ -200,14 +342,7 @@ public class DirectedGraphAdjMatr implements Graph {
     @Override
     public boolean containsVertex(Vertex v) {
         // If the vertex is null or does not exist in the graph, returns false
-        if (v == null)
-            return false;
-        for (int i = 0; i < maxNVertex; i++) {
-            if (graph[i] != null)
-                if (graph[i].equals(v))
-                    return true;
-        }
-        return false;
+        return findVertex(v) >= 0;
     }
 
     /**
@@ -232,33 +367,37 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     @Override
     public boolean removeVertex(Vertex v) {
-        if (v == null || !containsVertex(v))
+        int id = vertices.remove(v);
+        if (id < 0)
             return false;
 
-        graph[findVertex(v)] = null;
-        for (int i = 0; i < maxNVertex; i++)
-            if (edgees[i] != null)
-                if (edgees[i].getSource().equals(v) || edgees[i].getTarget().equals(v))
-                    edgees[i] = null;
+        //Removes the edges leaving and entering the vertex, updating the degrees of the other end
+        for (int t = nextSuccessor(id, 0); t >= 0; t = nextSuccessor(id, t + 1)) {
+            columns[t][id >>> 6] &= ~(1L << id);
+            if (t != id)
+                inCount[t]--;
+        }
+        for (int s = nextSetBit(columns[id], 0); s >= 0; s = nextSetBit(columns[id], s + 1)) {
+            rows[s][id >>> 6] &= ~(1L << id);
+            outCount[s]--;
+        }
+        edgeCount -= outCount[id] + inCount[id];
+        Arrays.fill(rows[id], 0);
+        Arrays.fill(columns[id], 0);
+        inCount[id] = 0;
+        outCount[id] = 0;
         return true;
     }
 
     /**
      * Returns a set of the vertices contained in this graph.
-     *
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes.
      *
      * @return a set view of the vertices contained in this graph.
      */
     @Override
     public Set<Vertex> vertexSet() {
-        Set<Vertex> vertices = new HashSet<Vertex>();
-
-        for (int i = 0; i < maxNVertex; i++) {
-            if (graph[i] != null)
-                vertices.add(graph[i]);
-        }
-
-        return vertices;
+        return vertices.asSet();
     }
 
     /**
@@ -296,21 +435,99 @@ public class DirectedGraphAdjMatr implements Graph {
             throw new NullPointerException("One or more given parameter is null.");
 
         //If the graph doesn't contain both the specified vertex, throws IllegalArgumentException
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        if (s < 0 || t < 0)
             throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
 
-        //Checks if the list doesn't contain the value already, creates an edge, adds it to the edges set and returns it
-        if (!containsEdge(sourceVertex, targetVertex))
-            for (int i = 1; i < maxNVertex; i++)
-                if (edgees[i] == null) {
-                    EdgeImpl e = new EdgeImpl(sourceVertex, targetVertex, DEFAULT_EDGE_WEIGHT, this);
-                    edgees[i] = e;
-                    return e;
-                }
+        //Checks if the matrix doesn't contain the edge already, sets it and returns it
+        if (!hasEdge(s, t)) {
+            setEdge(s, t, true);
+            return new EdgeImpl(sourceVertex, targetVertex, DEFAULT_EDGE_WEIGHT, this);
+        }
 
         return null;
     }
 
+    /**
+     * Adds all the given edges, skipping the ones the graph contains already.
+     * The edges are checked before changing the graph, so a bad edge leaves it as it was.
+     *
+     * @param edges the edges to add
+     * @return the number of edges added
+     * @throws IllegalArgumentException if the source or the target of an edge is not found in the graph,
+     *                                  in which case no edge is added.
+     * @throws NullPointerException     if an edge or any of its vertices is <code>null</code>,
+     *                                  in which case no edge is added.
+     */
+    public int addEdges(Collection<? extends DirectedEdge> edges) {
+        int[] sources = new int[edges.size()];
+        int[] targets = new int[edges.size()];
+        double[] weights = new double[edges.size()];
+        int i = 0;
+        for (DirectedEdge e : edges) {
+            if (e == null || e.getSource() == null || e.getTarget() == null)
+                throw new NullPointerException("One or more given parameter is null.");
+            sources[i] = findVertex(e.getSource());
+            targets[i] = findVertex(e.getTarget());
+            if (sources[i] < 0 || targets[i] < 0)
+                throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+            weights[i++] = e.getEdgeWeight();
+        }
+
+        int added = 0;
+        for (int k = 0; k < sources.length; k++)
+            if (!hasEdge(sources[k], targets[k])) {
+                putEdge(sources[k], targets[k], weights[k]);
+                added++;
+            }
+        return added;
+    }
+
+    /**
+     * Adds the edges from endpoints[sources[k]] to endpoints[targets[k]] for k lower than count,
+     * as addEdges does, looking each endpoint up only once.
+     *
+     * @param endpoints the vertices the edges refer to
+     * @param sources   the positions in endpoints of the sources
+     * @param targets   the positions in endpoints of the targets
+     * @param weights   the weights of the edges, null to give them the default weight
+     * @param count     the number of edges
+     * @return the number of edges added
+     * @throws IllegalArgumentException if an endpoint is not found in the graph, in which case no edge is added.
+     */
+    int addEdges(Vertex[] endpoints, int[] sources, int[] targets, double[] weights, int count) {
+        int[] ids = new int[endpoints.length];
+        for (int i = 0; i < endpoints.length; i++) {
+            ids[i] = findVertex(endpoints[i]);
+            if (ids[i] < 0)
+                throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
+        }
+
+        int added = 0;
+        for (int k = 0; k < count; k++) {
+            int s = ids[sources[k]];
+            int t = ids[targets[k]];
+            if (!hasEdge(s, t)) {
+                putEdge(s, t, weights == null ? DEFAULT_EDGE_WEIGHT : weights[k]);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Sets the edge from s to t, which is not in the matrix, for addEdges.
+     * The weight is ignored by the unweighted graph.
+     *
+     * @param s      position of the source
+     * @param t      position of the target
+     * @param weight weight of the edge
+     */
+    protected void putEdge(int s, int t, double weight) {
+        setEdge(s, t, true);
+    }
+
     /**
      * Returns <tt>true</tt> if and only if this graph contains an edge going from
      * the source vertex to the target vertex. If any of the specified vertices does
@@ -327,35 +544,79 @@ public class DirectedGraphAdjMatr implements Graph {
     @Override
     public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
         //Returns false if any of the specified vertex does not exist in the current graph
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        if (s < 0 || t < 0)
             return false;
 
         //If the graph contains an edge from source to target, returns true. Does not consider edge weight.
-        for (int i = 0; i < maxNVertex; i++)
-            if (edgees[i] != null)
-                if (edgees[i].getTarget() == targetVertex && edgees[i].getSource() == sourceVertex)
-                    return true;
+        return hasEdge(s, t);
+    }
 
-        return false;
+    /**
+     * Returns the edge from s to t, as given by edgeSet.
+     *
+     * @param s position of the source
+     * @param t position of the target
+     * @return a new edge from s to t
+     */
+    protected Edge edgeAt(int s, int t) {
+        return new EdgeImpl(vertices.get(s), vertices.get(t), this);
     }
 
     /**
      * Returns a set of the edges contained in this graph.
-     *
+     * The set is an unmodifiable view backed by the graph, so it follows the later changes:
+     * its size is kept by the graph and the edges are created while iterating.
      *
      * @return a set of the edges contained in this graph.
      */
     @Override
     public Set<Edge> edgeSet() {
-        Set<Edge> edges = new HashSet<Edge>();
+        return new AbstractSet<Edge>() {
+            @Override
+            public Iterator<Edge> iterator() {
+                return new Iterator<Edge>() {
+                    //The next edge goes from s to t
+                    private int s = -1;
+                    private int t = -1;
 
-        for (int i = 0; i < maxNVertex; i++)
-            if (graph[i] != null)
-                for (Vertex v : getEdgees(graph[i]))
-                    if (v != null)
-                        edges.add(new EdgeImpl(graph[i], v, this));
+                    {
+                        advance();
+                    }
+
+                    private void advance() {
+                        t = s < 0 ? -1 : nextSuccessor(s, t + 1);
+                        while (t < 0 && ++s < vertices.bound())
+                            t = nextSuccessor(s, 0);
+                    }
 
-        return edges;
+                    @Override
+                    public boolean hasNext() {
+                        return s < vertices.bound();
+                    }
+
+                    @Override
+                    public Edge next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        Edge e = edgeAt(s, t);
+                        advance();
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return edgeCount;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof DirectedEdge && containsEdge(((DirectedEdge) o).getSource(), ((DirectedEdge) o).getTarget());
+            }
+        };
     }
 
     /**
@@ -401,20 +662,8 @@ public class DirectedGraphAdjMatr implements Graph {
     @Override
     public int inDegreeOf(Vertex vertex) {
         if (isDirected) {
-            int inCount = 0;
-            //Iterates between all vertices
-            for (Vertex i : vertexSet()) {
-                //Doesn't consider itself
-                if (i == vertex)
-                    continue;
-
-                //Increments the counter if the given vertex is present in the Adj list
-                for (Vertex v : getEdgees(i))
-                    if (v == vertex)
-                        inCount++;
-            }
-
-            return inCount;
+            int id = findVertex(vertex);
+            return id < 0 ? 0 : inDegree(id);
         } else {
             throw new UnsupportedOperationException();
         }
@@ -436,9 +685,12 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     @Override
     public int outDegreeOf(Vertex vertex) {
-        if (isDirected)
-            return getEdgees(vertex).size();
-        else
+        if (isDirected) {
+            int id = findVertex(vertex);
+            if (id < 0)
+                throw new IllegalArgumentException("The vertex is not contained in the graph.");
+            return outCount[id];
+        } else
             throw new UnsupportedOperationException();
     }
 
@@ -462,21 +714,41 @@ public class DirectedGraphAdjMatr implements Graph {
     @Override
     public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
         //Returns null if any of the specified vertex does not exist in the current graph
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        if (s < 0 || t < 0)
             return null;
 
         //Finds the edge with sourceVertex and targetVertex and removes it
-        if (containsEdge(sourceVertex, targetVertex))
-            for (int i = 1; i < maxNVertex; i++) {
-                if (edgees[i].getSource().equals(sourceVertex) || edgees[i].getTarget().equals(targetVertex)) {
-                    edgees[i] = null;
-                    return new EdgeImpl(sourceVertex, targetVertex, this);
-                }
-            }
+        if (hasEdge(s, t)) {
+            setEdge(s, t, false);
+            return new EdgeImpl(sourceVertex, targetVertex, this);
+        }
 
         return null;
     }
 
+    /**
+     * Removes all the given edges that the graph contains, as removeEdge would do one at a time.
+     *
+     * @param edges the edges to remove, the ones not in the graph are skipped
+     * @return the number of edges removed
+     */
+    public int removeEdges(Collection<? extends DirectedEdge> edges) {
+        int removed = 0;
+        for (DirectedEdge e : edges) {
+            if (e == null)
+                continue;
+            int s = findVertex(e.getSource());
+            int t = findVertex(e.getTarget());
+            if (s >= 0 && t >= 0 && hasEdge(s, t)) {
+                setEdge(s, t, false);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
     /**
      * Returns the weight assigned to a given edge. Unweighted graphs return 1.0 (as
      * defined by {@link #DEFAULT_EDGE_WEIGHT}), allowing weighted-graph algorithms
@@ -490,16 +762,12 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     @Override
     public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
-        //Returns 0 if any of the specified vertex does not exist in the current graph
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
-            return 0;
+        //Returns 0 if the edge does not exist in the current graph
         if (!containsEdge(sourceVertex, targetVertex))
             return 0;
-        for (EdgeImpl e : edgees)
-            if (e != null)
-                if (e.getSource().equals(sourceVertex) && e.getTarget().equals(targetVertex))
-                    return e.getEdgeWeight();
-        return 0;
+
+        //Unweighted graph
+        return DEFAULT_EDGE_WEIGHT;
     }
 
     /**
@@ -541,70 +809,216 @@ public class DirectedGraphAdjMatr implements Graph {
     @Override
     public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
         //If there's no nodes, returns null
-        if (graph == null)
+        if (getVerticesNumber() == 0)
             return null;
+        return visit(type, Collections.singletonList(vertices.get(getHeadVertex())));
+    }
 
-        GraphSearchResultImpl tree;
-
-        setNotVisitedNodes();
-
-        Vertex root = getHeadVertices().get(0);
-        tree = new GraphSearchResultImpl(type, root, this);
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     * DFS and BFS reach only the vertices reachable from source, DFS_TOT then goes on
+     * from the vertices not discovered yet.
+     *
+     * @param type the search type.
+     * @param source the vertex the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if source is not found in the graph.
+     * @throws NullPointerException if source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return visit(type, Collections.singletonList(source));
+    }
 
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices
+     * at once: for BFS every source is at distance 0 and a vertex is reached from the nearest one,
+     * DFS and DFS_TOT start a tree from each source in order. The source of the result is the first one.
+     *
+     * @param type the search type.
+     * @param sources the vertices the visit starts from.
+     *
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     * (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException if any source is <code>null</code>.
+     *
+     * @return a GraphSearchResult representing the result of the visit performed.
+     *
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        int[] roots = findSources(sources);
+        if (type == SearchType.DIJKSTRA)
+            throw new UnsupportedOperationException("This visit cannot be performed on unweighted graphs");
+        VisitMarks visitedNodes = setNotVisitedNodes();
+        GraphSearchResultImpl tree = new GraphSearchResultImpl(type, vertices.get(roots[0]), this);
         switch (type) {
             case BFS:
-                LinkedList<Vertex> queue = new LinkedList<Vertex>();
-                //Adds the root to the queue and sets it as gray
-                setColorVertextVisitedNodes(root, Colors.GREY);
-                queue.add(root);
-                //Adds the root in the BFS tree
-                tree.addLeaves(root);
-                //While the queue is not empty
-                while (!queue.isEmpty()) {
-                    //Gets the first element from the queue
-                    Vertex current = queue.element();
-                    //Add the vertices connected to it in the queue and in the BFS tree if they are white
-                    for (Vertex neighbor : getEdgees(current)) {
-                        //If the node has not been visited, adds it to the queue
-                        if (visitedNodes[findVertex(neighbor)].equals(Colors.WHITE)) {
-                            queue.add(neighbor);
-                            tree.addLeaves(neighbor);
-                            tree.addEdge(current, neighbor);
-                            setColorVertextVisitedNodes(neighbor, Colors.GREY);
-                        }
-                    }
-                    // delete the first of the queue end set it black
-                    queue.remove(0);
-                    setColorVertextVisitedNodes(current, Colors.BLACK);
-                }
-                return tree;
+                return BFS(visitedNodes, tree, roots);
             case DFS:
-                throw new UnsupportedOperationException();
+                return DFS(visitedNodes, tree, roots, false);
             case DFS_TOT:
-                //Adds the root to the queue and sets it as gray
-                setColorVertextVisitedNodes(root, Colors.GREY);
-                //Adds the root in the BFS tree
-                tree.addLeaves(root);
-                return DFSrecursive(tree, root);
-            case DIJKSTRA:
-                throw new UnsupportedOperationException("This visit cannot be performed on unweighted graphs");
+                return DFS(visitedNodes, tree, roots, true);
             default:
                 return null;
         }
     }
 
-    private GraphSearchResultImpl DFSrecursive(GraphSearchResultImpl tree, Vertex current) {
-        setColorVertextVisitedNodes(current, Colors.GREY);
-        //Add the vertices connected to it in the queue and in the DFS tree if they are white
-        for (Vertex neighbor : getEdgees(current)) {
-            //If the node has not been visited, adds it to the queue
-            if (visitedNodes[findVertex(neighbor)].equals(Colors.WHITE)) {
-                tree.addLeaves(neighbor);
-                tree.addEdge(current, neighbor);
-                tree = DFSrecursive(tree, neighbor);
+    /**
+     * Visits in breadth the vertices reachable from the roots, all of them at distance 0.
+     * Each level is visited top-down, from the rows of the frontier, or bottom-up, intersecting
+     * the column of each vertex not discovered yet with the frontier as a bitset, in the direction
+     * chosen by BfsDirection. Both give a breadth first tree with the same distances, the parent of
+     * a vertex can be any of its predecessors in the previous level.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         receives the visit forest and the distances
+     * @param roots        ids of the first vertices visited
+     * @return the tree
+     */
+    private GraphSearchResultImpl BFS(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] roots) {
+        int bound = vertices.bound();
+        int[] queue = new int[bound];
+        int[] distance = new int[bound];
+        //The frontier as a bitset, filled only for the bottom-up levels
+        long[] frontier = new long[(bound + 63) >>> 6];
+        BfsDirection direction = new BfsDirection(getVerticesNumber());
+        long unexplored = 0;
+        for (int v = 0; v < bound; v++)
+            if (vertices.isUsed(v))
+                unexplored += inDegree(v);
+        int head = 0, tail = 0;
+        //Adds the roots to the queue and sets them as gray
+        for (int root : roots) {
+            if (!visitedNodes.isWhite(root))
+                continue;
+            visitedNodes.set(root, Colors.GREY);
+            queue[tail++] = root;
+            unexplored -= inDegree(root);
+            tree.addRoot(vertices.get(root));
+            tree.setDistance(vertices.get(root), 0);
+        }
+        //Each pass visits the level in queue[head, end)
+        while (head < tail) {
+            int end = tail;
+            long frontierEdges = 0;
+            for (int k = head; k < end; k++)
+                frontierEdges += outCount[queue[k]];
+            if (direction.bottomUp(frontierEdges, unexplored, end - head)) {
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] |= 1L << queue[k];
+                //Every vertex not discovered yet looks for a predecessor in the frontier, a word at a time
+                for (int v = 0; v < bound; v++) {
+                    if (!vertices.isUsed(v) || !visitedNodes.isWhite(v))
+                        continue;
+                    long[] column = columns[v];
+                    for (int w = 0; w < frontier.length; w++) {
+                        long common = column[w] & frontier[w];
+                        if (common != 0) {
+                            discover(visitedNodes, tree, distance, (w << 6) + Long.numberOfTrailingZeros(common), v);
+                            queue[tail++] = v;
+                            unexplored -= inDegree(v);
+                            break;
+                        }
+                    }
+                }
+                for (int k = head; k < end; k++)
+                    frontier[queue[k] >>> 6] = 0;
+            } else {
+                //Add the vertices connected to the frontier in the queue and in the BFS tree if they are white
+                for (int k = head; k < end; k++) {
+                    int current = queue[k];
+                    for (int neighbor = nextSuccessor(current, 0); neighbor >= 0; neighbor = nextSuccessor(current, neighbor + 1)) {
+                        //If the node has not been visited, adds it to the queue
+                        if (visitedNodes.isWhite(neighbor)) {
+                            discover(visitedNodes, tree, distance, current, neighbor);
+                            queue[tail++] = neighbor;
+                            unexplored -= inDegree(neighbor);
+                        }
+                    }
+                }
+            }
+            for (int k = head; k < end; k++)
+                visitedNodes.set(queue[k], Colors.BLACK);
+            head = end;
+        }
+        return tree;
+    }
+
+    /**
+     * Adds to a breadth first tree the vertex child, reached from parent.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         the tree
+     * @param distance     the distance of each id discovered
+     * @param parent       id of the parent
+     * @param child        id of the vertex discovered
+     */
+    private void discover(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] distance, int parent, int child) {
+        distance[child] = distance[parent] + 1;
+        tree.addLeaves(vertices.get(child));
+        tree.addEdge(vertices.get(parent), vertices.get(child));
+        tree.setDistance(vertices.get(child), distance[child]);
+        visitedNodes.set(child, Colors.GREY);
+    }
+
+    /**
+     * Visits in depth from each root in order and, if total, then from each vertex not discovered yet.
+     * The path of the visit is kept in an explicit stack, so its depth is bounded by the heap
+     * and not by the call stack. The tree records the time each vertex is discovered and closed,
+     * on a single clock starting from 1, from which the edges can be classified.
+     *
+     * @param visitedNodes visit state of the current call
+     * @param tree         receives the visit forest and the times
+     * @param roots        ids of the first vertices visited
+     * @param total        whether to visit the whole graph
+     * @return the tree
+     */
+    private GraphSearchResultImpl DFS(VisitMarks visitedNodes, GraphSearchResultImpl tree, int[] roots, boolean total) {
+        int bound = vertices.bound();
+        //next[v] is the position to look for the next successor of v from
+        int[] next = new int[bound];
+        int[] startTime = new int[bound];
+        int[] stack = new int[bound];
+        int time = 0;
+        //Negative k start the trees from the roots, the next ones start from the ids in order
+        for (int k = -roots.length; k < (total ? bound : 0); k++) {
+            int start = k < 0 ? roots[roots.length + k] : k;
+            if (!vertices.isUsed(start) || !visitedNodes.isWhite(start))
+                continue;
+            int top = 0;
+            visitedNodes.set(start, Colors.GREY);
+            startTime[start] = ++time;
+            next[start] = 0;
+            stack[top++] = start;
+            tree.addRoot(vertices.get(start));
+            while (top > 0) {
+                int current = stack[top - 1];
+                int neighbor = nextSuccessor(current, next[current]);
+                if (neighbor >= 0) {
+                    next[current] = neighbor + 1;
+                    //If the node has not been visited, goes down into it
+                    if (visitedNodes.isWhite(neighbor)) {
+                        tree.addLeaves(vertices.get(neighbor));
+                        tree.addEdge(vertices.get(current), vertices.get(neighbor));
+                        visitedNodes.set(neighbor, Colors.GREY);
+                        startTime[neighbor] = ++time;
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes.set(current, Colors.BLACK);
+                    tree.setTimes(vertices.get(current), startTime[current], ++time);
+                    top--;
+                }
             }
         }
-        setColorVertextVisitedNodes(current, Colors.BLACK);
         return tree;
     }
 
@@ -614,12 +1028,64 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     @Override
     public boolean isCyclic() {
-        for (int i = 0; i < maxNVertex; i++) {
-            setNotVisitedNodes();
-            if (!(checkCicle(graph[i], graph[i]).isEmpty()))
-                return true;
+        return !findCycle().isEmpty();
+    }
+
+    /**
+     * Returns a cycle of the graph, found by a single depth first visit that stops
+     * at the first edge going back to a vertex on the current path.
+     *
+     * @return the vertices of the cycle in order, the last one has an edge to the first one;
+     * an empty list if the graph is acyclic.
+     */
+    public List<Vertex> findCycle() {
+        VisitMarks visitedNodes = setNotVisitedNodes();
+        //next[i] is the position to look for the next successor of i from
+        int[] next = new int[vertices.bound()];
+        int[] stack = new int[vertices.bound()];
+        for (int root = 0; root < vertices.bound(); root++) {
+            if (!vertices.isUsed(root) || !visitedNodes.isWhite(root))
+                continue;
+            int top = 0;
+            visitedNodes.set(root, Colors.GREY);
+            next[root] = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                int neighbor = nextSuccessor(current, next[current]);
+                if (neighbor >= 0) {
+                    next[current] = neighbor + 1;
+                    //An edge back to a vertex on the current path closes a cycle
+                    if (visitedNodes.get(neighbor) == Colors.GREY)
+                        return cycle(stack, top, neighbor);
+                    if (visitedNodes.isWhite(neighbor)) {
+                        visitedNodes.set(neighbor, Colors.GREY);
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                    }
+                } else {
+                    visitedNodes.set(current, Colors.BLACK);
+                    top--;
+                }
+            }
         }
-        return false;
+        return new ArrayList<Vertex>();
+    }
+
+    /**
+     * @param stack the path of the visit
+     * @param top   the length of the path
+     * @param start the vertex of the path the last one has an edge to
+     * @return the vertices of the path from start to the last one
+     */
+    private List<Vertex> cycle(int[] stack, int top, int start) {
+        int from = top - 1;
+        while (stack[from] != start)
+            from--;
+        List<Vertex> cycle = new ArrayList<Vertex>(top - from);
+        for (int i = from; i < top; i++)
+            cycle.add(vertices.get(stack[i]));
+        return cycle;
     }
 
     /**
@@ -640,37 +1106,76 @@ public class DirectedGraphAdjMatr implements Graph {
      */
     @Override
     public Vertex[] topologicalSort() {
-        if (!isDAG())
+        int[] order = new int[getVerticesNumber()];
+        if (kahn(order, new int[getVerticesNumber() + 1]) < 0)
             throw new UnsupportedOperationException("The current graph is not a DAG.");
-        setNotVisitedNodes();
-        LinkedList<Vertex> queue = new LinkedList<>();
-        Vertex[] topologicalSortVertexs = new Vertex[getVerticesNumber()];
-        int i = 0;
-        //Adds the root to the queue and sets it as gray
-        queue.addAll(getHeadVertices());
-        for (Vertex v : getHeadVertices())
-            setColorVertextVisitedNodes(v, Colors.GREY);
-        //While the queue is not empty
-        while (!queue.isEmpty()) {
-            //Gets the first element from the queue
-            Vertex current = queue.element();
-            //Add the vertices connected to it in the queue if they are white
-            for (Vertex neighbor : getEdgees(current)) {
-                //If the node has not been visited, adds it to the queue
-                if (visitedNodes[findVertex(neighbor)].equals(Colors.WHITE)) {
-                    queue.add(neighbor);
-                    setColorVertextVisitedNodes(neighbor, Colors.GREY);
+        Vertex[] topologicalSortVertexs = new Vertex[order.length];
+        for (int i = 0; i < order.length; i++)
+            topologicalSortVertexs[i] = vertices.get(order[i]);
+        return topologicalSortVertexs;
+    }
+
+    /**
+     * If the current graph is a DAG, it returns its vertices grouped in levels: a vertex is in the level
+     * after the last level of the vertices with an edge to it, so no two vertices of a level are connected
+     * and each level can be processed once the ones before it are done.
+     * The levels, one after the other, are the order returned by topologicalSort.
+     *
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     *
+     * @return the levels of the graph, starting from the vertices with no edges entering them.
+     */
+    public Vertex[][] topologicalLevels() {
+        int[] order = new int[getVerticesNumber()];
+        int[] levelStart = new int[getVerticesNumber() + 1];
+        int levels = kahn(order, levelStart);
+        if (levels < 0)
+            throw new UnsupportedOperationException("The current graph is not a DAG.");
+        Vertex[][] topologicalLevels = new Vertex[levels][];
+        for (int l = 0; l < levels; l++) {
+            topologicalLevels[l] = new Vertex[levelStart[l + 1] - levelStart[l]];
+            for (int i = levelStart[l]; i < levelStart[l + 1]; i++)
+                topologicalLevels[l][i - levelStart[l]] = vertices.get(order[i]);
+        }
+        return topologicalLevels;
+    }
+
+    /**
+     * Sorts the vertex ids with Kahn's algorithm, in O(V + E): a vertex is taken when all the vertices
+     * with an edge to it have been taken, counting down a copy of the in degrees.
+     * The queue is filled a level at a time, so the ids taken while a level is scanned form the next one.
+     * If some vertices are never taken, they are on a cycle.
+     *
+     * @param order      receives the ids in topological order
+     * @param levelStart receives where each level starts in order, and where the last one ends
+     * @return the number of levels, -1 if the graph has a cycle
+     */
+    private int kahn(int[] order, int[] levelStart) {
+        int bound = vertices.bound();
+        int[] remaining = Arrays.copyOf(inCount, bound);
+        int tail = 0;
+        for (int i = 0; i < bound; i++)
+            if (vertices.isUsed(i) && remaining[i] == 0)
+                order[tail++] = i;
+
+        int levels = 0;
+        int head = 0;
+        while (head < tail) {
+            levelStart[levels++] = head;
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int current = order[head];
+                for (int neighbor = nextSuccessor(current, 0); neighbor >= 0; neighbor = nextSuccessor(current, neighbor + 1)) {
+                    //The in degrees do not count the loops
+                    if (neighbor == current)
+                        return -1;
+                    if (--remaining[neighbor] == 0)
+                        order[tail++] = neighbor;
                 }
             }
-            // delete the first of the queue end set it black
-            queue.remove(0);
-            if (!visitedNodes[findVertex(current)].equals(Colors.BLACK)) {
-                topologicalSortVertexs[i] = current;
-                i++;
-                setColorVertextVisitedNodes(current, Colors.BLACK);
-            }
         }
-        return topologicalSortVertexs;
+        levelStart[levels] = tail;
+        return tail < order.length ? -1 : levels;
     }
 
     /**
@@ -687,21 +1192,72 @@ public class DirectedGraphAdjMatr implements Graph {
             throw new UnsupportedOperationException("The current graph is not directed.");
 
         Collection<Collection<Vertex>> components = new LinkedList<Collection<Vertex>>();
+        for (int[] members : tarjan().members()) {
+            Collection<Vertex> currentComponents = new ArrayList<Vertex>(members.length);
+            for (int id : members)
+                currentComponents.add(vertices.get(id));
+            components.add(currentComponents);
+        }
+        return components;
+    }
+
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm, in O(V + E).
+     * The depth first visit keeps its path in an explicit stack, so it does not
+     * overflow the call stack on long paths.
+     *
+     * @return the component of each vertex id
+     */
+    private Components tarjan() {
+        int bound = vertices.bound();
+        //number[v] is the discovery order of v (0 if not discovered), low[v] the lowest number reachable from v
+        int[] number = new int[bound];
+        int[] low = new int[bound];
+        int[] next = new int[bound];
+        int[] stack = new int[bound];
+        //The vertices discovered whose component is not closed yet
+        int[] open = new int[bound];
+        int[] componentOf = new int[bound];
+        Arrays.fill(componentOf, -1);
+        int counter = 0, openTop = 0, count = 0;
 
-        setNotVisitedNodes();
-
-        for (Vertex current : vertexSet()) {
-            if (!visitedNodes[findVertex(current)].equals(Colors.BLACK)) {
-                Collection<Vertex> currentComponents = new LinkedList<Vertex>();
-                currentComponents.addAll(checkCicle(current, current));
-                if (currentComponents.isEmpty())
-                    currentComponents.add(current);
-                for (Vertex v : currentComponents)
-                    setColorVertextVisitedNodes(v, Colors.BLACK);
-                components.add(currentComponents);
+        for (int root = 0; root < bound; root++) {
+            if (!vertices.isUsed(root) || number[root] != 0)
+                continue;
+            int top = 0;
+            number[root] = low[root] = ++counter;
+            next[root] = 0;
+            stack[top++] = root;
+            open[openTop++] = root;
+            while (top > 0) {
+                int current = stack[top - 1];
+                int neighbor = nextSuccessor(current, next[current]);
+                if (neighbor >= 0) {
+                    next[current] = neighbor + 1;
+                    if (number[neighbor] == 0) {
+                        number[neighbor] = low[neighbor] = ++counter;
+                        next[neighbor] = 0;
+                        stack[top++] = neighbor;
+                        open[openTop++] = neighbor;
+                    } else if (componentOf[neighbor] < 0)
+                        low[current] = Math.min(low[current], number[neighbor]);
+                } else {
+                    top--;
+                    if (top > 0)
+                        low[stack[top - 1]] = Math.min(low[stack[top - 1]], low[current]);
+                    //current is the first vertex discovered of its component: closes it
+                    if (low[current] == number[current]) {
+                        int v;
+                        do {
+                            v = open[--openTop];
+                            componentOf[v] = count;
+                        } while (v != current);
+                        count++;
+                    }
+                }
             }
         }
-        return components;
+        return new Components(componentOf, count);
     }
 
     /**
@@ -717,28 +1273,30 @@ public class DirectedGraphAdjMatr implements Graph {
         if (!isDirected)
             throw new UnsupportedOperationException("The current graoh is not directed.");
 
-        Collection<Collection<Vertex>> components = stronglyConnectedComponents();
-        String ren = "";
-        boolean k = false, i = false;
-
-        ren += "{";
-        for (Collection<Vertex> collectionV : components) {
-            if (k)
-                ren += ",";
-            k = true;
-            ren += "{";
-            i = false;
-            for (Vertex v : collectionV)
-                if (v != null) {
-                    if (i)
-                        ren += ",";
-                    i = true;
-                    ren += v.getLabel();
-                }
-            ren += "}";
+        StringBuilder ren = new StringBuilder("{");
+        int[][] components = tarjan().members();
+        for (int k = 0; k < components.length; k++) {
+            if (k > 0)
+                ren.append(",");
+            ren.append("{");
+            for (int i = 0; i < components[k].length; i++) {
+                if (i > 0)
+                    ren.append(",");
+                ren.append(vertices.get(components[k][i]).getLabel());
+            }
+            ren.append("}");
         }
-        ren += "}";
+        return ren.append("}").toString();
+    }
 
-        return ren;
+    /**
+     * Writes the graph to a file as a CsrGraph snapshot, which CsrGraph.map loads back
+     * without rebuilding it. If the graph is weighted the weights are written too.
+     *
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        new CsrGraph(this).write(file);
     }
 }
\ No newline at end of file
@@ -2,7 +2,10 @@ package upo.graphimpl;
 
 import upo.graph.*;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 /**
  * Implements weighted Graph that extends an iterable through Matrices
@@ -10,6 +13,113 @@ import java.util.LinkedList;
  * @author Simone Massaro
  */
 public class DirectedWeightedGraphAdjMatr extends DirectedGraphAdjMatr implements Graph {
+    //Cell (s, t) is the weight of the edge from s to t, +infinity if the edge doesn't exist.
+    //The matrix lives outside of the heap, so a large graph doesn't weigh on the garbage collector
+    protected WeightMatrix weights;
+
+    /**
+     * Initializes the graph
+     */
+    public DirectedWeightedGraphAdjMatr() {
+        this(16);
+    }
+
+    /**
+     * Initializes the graph with room for the given number of vertices.
+     *
+     * @param capacity the expected number of vertices
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public DirectedWeightedGraphAdjMatr(int capacity) {
+        super(capacity);
+        weights = new WeightMatrix(this.capacity, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Reallocates the structures indexed by position, weights included, with the new capacity.
+     *
+     * @param newCapacity
+     */
+    @Override
+    protected void grow(int newCapacity) {
+        super.grow(newCapacity);
+        weights = weights.resize(newCapacity, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Sets or clears the edge from s to t, clearing an edge also drops its weight.
+     *
+     * @param s
+     * @param t
+     * @param value
+     */
+    @Override
+    protected void setEdge(int s, int t, boolean value) {
+        super.setEdge(s, t, value);
+        if (!value)
+            weights.set(s, t, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Sets the edge from s to t, which is not in the matrix, with its weight.
+     *
+     * @param s
+     * @param t
+     * @param weight
+     */
+    @Override
+    protected void putEdge(int s, int t, double weight) {
+        super.putEdge(s, t, weight);
+        weights.set(s, t, weight);
+    }
+
+    /**
+     * Removes the specified vertex from this graph including all its touching edges
+     * if present.
+     *
+     * @param v vertex to be removed from this graph, if present.
+     * @return <code>true</code> if the graph contained the specified vertex;
+     * <code>false</code> otherwise.
+     */
+    @Override
+    public boolean removeVertex(Vertex v) {
+        int id = findVertex(v);
+        if (!super.removeVertex(v))
+            return false;
+        //Drops the weights of the edges leaving and entering the vertex
+        weights.fillCross(id, Double.POSITIVE_INFINITY);
+        return true;
+    }
+
+    /**
+     * Returns the edge from s to t, with its weight, as given by edgeSet.
+     *
+     * @param s position of the source
+     * @param t position of the target
+     * @return a new edge from s to t
+     */
+    @Override
+    protected Edge edgeAt(int s, int t) {
+        return new EdgeImpl(vertices.get(s), vertices.get(t), weights.get(s, t), this);
+    }
+
+    /**
+     * Creates a new edge in this graph, going from the source vertex to the target
+     * vertex, with the default weight.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The newly created edge if added to the graph, otherwise <code>
+     * null</code>.
+     * @throws IllegalArgumentException if source or target vertices are not found in the graph.
+     * @throws NullPointerException     if any of the specified vertices is <code>
+     *                                  null</code>.
+     */
+    @Override
+    public Edge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return addEdge(sourceVertex, targetVertex, DEFAULT_EDGE_WEIGHT);
+    }
+
     /**
      * Creates a new edge in this graph, going from the source vertex to the target
      * vertex, and returns the created edge. Some graphs do not allow
@@ -37,17 +147,17 @@ public class DirectedWeightedGraphAdjMatr extends DirectedGraphAdjMatr implement
             throw new NullPointerException("One or more given parameter is null.");
 
         //If the graph doesn't contain both the specified vertex, throws IllegalArgumentException
-        if (!containsVertex(sourceVertex) || !containsVertex(targetVertex))
+        int s = findVertex(sourceVertex);
+        int t = findVertex(targetVertex);
+        if (s < 0 || t < 0)
             throw new IllegalArgumentException("One or both vertices are not contained in the graph.");
 
-        //Checks if the list doesn't contain the value already, creates an edge, adds it to the edges set and returns it
-        if (!containsEdge(sourceVertex, targetVertex))
-            for (int i = 1; i < maxNVertex; i++)
-                if (edgees[i] == null) {
-                    EdgeImpl e = new EdgeImpl(sourceVertex, targetVertex, weight, this);
-                    edgees[i] = e;
-                    return e;
-                }
+        //Checks if the matrix doesn't contain the edge already, sets it with its weight and returns it
+        if (!hasEdge(s, t)) {
+            setEdge(s, t, true);
+            weights.set(s, t, weight);
+            return new EdgeImpl(sourceVertex, targetVertex, weight, this);
+        }
 
         return null;
     }
@@ -63,88 +173,79 @@ public class DirectedWeightedGraphAdjMatr extends DirectedGraphAdjMatr implement
     @Override
     public void setEdgeWeight(Vertex sourceVertex, Vertex targetVertex, double weight) {
         if (containsEdge(sourceVertex, targetVertex))
-            for (int i = 0; i < maxNVertex; i++)
-                if (edgees[i] != null)
-                    if (edgees[i].getSource().equals(sourceVertex) && edgees[i].getTarget().equals(targetVertex))
-                        edgees[i].setEdgeWeight(weight);
+            weights.set(findVertex(sourceVertex), findVertex(targetVertex), weight);
     }
 
-    private int findEdge(Vertex sourceVertex, Vertex targetVertex) {
-        for (int i = 0; i < edgees.length; i++) {
-            if (edgees[i] != null)
-                if (edgees[i].getSource() == sourceVertex && edgees[i].getTarget() == targetVertex)
-                    return i;
-        }
-        throw new UnsupportedOperationException("");
+    /**
+     * Returns the weight assigned to a given edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return edge weight, or 0 if the edge does not exist
+     */
+    @Override
+    public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
+        if (!containsEdge(sourceVertex, targetVertex))
+            return 0;
+        return weights.get(findVertex(sourceVertex), findVertex(targetVertex));
     }
 
     /**
-     * Performs a visit (of type <code>type</code>) over the current graph.
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices
+     * at once: every source is at distance 0 and a vertex is reached from the nearest one.
+     * Only DIJKSTRA is supported, with a priority queue of the vertices to close.
      *
-     * @param type the search type.
-     * @return a GraphSearchtreeult reptreeenting the treeult of the visit performed.
+     * @param type    the search type.
+     * @param sources the vertices the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
      * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
      *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException          if any source is <code>null</code>.
      */
     @Override
-    public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
-        //If there's no nodes, returns null
-        if (graph == null)
-            return null;
-
-        GraphSearchResultImpl tree;
-
-        setNotVisitedNodes();
-
-        Vertex root = getHeadVertices().get(0);
-        tree = new GraphSearchResultImpl(type, root, this);
-
-        switch (type) {
-            case BFS:
-            case DFS:
-            case DFS_TOT:
-                throw new UnsupportedOperationException("This visit cannot be performed on unweighted graphs");
-            case DIJKSTRA:
-                LinkedList<Vertex> queue = new LinkedList<Vertex>();
-                //Adds the root to the queue and sets it as gray
-                setColorVertextVisitedNodes(root, Colors.GREY);
-                queue.add(root);
-                //Adds the root in the BFS tree
-                tree.addLeaves(root);
-                //While the queue is not empty
-                while (!queue.isEmpty()) {
-                    //Gets the first element from the queue
-                    Vertex current = queue.element();
-                    //Add the vertices connected to it in the queue and in the BFS tree if they are white
-                    for (Vertex neighbor : getEdgees(current)) {
-                        //If the node has not been visited, adds it to the queue
-                        if (visitedNodes[findVertex(neighbor)].equals(Colors.WHITE)) {
-                            queue.add(neighbor);
-                            tree.addLeaves(neighbor);
-                            if (containsEdge(current, neighbor))
-                                tree.addEdge(current, neighbor, edgees[findEdge(current, neighbor)].getEdgeWeight());
-                            else
-                                tree.addEdge(current, neighbor);
-                            setColorVertextVisitedNodes(neighbor, Colors.GREY);
-                        } else if (visitedNodes[findVertex(neighbor)].equals(Colors.GREY)) {
-                            if (tree.getDistance(neighbor) > tree.getDistance(current) + getEdgeWeight(current, neighbor)) {
-                                tree.removeLeaves(neighbor);
-                                tree.addLeaves(neighbor);
-                                if (containsEdge(current, neighbor))
-                                    tree.addEdge(current, neighbor, edgees[findEdge(current, neighbor)].getEdgeWeight());
-                                else
-                                    tree.addEdge(current, neighbor);
-                            }
-                        }
-                    }
-                    // delete the first of the queue end set it black
-                    queue.remove(0);
-                    setColorVertextVisitedNodes(current, Colors.BLACK);
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        int[] roots = findSources(sources);
+        if (type != SearchType.DIJKSTRA)
+            throw new UnsupportedOperationException("This visit cannot be performed on weighted graphs");
+
+        VisitMarks visitedNodes = setNotVisitedNodes();
+        GraphSearchResultImpl tree = new GraphSearchResultImpl(type, vertices.get(roots[0]), this);
+        int bound = vertices.bound();
+        double[] distance = new double[bound];
+        int[] parent = new int[bound];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> queue = new PriorityQueue<double[]>(Comparator.comparingDouble(e -> e[0]));
+        //Every source starts at distance 0
+        for (int root : roots) {
+            distance[root] = 0;
+            parent[root] = -1;
+            queue.add(new double[]{0, root});
+        }
+        while (!queue.isEmpty()) {
+            int current = (int) queue.poll()[1];
+            //Skips the stale entries of vertices already closed
+            if (visitedNodes.get(current) == Colors.BLACK)
+                continue;
+            visitedNodes.set(current, Colors.BLACK);
+            if (parent[current] < 0) {
+                tree.addRoot(vertices.get(current));
+            } else {
+                tree.addLeaves(vertices.get(current));
+                tree.addEdge(vertices.get(parent[current]), vertices.get(current), weights.get(parent[current], current));
+            }
+            tree.setDistance(vertices.get(current), distance[current]);
+            for (int neighbor = nextSuccessor(current, 0); neighbor >= 0; neighbor = nextSuccessor(current, neighbor + 1)) {
+                double weight = weights.get(current, neighbor);
+                if (visitedNodes.get(neighbor) != Colors.BLACK && distance[current] + weight < distance[neighbor]) {
+                    distance[neighbor] = distance[current] + weight;
+                    parent[neighbor] = current;
+                    visitedNodes.set(neighbor, Colors.GREY);
+                    queue.add(new double[]{distance[neighbor], neighbor});
                 }
-                return tree;
-            default:
-                return null;
+            }
         }
+        return tree;
     }
 
     /**
@@ -154,29 +255,27 @@ public class DirectedWeightedGraphAdjMatr extends DirectedGraphAdjMatr implement
      * @return the shortest paths between all the pairs of vertices
      */
     public double[][] allToAllShortestPaths() {
-        double[][] distance = new double[maxNVertex][maxNVertex];
-
-        for (int i = 0; i < getVerticesNumber(); i++)
-            for (int j = 0; j < getVerticesNumber(); j++)
-                distance[i][j] = Double.POSITIVE_INFINITY;
-
-        for (int i = 0; i < getVerticesNumber(); i++)
+        int n = vertices.bound();
+        //The weight matrix already has +infinity where there's no edge, so its rows copied in bulk are the starting distances
+        double[][] distance = weights.toArray(n);
+        for (int i = 0; i < n; i++)
             distance[i][i] = 0;
 
-        for (int i = 0; i < edgees.length; i++)
-            if (edgees[i] != null) {
-                Vertex vs = edgees[i].getSource();
-                Vertex vt = edgees[i].getTarget();
-                int s = findVertex(vs);
-                int t = findVertex(vt);
-                distance[s - 1][t - 1] = edgees[i].getEdgeWeight();
+        //Relaxes the array in place, the only n x n copy made
+        for (int k = 0; k < n; k++) {
+            double[] rowK = distance[k];
+            for (int i = 0; i < n; i++) {
+                double[] rowI = distance[i];
+                double ik = rowI[k];
+                if (ik == Double.POSITIVE_INFINITY)
+                    continue;
+                for (int j = 0; j < n; j++) {
+                    double through = ik + rowK[j];
+                    if (rowI[j] > through)
+                        rowI[j] = through;
+                }
             }
-
-        for (int k = 0; k < getVerticesNumber(); k++)
-            for (int i = 0; i < getVerticesNumber(); i++)
-                for (int j = 0; j < getVerticesNumber(); j++)
-                    if (distance[i][j] > distance[i][k] + distance[k][j])
-                        distance[i][j] = distance[i][k] + distance[k][j];
+        }
         return distance;
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package upo.graphimpl;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A double array split in segments, each one a buffer over an array in the heap or over a part of a mapped file.
+ */
+final class DoubleArray extends SegmentedArray<DoubleBuffer> {
+
+    private DoubleArray(DoubleBuffer[] segments, int shift, int length) {
+        super(segments, shift, length);
+    }
+
+    /**
+     * Returns a view of the first length elements of an array, without copying it
+     *
+     * @param array
+     * @param length
+     * @return the view
+     */
+    static DoubleArray wrap(double[] array, int length) {
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount(length, SEGMENT_SHIFT)];
+        for (int k = 0; k < segments.length; k++)
+            segments[k] = DoubleBuffer.wrap(array, k << SEGMENT_SHIFT, segmentLength(length, SEGMENT_SHIFT, k)).slice();
+        return new DoubleArray(segments, SEGMENT_SHIFT, length);
+    }
+
+    /**
+     * Maps length big endian doubles of a file, starting from the byte start, in segments of 2^shift doubles.
+     * The mapping stays valid after the channel is closed.
+     *
+     * @param channel
+     * @param mode
+     * @param start
+     * @param length
+     * @param shift
+     * @return the mapped array
+     * @throws IOException if the file cannot be mapped
+     */
+    static DoubleArray map(FileChannel channel, FileChannel.MapMode mode, long start, int length, int shift) throws IOException {
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount(length, shift)];
+        for (int k = 0; k < segments.length; k++) {
+            long from = (long) k << shift;
+            segments[k] = channel.map(mode, start + 8 * from, 8L * segmentLength(length, shift, k)).asDoubleBuffer();
+        }
+        return new DoubleArray(segments, shift, length);
+    }
+
+    /**
+     * @param i
+     * @return the element in position i
+     */
+    double get(int i) {
+        return segments[i >>> shift].get(i & mask);
+    }
+
+    @Override
+    protected void transfer(DoubleBuffer source, int from, DoubleBuffer target, int to, int count) {
+        target.put(to, source, from, count);
+    }
+}
\ No newline at end of file
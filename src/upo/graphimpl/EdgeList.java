@@ -0,0 +1,601 @@
+package upo.graphimpl;
+
+import upo.graph.Graph;
+import upo.graph.Vertex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The edges of a graph read from an edge list file, to be loaded into a DirectedGraphAdjList,
+ * a DirectedWeightedGraphAdjMatr or a CsrGraph.
+ *
+ * <p>
+ * The file is memory mapped a window at a time and parsed from its bytes: the vertices are numbered
+ * by a LabelTable that looks the labels up by their bytes, and the edges are kept as arrays of numbers,
+ * so reading a line allocates nothing. A String and a Vertex are built only once per vertex,
+ * when the edges are loaded into a graph.
+ * </p>
+ *
+ * <p>
+ * A text file has an edge per line: the label of the source, the label of the target and optionally
+ * the weight, separated by spaces or tabs. Further columns are ignored, as are the empty lines
+ * and the lines starting with '#' or '%'. The edges without a weight take the default weight.
+ * A binary file is a sequence of records, each made of the source and the target as big endian ints
+ * and, if the file is weighted, the weight as a big endian double; the labels of the vertices are their numbers.
+ * </p>
+ *
+ * <p>
+ * A text file can also be read in parallel: it is split into chunks that start and end on a line boundary,
+ * each chunk is parsed by a task of a ForkJoinPool into its own arrays and LabelTable, then the chunks
+ * are merged in file order, so the vertices get the same ids as with a sequential read.
+ * </p>
+ */
+public class EdgeList {
+    //Size of the parts of the file mapped at a time, a line must fit in one
+    private static final int WINDOW = 1 << 28;
+    //The powers of ten that a double holds exactly
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final LabelTable labels = new LabelTable();
+    private int[] sources = new int[1024];
+    private int[] targets = new int[1024];
+    //null while no edge has a weight
+    private double[] weights;
+    private int count;
+    //The number of lines read, used while merging the chunks of a file
+    private long lines;
+    //Holds the bytes of the token being read
+    private byte[] scratch = new byte[64];
+    private int cursor;
+
+    private EdgeList() {
+    }
+
+    /**
+     * Initializes an empty list with room for the given number of edges
+     *
+     * @param capacity
+     */
+    private EdgeList(int capacity) {
+        sources = new int[Math.max(capacity, 1)];
+        targets = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Reads a text edge list
+     *
+     * @param file
+     * @return the edges in the file
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    public static EdgeList readText(Path file) throws IOException {
+        EdgeList list = new EdgeList();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            long line = 0;
+            while (offset < size) {
+                int length = (int) Math.min(WINDOW, size - offset);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+
+                //Parses up to the last complete line, the rest is mapped again with the next window
+                int end = length;
+                if (offset + length < size) {
+                    end = lastLineEnd(buffer, length);
+                    if (end == 0)
+                        throw new IOException("Line " + (line + 1) + " is longer than " + WINDOW + " bytes");
+                }
+                line = list.parseText(buffer, end, line);
+                offset += end;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Reads a text edge list in parallel, splitting it into chunks of about chunkSize bytes.
+     *
+     * @param file
+     * @param pool      the pool running the tasks that parse the chunks
+     * @param chunkSize the number of bytes after which a chunk ends at the next line boundary
+     * @return the edges in the file
+     * @throws IOException              if the file cannot be read or a line is malformed
+     * @throws IllegalArgumentException if chunkSize is not positive or is larger than a mapped window
+     */
+    public static EdgeList readText(Path file, ForkJoinPool pool, int chunkSize) throws IOException {
+        if (chunkSize <= 0 || chunkSize > WINDOW)
+            throw new IllegalArgumentException("The chunk size must be between 1 and " + WINDOW + ".");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            //Each chunk starts at the first line boundary after a multiple of chunkSize
+            List<Long> starts = new ArrayList<>();
+            for (long start = 0; start < size; ) {
+                starts.add(start);
+                long end = lineStart(channel, start + chunkSize, size);
+                if (end - start > Integer.MAX_VALUE)
+                    throw new IOException("A line is longer than " + Integer.MAX_VALUE + " bytes");
+                start = end;
+            }
+            starts.add(size);
+
+            List<Callable<EdgeList>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < starts.size(); i++) {
+                long start = starts.get(i);
+                int length = (int) (starts.get(i + 1) - start);
+                tasks.add(() -> {
+                    EdgeList chunk = new EdgeList();
+                    chunk.lines = chunk.parseText(channel.map(FileChannel.MapMode.READ_ONLY, start, length), length, 0);
+                    return chunk;
+                });
+            }
+
+            List<EdgeList> chunks = new ArrayList<>();
+            long line = 0;
+            List<Future<EdgeList>> results = pool.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    chunks.add(results.get(i).get());
+                    line += chunks.get(i).lines;
+                } catch (ExecutionException e) {
+                    //The pool may wrap the exception of the task more than once
+                    Throwable cause = e.getCause();
+                    while (cause != null && !(cause instanceof IOException))
+                        cause = cause.getCause();
+                    if (cause == null)
+                        throw new IOException(e.getCause());
+                    //Parses the chunk again knowing the lines before it, so that the error tells the right line
+                    long start = starts.get(i);
+                    int length = (int) (starts.get(i + 1) - start);
+                    new EdgeList().parseText(channel.map(FileChannel.MapMode.READ_ONLY, start, length), length, line);
+                    throw (IOException) cause;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading the file", e);
+                }
+            }
+            return merge(chunks, pool);
+        }
+    }
+
+    /**
+     * Returns the first line boundary at or after from: the position after a '\n', or the size of the file.
+     *
+     * @param channel
+     * @param from
+     * @param size    the size of the file
+     * @return the position of the boundary
+     * @throws IOException if the file cannot be read
+     */
+    private static long lineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (long position = from - 1; position < size; ) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read; i++)
+                if (buffer.get(i) == '\n')
+                    return position + i + 1;
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Merges the chunks of a file, in order, into a single list.
+     * The labels of each chunk are looked up in the table of the list, then the edges
+     * are copied with the new ids by a task per chunk.
+     *
+     * @param chunks
+     * @param pool
+     * @return the merged list
+     * @throws IOException if there are too many edges for the arrays
+     */
+    private static EdgeList merge(List<EdgeList> chunks, ForkJoinPool pool) throws IOException {
+        long total = 0;
+        boolean weighted = false;
+        for (EdgeList chunk : chunks) {
+            total += chunk.count;
+            weighted |= chunk.weights != null;
+        }
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IOException("The file has more than " + (Integer.MAX_VALUE - 8) + " edges");
+
+        EdgeList merged = new EdgeList((int) total);
+        if (weighted)
+            merged.initWeights();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int offset = 0;
+        for (EdgeList chunk : chunks) {
+            int[] ids = new int[chunk.labels.size()];
+            for (int id = 0; id < ids.length; id++)
+                ids[id] = merged.labels.idOf(chunk.labels, id);
+            int first = offset;
+            tasks.add(() -> {
+                for (int k = 0; k < chunk.count; k++) {
+                    merged.sources[first + k] = ids[chunk.sources[k]];
+                    merged.targets[first + k] = ids[chunk.targets[k]];
+                }
+                if (chunk.weights != null)
+                    System.arraycopy(chunk.weights, 0, merged.weights, first, chunk.count);
+                else if (merged.weights != null)
+                    Arrays.fill(merged.weights, first, first + chunk.count, Graph.DEFAULT_EDGE_WEIGHT);
+                return null;
+            });
+            offset += chunk.count;
+        }
+        merged.count = offset;
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Reads a binary edge list
+     *
+     * @param file
+     * @param weighted whether each record ends with a weight
+     * @return the edges in the file
+     * @throws IOException if the file cannot be read or it ends in the middle of a record
+     */
+    public static EdgeList readBinary(Path file, boolean weighted) throws IOException {
+        EdgeList list = new EdgeList();
+        int record = weighted ? 16 : 8;
+        if (weighted)
+            list.initWeights();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % record != 0)
+                throw new IOException("The file ends in the middle of a record");
+            long offset = 0;
+            while (offset < size) {
+                int length = (int) Math.min(WINDOW - WINDOW % record, size - offset);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                for (int i = 0; i < length; i += record)
+                    list.add(list.idOf(buffer.getInt(i)), list.idOf(buffer.getInt(i + 4)),
+                            weighted ? buffer.getDouble(i + 8) : Graph.DEFAULT_EDGE_WEIGHT);
+                offset += length;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @param buffer
+     * @param length
+     * @return the position after the last '\n' in the buffer, 0 if there is none
+     */
+    private static int lastLineEnd(ByteBuffer buffer, int length) {
+        for (int i = length - 1; i >= 0; i--)
+            if (buffer.get(i) == '\n')
+                return i + 1;
+        return 0;
+    }
+
+    /**
+     * @param b
+     * @return true if b separates the columns of a line
+     */
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Parses the lines in the buffer up to end, which is the end of a line or of the file.
+     *
+     * @param buffer
+     * @param end
+     * @param line   the number of lines read before
+     * @return the number of lines read, this buffer included
+     * @throws IOException if a line is malformed
+     */
+    private long parseText(ByteBuffer buffer, int end, long line) throws IOException {
+        cursor = 0;
+        while (cursor < end) {
+            line++;
+            skipBlanks(buffer, end);
+            if (cursor == end)
+                break;
+            byte first = buffer.get(cursor);
+            if (first == '\n' || first == '#' || first == '%') {
+                skipLine(buffer, end);
+                continue;
+            }
+
+            int s = readLabel(buffer, end, line);
+            skipBlanks(buffer, end);
+            int t = readLabel(buffer, end, line);
+            skipBlanks(buffer, end);
+            if (cursor < end && buffer.get(cursor) != '\n') {
+                double weight;
+                try {
+                    weight = parseDouble(scratch, readToken(buffer, end));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Line " + line + ": the weight is not a number", e);
+                }
+                if (weights == null)
+                    initWeights();
+                add(s, t, weight);
+            } else
+                add(s, t, Graph.DEFAULT_EDGE_WEIGHT);
+            skipLine(buffer, end);
+        }
+        return line;
+    }
+
+    /**
+     * Moves the cursor past the spaces and tabs
+     *
+     * @param buffer
+     * @param end
+     */
+    private void skipBlanks(ByteBuffer buffer, int end) {
+        while (cursor < end && isBlank(buffer.get(cursor)))
+            cursor++;
+    }
+
+    /**
+     * Moves the cursor to the start of the next line
+     *
+     * @param buffer
+     * @param end
+     */
+    private void skipLine(ByteBuffer buffer, int end) {
+        while (cursor < end && buffer.get(cursor++) != '\n') ;
+    }
+
+    /**
+     * Copies the token at the cursor into scratch, moving the cursor past it
+     *
+     * @param buffer
+     * @param end
+     * @return the length of the token
+     */
+    private int readToken(ByteBuffer buffer, int end) {
+        int length = 0;
+        while (cursor < end) {
+            byte b = buffer.get(cursor);
+            if (b == '\n' || isBlank(b))
+                break;
+            if (length == scratch.length)
+                scratch = Arrays.copyOf(scratch, length * 2);
+            scratch[length++] = b;
+            cursor++;
+        }
+        return length;
+    }
+
+    /**
+     * Reads the label at the cursor
+     *
+     * @param buffer
+     * @param end
+     * @param line
+     * @return the id of the label
+     * @throws IOException if the line ends before the label
+     */
+    private int readLabel(ByteBuffer buffer, int end, long line) throws IOException {
+        int length = readToken(buffer, end);
+        if (length == 0)
+            throw new IOException("Line " + line + ": an edge needs a source and a target");
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = LabelTable.hash(hash, scratch[i]);
+        return labels.idOf(scratch, 0, length, hash);
+    }
+
+    /**
+     * Returns the id of the vertex with the given number, whose label is the number in decimal
+     *
+     * @param number
+     * @return the id of the label
+     */
+    private int idOf(int number) {
+        int length = 0;
+        long value = number;
+        if (value < 0) {
+            scratch[length++] = '-';
+            value = -value;
+        }
+        int first = length;
+        do {
+            scratch[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        //The digits have been written from the last one
+        for (int i = first, j = length - 1; i < j; i++, j--) {
+            byte b = scratch[i];
+            scratch[i] = scratch[j];
+            scratch[j] = b;
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = LabelTable.hash(hash, scratch[i]);
+        return labels.idOf(scratch, 0, length, hash);
+    }
+
+    /**
+     * Parses the decimal number in s[0] ... s[length - 1].
+     * The numbers with at most 15 significant digits and a small exponent are converted exactly
+     * from their digits, the others are left to Double.parseDouble.
+     *
+     * @param s
+     * @param length
+     * @return the number
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    static double parseDouble(byte[] s, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (s[i] == '-' || s[i] == '+'))
+            negative = s[i++] == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        for (; i < length && s[i] >= '0' && s[i] <= '9'; i++, any = true)
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (s[i] - '0');
+                if (mantissa != 0)
+                    digits++;
+            } else
+                exponent++;
+        if (i < length && s[i] == '.')
+            for (i++; i < length && s[i] >= '0' && s[i] <= '9'; i++, any = true)
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                    if (mantissa != 0)
+                        digits++;
+                    exponent--;
+                }
+        if (any && i < length && (s[i] == 'e' || s[i] == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < length && (s[j] == '-' || s[j] == '+'))
+                negativeExponent = s[j++] == '-';
+            int e = 0;
+            int start = j;
+            for (; j < length && s[j] >= '0' && s[j] <= '9' && e < 1000; j++)
+                e = e * 10 + (s[j] - '0');
+            if (j > start) {
+                exponent += negativeExponent ? -e : e;
+                i = j;
+            }
+        }
+
+        if (any && i == length && digits <= 15 && Math.abs(exponent) <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(s, 0, length, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Gives the default weight to the edges read so far, which had none
+     */
+    private void initWeights() {
+        weights = new double[sources.length];
+        Arrays.fill(weights, 0, count, Graph.DEFAULT_EDGE_WEIGHT);
+    }
+
+    /**
+     * Appends the edge from s to t
+     *
+     * @param s
+     * @param t
+     * @param weight stored only if the edges are weighted
+     * @throws IOException if there are too many edges for the arrays
+     */
+    private void add(int s, int t, double weight) throws IOException {
+        if (count == sources.length) {
+            if (count == Integer.MAX_VALUE - 8)
+                throw new IOException("The file has more than " + count + " edges");
+            int capacity = (int) Math.min(count * 2L, Integer.MAX_VALUE - 8);
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            if (weights != null)
+                weights = Arrays.copyOf(weights, capacity);
+        }
+        sources[count] = s;
+        targets[count] = t;
+        if (weights != null)
+            weights[count] = weight;
+        count++;
+    }
+
+    /**
+     * @return the number of distinct vertices
+     */
+    public int vertexCount() {
+        return labels.size();
+    }
+
+    /**
+     * @return the number of edges read, the copies of an edge included
+     */
+    public int edgeCount() {
+        return count;
+    }
+
+    /**
+     * @return true if the edges have weights
+     */
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    /**
+     * Builds a vertex of the given graph for each label
+     *
+     * @param graph
+     * @return the vertices by id
+     */
+    private Vertex[] newVertices(Graph graph) {
+        Vertex[] vertices = new Vertex[labels.size()];
+        for (int id = 0; id < vertices.length; id++)
+            vertices[id] = new VertexImpl(labels.label(id), graph);
+        return vertices;
+    }
+
+    /**
+     * Loads the edges into a new graph, which ignores their weights.
+     * The copies of an edge are added once.
+     *
+     * @return the graph
+     */
+    public DirectedGraphAdjList toAdjList() {
+        DirectedGraphAdjList graph = new DirectedGraphAdjList(labels.size());
+        Vertex[] vertices = newVertices(graph);
+        graph.addVertices(Arrays.asList(vertices));
+        graph.addEdges(vertices, sources, targets, count);
+        return graph;
+    }
+
+    /**
+     * Loads the edges into a new weighted graph.
+     * The copies of an edge are added once, with the weight of the first one.
+     *
+     * @return the graph
+     */
+    public DirectedWeightedGraphAdjMatr toWeightedAdjMatr() {
+        DirectedWeightedGraphAdjMatr graph = new DirectedWeightedGraphAdjMatr(labels.size());
+        Vertex[] vertices = newVertices(graph);
+        graph.addVertices(Arrays.asList(vertices));
+        graph.addEdges(vertices, sources, targets, weights, count);
+        return graph;
+    }
+
+    /**
+     * Loads the edges into a new snapshot, weighted if the edges have weights.
+     * The copies of an edge are kept once, with the weight of the first one.
+     *
+     * @return the snapshot
+     */
+    public CsrGraph toCsrGraph() {
+        return new CsrGraph(labels.labels(), sources, targets, weights, count);
+    }
+}
\ No newline at end of file
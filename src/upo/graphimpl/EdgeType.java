@@ -0,0 +1,11 @@
+package upo.graphimpl;
+
+/**
+ * The kinds of the edges of a graph with respect to a depth first visit.
+ */
+public enum EdgeType {
+    TREE,       // goes to a vertex discovered through it
+    BACK,       // goes to an ancestor, or to the vertex itself
+    FORWARD,    // goes to a descendant, not through the tree
+    CROSS       // goes to a vertex already closed, in another subtree or tree
+}
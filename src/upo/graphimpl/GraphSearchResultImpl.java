@@ -2,32 +2,52 @@ package upo.graphimpl;
 
 import upo.graph.*;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 
 public class GraphSearchResultImpl implements GraphSearchResult {
     private SearchType type;
     private Vertex source;
-    private LinkedList<Vertex> tree;
-    private LinkedList<EdgeImpl> edgees;
+    private LinkedHashSet<Vertex> tree;
+    //Edges of the tree by source vertex, in insertion order
+    private HashMap<Vertex, LinkedHashMap<Vertex, EdgeImpl>> children;
+    //Edges of the tree by target vertex, in insertion order: the first one comes from the parent
+    private HashMap<Vertex, LinkedList<EdgeImpl>> parents;
+    //The vertices the trees of the visit start from, which have no parent
+    private HashSet<Vertex> roots;
+    //Discovery and finish times recorded by a depth first visit, null for the other visits
+    private HashMap<Vertex, int[]> times;
+    //Distances recorded by the visit, null if they are to be found walking the tree from the source
+    private HashMap<Vertex, Double> distances;
     private Graph graph;
 
     public GraphSearchResultImpl(SearchType type, Vertex source, Graph graph) {
         this.type = type;
         this.source = source;
         this.graph = graph;
-        tree = new LinkedList<>();
-        edgees = new LinkedList<>();
+        tree = new LinkedHashSet<>();
+        children = new HashMap<>();
+        parents = new HashMap<>();
+        roots = new HashSet<>();
+        roots.add(source);
     }
 
-    private LinkedList<Vertex> getTargetEdge(Vertex v) {
-        LinkedList<Vertex> targetEdge = new LinkedList<>();
-        for (EdgeImpl e : edgees) {
-            if (e.getSource().equals(v)) {
-                targetEdge.add(e.getTarget());
-            }
-        }
-        return targetEdge;
+    private Collection<Vertex> getTargetEdge(Vertex v) {
+        LinkedHashMap<Vertex, EdgeImpl> targetEdge = children.get(v);
+        if (targetEdge == null)
+            return Collections.emptyList();
+        return targetEdge.keySet();
+    }
+
+    private void putEdge(EdgeImpl e) {
+        children.computeIfAbsent(e.getSource(), k -> new LinkedHashMap<>()).put(e.getTarget(), e);
+        parents.computeIfAbsent(e.getTarget(), k -> new LinkedList<>()).add(e);
     }
 
     public boolean addLeaves(Vertex l) {
@@ -64,14 +84,46 @@ public class GraphSearchResultImpl implements GraphSearchResult {
         return true;
     }
 
+    /**
+     * Adds v to the tree as the first vertex of a tree of the visit, which has no parent.
+     *
+     * @param v
+     * @return true if the tree did not contain v
+     */
+    public boolean addRoot(Vertex v) {
+        roots.add(v);
+        return addLeaves(v);
+    }
+
+    /**
+     * Records the distance of v from the sources, which getDistance returns from then on.
+     *
+     * @param v        a vertex of the tree
+     * @param distance
+     */
+    public void setDistance(Vertex v, double distance) {
+        if (distances == null)
+            distances = new HashMap<>();
+        distances.put(v, distance);
+    }
+
+    /**
+     * Records the times in which a depth first visit discovered and closed v,
+     * which getStartTime and getEndTime return from then on.
+     *
+     * @param v         a vertex of the tree
+     * @param startTime the time v became gray
+     * @param endTime   the time v became black
+     */
+    public void setTimes(Vertex v, int startTime, int endTime) {
+        if (times == null)
+            times = new HashMap<>();
+        times.put(v, new int[]{startTime, endTime});
+    }
+
     public boolean containsLeaves(Vertex l) {
         // If the leaf is null or does not exist in the graph, returns false
-        for (Vertex key : tree) {
-            if (l.equals(key)) {
-                return true;
-            }
-        }
-        return false;
+        return l != null && tree.contains(l);
     }
 
     public Edge addEdge(Vertex sourceLeaf, Vertex targetLeaf) {
@@ -86,7 +138,7 @@ public class GraphSearchResultImpl implements GraphSearchResult {
         //Checks if the list doesn't contain the value already, creates an edge, adds it to the edges set and returns it
         if (!containsEdge(sourceLeaf, targetLeaf)) {
             EdgeImpl e = new EdgeImpl(sourceLeaf, targetLeaf, this);
-            edgees.add(e);
+            putEdge(e);
             return e;
         }
 
@@ -105,7 +157,7 @@ public class GraphSearchResultImpl implements GraphSearchResult {
         //Checks if the list doesn't contain the value already, creates an edge, adds it to the edges set and returns it
         if (!containsEdge(sourceLeaf, targetLeaf)) {
             EdgeImpl e = new EdgeImpl(sourceLeaf, targetLeaf, weight, this);
-            edgees.add(e);
+            putEdge(e);
             return e;
         }
 
@@ -118,11 +170,8 @@ public class GraphSearchResultImpl implements GraphSearchResult {
             return false;
 
         //If the graph contains an edge from source to target, returns true. Does not consider edge weight.
-        for (EdgeImpl e : edgees)
-            if (e.getSource().equals(sourceLeaf) && e.getTarget().equals(targetLeaf))
-                return true;
-
-        return false;
+        LinkedHashMap<Vertex, EdgeImpl> targetEdge = children.get(sourceLeaf);
+        return targetEdge != null && targetEdge.containsKey(targetLeaf);
     }
 
     public Edge removeEdge(Vertex sourceLeaf, Vertex targetLeaf) {
@@ -131,11 +180,12 @@ public class GraphSearchResultImpl implements GraphSearchResult {
             return null;
 
         //Finds the edge with sourceVertex and targetVertex and removes it
-        for (EdgeImpl e : edgees)
-            if (e.getSource().equals(sourceLeaf) && e.getTarget().equals(targetLeaf))
-                edgees.remove(e);
+        LinkedHashMap<Vertex, EdgeImpl> targetEdge = children.get(sourceLeaf);
+        EdgeImpl e = targetEdge == null ? null : targetEdge.remove(targetLeaf);
+        if (e != null)
+            parents.get(targetLeaf).remove(e);
 
-        return null;
+        return e;
     }
 
     @Override
@@ -186,6 +236,10 @@ public class GraphSearchResultImpl implements GraphSearchResult {
         if (this.getType() != SearchType.BFS && this.getType() != SearchType.DIJKSTRA)
             throw new UnsupportedOperationException("This type of visit is not supported.");
 
+        if (distances != null) {
+            Double distance = distances.get(v);
+            return distance == null ? Double.POSITIVE_INFINITY : distance;
+        }
         if (source.equals(v))
             return 0;
         return distance(source, v, 0);
@@ -224,14 +278,12 @@ public class GraphSearchResultImpl implements GraphSearchResult {
      */
     @Override
     public Vertex getParentOf(Vertex v) throws IllegalArgumentException {
-        if (source == v)
+        if (roots.contains(v))
             return null;
 
-        for (EdgeImpl e : edgees) {
-            if (e.getTarget() == v) {
-                return e.getSource();
-            }
-        }
+        LinkedList<EdgeImpl> entering = parents.get(v);
+        if (entering != null && !entering.isEmpty())
+            return entering.getFirst().getSource();
 
         throw new IllegalArgumentException("The vertex is not contained in the visited graph");
     }
@@ -250,6 +302,10 @@ public class GraphSearchResultImpl implements GraphSearchResult {
     public int getStartTime(Vertex v) throws IllegalArgumentException {
         if (!graph.containsVertex(v))
             throw new IllegalArgumentException("The vertex is not contained in the visited graph");
+        if (times != null) {
+            int[] time = times.get(v);
+            return time == null ? -1 : time[0];
+        }
         if (v.equals(source))
             return 1;
         int count = 1;
@@ -311,9 +367,42 @@ public class GraphSearchResultImpl implements GraphSearchResult {
             throw new IllegalArgumentException("The vertex is not contained in the visited graph");
         if (v == null)
             return -1;
+        if (times != null) {
+            int[] time = times.get(v);
+            return time == null ? -1 : time[1];
+        }
         return tree.size() - getStartTime(v);
     }
 
+    /**
+     * Classifies the edge of the visited graph from v1 to v2 with respect to a depth first visit,
+     * comparing the discovery and finish times of its vertices.
+     *
+     * @param v1 the source of the edge.
+     * @param v2 the target of the edge.
+     * @return the kind of the edge.
+     * @throws IllegalArgumentException      if the graph does not contain the edge or the visit did not reach v1.
+     * @throws UnsupportedOperationException if the visit did not record the times, as the visits that are not depth first.
+     */
+    public EdgeType getEdgeType(Vertex v1, Vertex v2) throws IllegalArgumentException, UnsupportedOperationException {
+        if (times == null)
+            throw new UnsupportedOperationException("This type of visit is not supported.");
+        if (!graph.containsEdge(v1, v2))
+            throw new IllegalArgumentException("Does not exist the edge between v1 and v2");
+        int[] source = times.get(v1);
+        int[] target = times.get(v2);
+        if (source == null)
+            throw new IllegalArgumentException("The visit did not reach v1");
+
+        //v2 was discovered after v1 and closed before it: it is a descendant of v1
+        if (source[0] < target[0] && target[1] < source[1])
+            return containsEdge(v1, v2) ? EdgeType.TREE : EdgeType.FORWARD;
+        //v1 is a descendant of v2, or v2 itself
+        if (target[0] <= source[0] && source[1] <= target[1])
+            return EdgeType.BACK;
+        return EdgeType.CROSS;
+    }
+
     /**
      * Returns the weight of the edge between v1 and v2 in the current search result, if it exists.
      * Otherwise, it returns an IllegalArgumentException.
@@ -0,0 +1,63 @@
+package upo.graphimpl;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An int array split in segments, each one a buffer over an array in the heap or over a part of a mapped file.
+ */
+final class IntArray extends SegmentedArray<IntBuffer> {
+
+    private IntArray(IntBuffer[] segments, int shift, int length) {
+        super(segments, shift, length);
+    }
+
+    /**
+     * Returns a view of the first length elements of an array, without copying it
+     *
+     * @param array
+     * @param length
+     * @return the view
+     */
+    static IntArray wrap(int[] array, int length) {
+        IntBuffer[] segments = new IntBuffer[segmentCount(length, SEGMENT_SHIFT)];
+        for (int k = 0; k < segments.length; k++)
+            segments[k] = IntBuffer.wrap(array, k << SEGMENT_SHIFT, segmentLength(length, SEGMENT_SHIFT, k)).slice();
+        return new IntArray(segments, SEGMENT_SHIFT, length);
+    }
+
+    /**
+     * Maps length big endian ints of a file, starting from the byte start, in segments of 2^shift ints.
+     * The mapping stays valid after the channel is closed.
+     *
+     * @param channel
+     * @param mode
+     * @param start
+     * @param length
+     * @param shift
+     * @return the mapped array
+     * @throws IOException if the file cannot be mapped
+     */
+    static IntArray map(FileChannel channel, FileChannel.MapMode mode, long start, int length, int shift) throws IOException {
+        IntBuffer[] segments = new IntBuffer[segmentCount(length, shift)];
+        for (int k = 0; k < segments.length; k++) {
+            long from = (long) k << shift;
+            segments[k] = channel.map(mode, start + 4 * from, 4L * segmentLength(length, shift, k)).asIntBuffer();
+        }
+        return new IntArray(segments, shift, length);
+    }
+
+    /**
+     * @param i
+     * @return the element in position i
+     */
+    int get(int i) {
+        return segments[i >>> shift].get(i & mask);
+    }
+
+    @Override
+    protected void transfer(IntBuffer source, int from, IntBuffer target, int to, int count) {
+        target.put(to, source, from, count);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package upo.graphimpl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Assigns a dense id to each distinct label read from a file, looking the labels up by their bytes.
+ * The bytes of all the labels are kept in a single array and the table is open addressing on int arrays,
+ * so a label already seen costs no allocation: a String is built only once per label, when it is asked for.
+ */
+class LabelTable {
+    //The bytes of the label id are bytes[starts[id]] ... bytes[starts[id + 1] - 1]
+    private byte[] bytes;
+    private int[] starts;
+    private int[] hashes;
+    //slots[k] is id + 1 of the label in the slot k, 0 if the slot is empty
+    private int[] slots;
+    private int size;
+
+    /**
+     * Initializes an empty table
+     */
+    LabelTable() {
+        bytes = new byte[1024];
+        starts = new int[65];
+        hashes = new int[64];
+        slots = new int[128];
+    }
+
+    /**
+     * @return the number of labels in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hash of a label, to be given to idOf.
+     * The hash is built a byte at a time, as the label is read.
+     *
+     * @param hash the hash of the bytes before b, 0 for the first one
+     * @param b    the next byte of the label
+     * @return the hash of the bytes up to b
+     */
+    static int hash(int hash, byte b) {
+        return hash * 31 + b;
+    }
+
+    /**
+     * Returns the id of the label key[from] ... key[to - 1], giving it the next id if it is new.
+     *
+     * @param key  the array holding the label
+     * @param from the position of the first byte of the label
+     * @param to   the position after the last byte of the label
+     * @param hash the hash of the label, as given by hash
+     * @return the id of the label
+     */
+    int idOf(byte[] key, int from, int to, int hash) {
+        int mask = slots.length - 1;
+        for (int k = mix(hash) & mask; ; k = (k + 1) & mask) {
+            int id = slots[k] - 1;
+            if (id < 0)
+                return insert(key, from, to, hash, k);
+            if (hashes[id] == hash && Arrays.equals(bytes, starts[id], starts[id + 1], key, from, to))
+                return id;
+        }
+    }
+
+    /**
+     * Returns the id of a label of another table, giving it the next id if it is new.
+     *
+     * @param other the table holding the label
+     * @param id    the id of the label in other
+     * @return the id of the label in this table
+     */
+    int idOf(LabelTable other, int id) {
+        return idOf(other.bytes, other.starts[id], other.starts[id + 1], other.hashes[id]);
+    }
+
+    /**
+     * Adds the label to the table in the empty slot k
+     *
+     * @param key
+     * @param from
+     * @param to
+     * @param hash
+     * @param k
+     * @return the id of the label
+     */
+    private int insert(byte[] key, int from, int to, int hash, int k) {
+        int id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            starts = Arrays.copyOf(starts, id * 2 + 1);
+        }
+        int start = starts[id];
+        int length = to - from;
+        if (start + length > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(start + length, bytes.length * 2));
+        System.arraycopy(key, from, bytes, start, length);
+        starts[id + 1] = start + length;
+        hashes[id] = hash;
+        slots[k] = id + 1;
+
+        //Keeps the table at most half full
+        if (size * 2 > slots.length)
+            rehash();
+        return id;
+    }
+
+    /**
+     * Doubles the slots and puts the labels back
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int k = mix(hashes[id]) & mask;
+            while (slots[k] != 0)
+                k = (k + 1) & mask;
+            slots[k] = id + 1;
+        }
+    }
+
+    /**
+     * Spreads the high bits of the hash over the low ones, which choose the slot
+     *
+     * @param hash
+     * @return the spread hash
+     */
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return the number of bytes of all the labels
+     */
+    int byteCount() {
+        return starts[size];
+    }
+
+    /**
+     * @return the number of slots, a power of two
+     */
+    int slotCount() {
+        return slots.length;
+    }
+
+    /**
+     * Copies the table into the given arrays, which MappedLabels reads back.
+     *
+     * @param starts receives the first byte of each label, and the end of the last one
+     * @param hashes receives the hash of each label
+     * @param slots  receives the slots
+     * @param bytes  receives the bytes of the labels
+     */
+    void copyTo(IntArray starts, IntArray hashes, IntArray slots, ByteBuffer bytes) {
+        IntArray.wrap(this.starts, size + 1).copyTo(starts);
+        IntArray.wrap(this.hashes, size).copyTo(hashes);
+        IntArray.wrap(this.slots, this.slots.length).copyTo(slots);
+        bytes.put(this.bytes, 0, byteCount());
+    }
+
+    /**
+     * @param id
+     * @return the label with the given id, decoded as UTF-8
+     */
+    String label(int id) {
+        return new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the labels by id
+     */
+    String[] labels() {
+        String[] labels = new String[size];
+        for (int id = 0; id < size; id++)
+            labels[id] = label(id);
+        return labels;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,640 @@
+package upo.graphimpl;
+
+import upo.graph.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Makes the changes to any Graph durable, keeping in a directory a snapshot of the graph
+ * and a write-ahead log of the changes made after it.
+ * Every change that modifies the graph (addVertex, removeVertex, addEdge, removeEdge, setEdgeWeight)
+ * is applied to the wrapped graph and then appended to the log.
+ *
+ * <p>
+ * The log is written and forced to disk once every groupSize changes (group commit), or when sync or
+ * close is called: a crash loses at most the changes not synced yet. Once every compactionSize changes
+ * the graph is written as a CsrGraph snapshot and the log starts over, so the log never grows past
+ * compactionSize changes. When the directory is opened again, the graph is rebuilt from the last
+ * snapshot and the log is replayed on it. A change cut by a crash at the end of the log is dropped.
+ * </p>
+ *
+ * <p>
+ * The snapshot and the log of each compaction are numbered, snapshot-N.csr and log-N.wal: a new snapshot
+ * is complete before its number is used, so the last snapshot and its log always describe the graph.
+ * Like the graphs, this class is not thread safe: it can be wrapped in a ConcurrentGraph.
+ * </p>
+ */
+public class LoggedGraph implements Graph, Closeable {
+    private static final byte ADD_VERTEX = 1;
+    private static final byte REMOVE_VERTEX = 2;
+    private static final byte ADD_EDGE = 3;
+    private static final byte REMOVE_EDGE = 4;
+    private static final byte SET_EDGE_WEIGHT = 5;
+    //Length and checksum before each record
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final Graph graph;
+    private final int groupSize;
+    private final int compactionSize;
+    private long generation;
+    private FileChannel log;
+    //The records not written yet, and their number
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private int pendingCount;
+    //The number of records in the log since the last snapshot
+    private int logged;
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * Opens the log in the given directory, creating it if it does not exist,
+     * and rebuilds the graph from the last snapshot and the log.
+     *
+     * @param directory      the directory keeping the snapshot and the log
+     * @param factory        creates the empty graph to rebuild
+     * @param groupSize      the number of changes forced to disk together
+     * @param compactionSize the number of changes after which the graph is written as a snapshot
+     * @throws IOException              if the directory cannot be read or written
+     * @throws IllegalArgumentException if groupSize or compactionSize is not positive
+     */
+    public LoggedGraph(Path directory, Supplier<? extends Graph> factory, int groupSize, int compactionSize) throws IOException {
+        if (groupSize <= 0 || compactionSize <= 0)
+            throw new IllegalArgumentException("The group and compaction sizes must be positive.");
+        this.directory = directory;
+        this.groupSize = groupSize;
+        this.compactionSize = compactionSize;
+        Files.createDirectories(directory);
+
+        //Finds the last snapshot, the older files are left by a compaction cut by a crash
+        generation = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.csr")) {
+            for (Path file : files)
+                generation = Math.max(generation, generationOf(file));
+        }
+        graph = factory.get();
+        if (generation > 0)
+            load(CsrGraph.map(snapshot(generation)));
+        deleteOlderThan(generation);
+
+        log = FileChannel.open(log(generation), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        //The new log must survive a crash as the snapshot it follows
+        forceDirectory();
+        replay();
+    }
+
+    /**
+     * @param file
+     * @return the number in the name of a snapshot, 0 if the name is not one of a snapshot
+     */
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("snapshot-".length(), name.length() - ".csr".length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param generation
+     * @return the snapshot with the given number
+     */
+    private Path snapshot(long generation) {
+        return directory.resolve("snapshot-" + generation + ".csr");
+    }
+
+    /**
+     * @param generation
+     * @return the log with the given number
+     */
+    private Path log(long generation) {
+        return directory.resolve("log-" + generation + ".wal");
+    }
+
+    /**
+     * Forces to disk the entries of the directory, so that the files created, renamed
+     * or deleted in it survive a crash
+     *
+     * @throws IOException
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel entries = FileChannel.open(directory, StandardOpenOption.READ)) {
+            entries.force(true);
+        }
+    }
+
+    /**
+     * Deletes the snapshots and the logs older than the given number
+     *
+     * @param generation
+     * @throws IOException
+     */
+    private void deleteOlderThan(long generation) throws IOException {
+        for (long older = generation - 1; older >= 0; older--) {
+            boolean found = Files.deleteIfExists(log(older));
+            found |= older > 0 && Files.deleteIfExists(snapshot(older));
+            if (!found)
+                break;
+        }
+    }
+
+    /**
+     * Adds to the graph the vertices and the edges of a snapshot
+     *
+     * @param snapshot
+     */
+    private void load(CsrGraph snapshot) {
+        for (Vertex v : snapshot)
+            graph.addVertex(new VertexImpl(v.getLabel(), graph));
+        for (Edge e : snapshot.edgeSet()) {
+            DirectedEdge d = (DirectedEdge) e;
+            Vertex s = new VertexImpl(d.getSource().getLabel(), graph);
+            Vertex t = new VertexImpl(d.getTarget().getLabel(), graph);
+            graph.addEdge(s, t);
+            if (snapshot.isWeighted())
+                graph.setEdgeWeight(s, t, d.getEdgeWeight());
+        }
+    }
+
+    /**
+     * Applies the records of the log to the graph.
+     * The log is cut at the first record that is incomplete or does not match its checksum.
+     *
+     * @throws IOException
+     */
+    private void replay() throws IOException {
+        long size = log.size();
+        ByteBuffer records = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (records.hasRemaining() && log.read(records, records.position()) > 0) ;
+        records.flip();
+
+        int end = 0;
+        while (records.remaining() >= RECORD_HEADER_BYTES) {
+            int length = records.getInt();
+            int expected = records.getInt();
+            if (length <= 0 || length > records.remaining())
+                break;
+            checksum.reset();
+            checksum.update(records.array(), records.position(), length);
+            if ((int) checksum.getValue() != expected)
+                break;
+            apply(records.slice(records.position(), length));
+            records.position(records.position() + length);
+            end = records.position();
+            logged++;
+        }
+        //Drops the record cut by a crash, so that the next ones are appended after the last good one
+        if (end < size) {
+            log.truncate(end);
+            log.force(false);
+        }
+        log.position(end);
+    }
+
+    /**
+     * Applies a record to the graph
+     *
+     * @param record
+     */
+    private void apply(ByteBuffer record) {
+        byte operation = record.get();
+        Vertex s = new VertexImpl(readLabel(record), graph);
+        Vertex t = operation >= ADD_EDGE ? new VertexImpl(readLabel(record), graph) : null;
+        switch (operation) {
+            case ADD_VERTEX:
+                graph.addVertex(s);
+                break;
+            case REMOVE_VERTEX:
+                graph.removeVertex(s);
+                break;
+            case ADD_EDGE:
+                graph.addEdge(s, t);
+                break;
+            case REMOVE_EDGE:
+                graph.removeEdge(s, t);
+                break;
+            case SET_EDGE_WEIGHT:
+                graph.setEdgeWeight(s, t, record.getDouble());
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation " + operation + " in the log");
+        }
+    }
+
+    /**
+     * @param record
+     * @return the label at the position of the record
+     */
+    private static String readLabel(ByteBuffer record) {
+        byte[] label = new byte[record.getInt()];
+        record.get(label);
+        return new String(label, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record to the pending ones, writing them if they are groupSize
+     * and compacting the log if it has compactionSize records.
+     *
+     * @param operation
+     * @param s         the vertex of the change or the source of the edge
+     * @param t         the target of the edge, null for the changes of a vertex
+     * @param weight    the weight, written only by SET_EDGE_WEIGHT
+     */
+    private void append(byte operation, Vertex s, Vertex t, double weight) {
+        byte[] source = s.getLabel().getBytes(StandardCharsets.UTF_8);
+        byte[] target = t == null ? null : t.getLabel().getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + source.length + (t == null ? 0 : 4 + target.length) + (operation == SET_EDGE_WEIGHT ? 8 : 0);
+        if (pending.remaining() < RECORD_HEADER_BYTES + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_BYTES + length));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+
+        int start = pending.position();
+        pending.putInt(length).putInt(0).put(operation).putInt(source.length).put(source);
+        if (t != null)
+            pending.putInt(target.length).put(target);
+        if (operation == SET_EDGE_WEIGHT)
+            pending.putDouble(weight);
+        checksum.reset();
+        checksum.update(pending.array(), start + RECORD_HEADER_BYTES, length);
+        pending.putInt(start + 4, (int) checksum.getValue());
+        pendingCount++;
+        logged++;
+
+        try {
+            if (logged >= compactionSize)
+                compact();
+            else if (pendingCount >= groupSize)
+                sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the pending changes to the log and forces them to disk
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void sync() throws IOException {
+        if (pendingCount == 0)
+            return;
+        pending.flip();
+        while (pending.hasRemaining())
+            log.write(pending);
+        pending.clear();
+        pendingCount = 0;
+        log.force(false);
+    }
+
+    /**
+     * Writes the graph as a new snapshot and starts a new empty log after it.
+     * The new snapshot is written under a temporary name and renamed when complete,
+     * then the old snapshot and log are deleted once the directory is forced to disk.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact() throws IOException {
+        sync();
+        Path temporary = directory.resolve("snapshot.tmp");
+        new CsrGraph(graph).write(temporary);
+        try (FileChannel written = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(temporary, snapshot(generation + 1), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        generation++;
+        log.close();
+        log = FileChannel.open(log(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logged = 0;
+        //The rename and the new log must be on disk before the files they replace are deleted
+        forceDirectory();
+        deleteOlderThan(generation);
+    }
+
+    /**
+     * Writes the pending changes and closes the log. The graph must not be changed afterwards.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            log.close();
+        }
+    }
+
+    @Override
+    public Iterator<Vertex> iterator() {
+        return graph.iterator();
+    }
+
+    /**
+     * Adds the specified vertex to this graph if not already present. More
+     * formally, adds the specified vertex, <code>v</code>, to this graph if this
+     * graph contains no vertex <code>u</code> such that <code>
+     * u.equals(v)</code>. If this graph already contains such vertex, the call
+     * leaves this graph unchanged and returns <tt>false</tt>. In combination with
+     * the restriction on constructors, this ensures that graphs never contain
+     * duplicate vertices.
+     *
+     * @param v vertex to be added to this graph.
+     * @return <tt>true</tt> if this graph did not already contain the specified
+     * vertex.
+     * @throws NullPointerException if the specified vertex is <code>
+     *                              null</code>               .
+     */
+    @Override
+    public boolean addVertex(Vertex v) {
+        if (!graph.addVertex(v))
+            return false;
+        append(ADD_VERTEX, v, null, 0);
+        return true;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this graph contains the specified vertex. More
+     * formally, returns <tt>true</tt> if and only if this graph contains a vertex
+     * <code>u</code> such that <code>u.equals(v)</code>. If the specified vertex is
+     * <code>null</code> returns <code>false</code>.
+     *
+     * @param v vertex whose presence in this graph is to be tested.
+     * @return <tt>true</tt> if this graph contains the specified vertex.
+     */
+    @Override
+    public boolean containsVertex(Vertex v) {
+        return graph.containsVertex(v);
+    }
+
+    /**
+     * Removes the specified vertex from this graph including all its touching edges
+     * if present.
+     *
+     * @param v vertex to be removed from this graph, if present.
+     * @return <code>true</code> if the graph contained the specified vertex;
+     * <code>false</code> otherwise.
+     */
+    @Override
+    public boolean removeVertex(Vertex v) {
+        if (!graph.removeVertex(v))
+            return false;
+        append(REMOVE_VERTEX, v, null, 0);
+        return true;
+    }
+
+    /**
+     * Returns a set of the vertices contained in this graph.
+     *
+     * @return a set of the vertices contained in this graph.
+     */
+    @Override
+    public Set<Vertex> vertexSet() {
+        return graph.vertexSet();
+    }
+
+    /**
+     * Creates a new edge in this graph, going from the source vertex to the target
+     * vertex, and returns the created edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The newly created edge if added to the graph, otherwise <code>
+     * null</code>.
+     * @throws IllegalArgumentException if source or target vertices are not found in the graph.
+     * @throws NullPointerException     if any of the specified vertices is <code>
+     *                                  null</code>.
+     */
+    @Override
+    public Edge addEdge(Vertex sourceVertex, Vertex targetVertex) {
+        Edge e = graph.addEdge(sourceVertex, targetVertex);
+        if (e != null)
+            append(ADD_EDGE, sourceVertex, targetVertex, 0);
+        return e;
+    }
+
+    /**
+     * Returns <tt>true</tt> if and only if this graph contains an edge going from
+     * the source vertex to the target vertex. If any of the specified vertices does
+     * not exist in the graph, or if is <code>
+     * null</code>, returns <code>false</code>.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return <tt>true</tt> if this graph contains the specified edge.
+     */
+    @Override
+    public boolean containsEdge(Vertex sourceVertex, Vertex targetVertex) {
+        return graph.containsEdge(sourceVertex, targetVertex);
+    }
+
+    /**
+     * Returns a set of the edges contained in this graph.
+     *
+     * @return a set of the edges contained in this graph.
+     */
+    @Override
+    public Set<Edge> edgeSet() {
+        return graph.edgeSet();
+    }
+
+    /**
+     * Returns the degree of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int degreeOf(Vertex vertex) {
+        return graph.degreeOf(vertex);
+    }
+
+    /**
+     * Returns the "in degree" of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int inDegreeOf(Vertex vertex) {
+        return graph.inDegreeOf(vertex);
+    }
+
+    /**
+     * Returns the "out degree" of the specified vertex.
+     *
+     * @param vertex vertex whose degree is to be calculated.
+     * @return the degree of the specified vertex.
+     */
+    @Override
+    public int outDegreeOf(Vertex vertex) {
+        return graph.outDegreeOf(vertex);
+    }
+
+    /**
+     * Returns true if this is a directed graph.
+     *
+     * @return true if this is a directed graph, false otherwise
+     */
+    @Override
+    public boolean isDirected() {
+        return graph.isDirected();
+    }
+
+    /**
+     * Removes an edge going from source vertex to target vertex, if such vertices
+     * and such edge exist in this graph. Returns the edge if removed or
+     * <code>null</code> otherwise.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return The removed edge, or <code>null</code> if no edge removed.
+     */
+    @Override
+    public Edge removeEdge(Vertex sourceVertex, Vertex targetVertex) {
+        Edge e = graph.removeEdge(sourceVertex, targetVertex);
+        if (e != null)
+            append(REMOVE_EDGE, sourceVertex, targetVertex, 0);
+        return e;
+    }
+
+    /**
+     * Returns the weight assigned to a given edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @return edge weight
+     */
+    @Override
+    public double getEdgeWeight(Vertex sourceVertex, Vertex targetVertex) {
+        return graph.getEdgeWeight(sourceVertex, targetVertex);
+    }
+
+    /**
+     * Assigns a weight to an edge.
+     *
+     * @param sourceVertex source vertex of the edge.
+     * @param targetVertex target vertex of the edge.
+     * @param weight       new weight for edge
+     * @throws UnsupportedOperationException if the graph does not support weights
+     */
+    @Override
+    public void setEdgeWeight(Vertex sourceVertex, Vertex targetVertex, double weight) {
+        graph.setEdgeWeight(sourceVertex, targetVertex, weight);
+        if (graph.containsEdge(sourceVertex, targetVertex))
+            append(SET_EDGE_WEIGHT, sourceVertex, targetVertex, weight);
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph.
+     *
+     * @param type the search type.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type) throws UnsupportedOperationException {
+        return graph.visit(type);
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from the given vertex.
+     *
+     * @param type   the search type.
+     * @param source the vertex the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if source is not found in the graph.
+     * @throws NullPointerException          if source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Vertex source) throws UnsupportedOperationException {
+        return graph.visit(type, source);
+    }
+
+    /**
+     * Performs a visit (of type <code>type</code>) over the current graph, starting from all the given vertices at once.
+     *
+     * @param type    the search type.
+     * @param sources the vertices the visit starts from.
+     * @return a GraphSearchResult representing the result of the visit performed.
+     * @throws UnsupportedOperationException if the visit cannot be performed on the current graph
+     *                                       (e.g., a Dijkstra visit on an unweighted graph).
+     * @throws IllegalArgumentException      if sources is empty or any source is not found in the graph.
+     * @throws NullPointerException          if any source is <code>null</code>.
+     */
+    @Override
+    public GraphSearchResult visit(SearchType type, Collection<Vertex> sources) throws UnsupportedOperationException {
+        return graph.visit(type, sources);
+    }
+
+    /**
+     * Check whether the current graph contains cycles or not.
+     *
+     * @return true if the current graph contains cycles, false otherwise.
+     */
+    @Override
+    public boolean isCyclic() {
+        return graph.isCyclic();
+    }
+
+    /**
+     * Check whether the current graph is a directed acyclic graph (DAG) or not.
+     *
+     * @return true if the current graph is a DAG, false otherwise.
+     */
+    @Override
+    public boolean isDAG() {
+        return graph.isDAG();
+    }
+
+    /**
+     * If the current graph is a DAG, it returns a topological sort of this graph.
+     *
+     * @return a topological sort of this graph.
+     * @throws UnsupportedOperationException if the current graph is not a DAG.
+     */
+    @Override
+    public Vertex[] topologicalSort() {
+        return graph.topologicalSort();
+    }
+
+    /**
+     * If the current graph is directed, this method returns the strongly connected components
+     * of the graph. Otherwise, the method throws an UnsupportedOperationException.
+     *
+     * @return a collection of collections of vertices representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public Collection<Collection<Vertex>> stronglyConnectedComponents() {
+        return graph.stronglyConnectedComponents();
+    }
+
+    /**
+     * Returns a string representing the strongly connected components of the graph.
+     * For instance: {{1,2,3},{4,6},{5}}
+     *
+     * @return a string representing the strongly connected components of the graph.
+     * @throws UnsupportedOperationException if the current graph is not directed.
+     */
+    @Override
+    public String toStringSCC() {
+        return graph.toStringSCC();
+    }
+}
\ No newline at end of file
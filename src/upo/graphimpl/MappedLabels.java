@@ -0,0 +1,74 @@
+package upo.graphimpl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The labels of a mapped snapshot, laid out as the arrays of a LabelTable.
+ * A label is looked up by probing the slots and comparing the bytes straight in the mapping,
+ * so nothing is read into the heap when the snapshot is mapped.
+ */
+class MappedLabels {
+    private final IntArray starts;
+    private final IntArray hashes;
+    private final IntArray slots;
+    private final ByteBuffer bytes;
+
+    /**
+     * @param starts the first byte of each label, and the end of the last one
+     * @param hashes the hash of each label
+     * @param slots  the slots of the table, id + 1 of a label or 0 if empty
+     * @param bytes  the bytes of the labels
+     */
+    MappedLabels(IntArray starts, IntArray hashes, IntArray slots, ByteBuffer bytes) {
+        this.starts = starts;
+        this.hashes = hashes;
+        this.slots = slots;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @param label
+     * @return the id of the label, -1 if it is not in the table
+     */
+    int indexOf(String label) {
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        int hash = 0;
+        for (byte b : key)
+            hash = LabelTable.hash(hash, b);
+        int mask = slots.length() - 1;
+        for (int k = LabelTable.mix(hash) & mask; ; k = (k + 1) & mask) {
+            int id = slots.get(k) - 1;
+            if (id < 0)
+                return -1;
+            if (hashes.get(id) == hash && matches(id, key))
+                return id;
+        }
+    }
+
+    /**
+     * @param id
+     * @param key
+     * @return true if the label id is made of the bytes of key
+     */
+    private boolean matches(int id, byte[] key) {
+        int start = starts.get(id);
+        if (starts.get(id + 1) - start != key.length)
+            return false;
+        for (int i = 0; i < key.length; i++)
+            if (bytes.get(start + i) != key[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @param id
+     * @return the label with the given id, decoded as UTF-8
+     */
+    String label(int id) {
+        int start = starts.get(id);
+        byte[] label = new byte[starts.get(id + 1) - start];
+        bytes.get(start, label);
+        return new String(label, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
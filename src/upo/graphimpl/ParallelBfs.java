@@ -0,0 +1,147 @@
+package upo.graphimpl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A level synchronous breadth first visit of the arrays of a CsrGraph, which expands each frontier in parallel
+ * on a ForkJoinPool. The frontier is split in chunks of GRAIN vertices, a task for each one: a task claims the
+ * successors not discovered yet with a compare and set on their parent, so that each vertex is claimed once,
+ * and collects them in a buffer of its own. The buffers are then appended in order as the next frontier.
+ * An instance performs a single visit.
+ */
+final class ParallelBfs {
+    //Frontier vertices expanded by a single task
+    private static final int GRAIN = 1024;
+
+    private final IntArray offsets;
+    private final IntArray targets;
+    //parent[v] is 0 while v is not discovered, then the position of its parent plus 1. A root is its own parent
+    private final AtomicIntegerArray parent;
+    private final int[] distance;
+    //The vertices discovered, level by level
+    private final int[] order;
+    private int count;
+    //The level being expanded is order[head, end), its successors are at distance level
+    private int head, end, level;
+    //next[c] and sizes[c] receive the vertices claimed from the chunk c of the frontier
+    private int[][] next;
+    private int[] sizes;
+
+    /**
+     * @param offsets     the offsets of the successors of each position, as in CsrGraph
+     * @param targets     the successors
+     * @param vertexCount the number of vertices
+     */
+    ParallelBfs(IntArray offsets, IntArray targets, int vertexCount) {
+        this.offsets = offsets;
+        this.targets = targets;
+        parent = new AtomicIntegerArray(vertexCount);
+        distance = new int[vertexCount];
+        order = new int[vertexCount];
+    }
+
+    /**
+     * Visits the positions reachable from the roots, all of them at distance 0
+     *
+     * @param roots positions of the first vertices visited
+     * @param pool  the pool that expands the frontiers
+     * @return the number of positions discovered
+     */
+    int visit(int[] roots, ForkJoinPool pool) {
+        for (int root : roots)
+            if (parent.compareAndSet(root, 0, root + 1))
+                order[count++] = root;
+        for (level = 1; head < count; level++) {
+            end = count;
+            int chunks = (end - head + GRAIN - 1) / GRAIN;
+            next = new int[chunks][];
+            sizes = new int[chunks];
+            pool.invoke(new Expand(0, chunks));
+            for (int c = 0; c < chunks; c++) {
+                System.arraycopy(next[c], 0, order, count, sizes[c]);
+                count += sizes[c];
+            }
+            head = end;
+        }
+        next = null;
+        return count;
+    }
+
+    /**
+     * @param i
+     * @return the i-th position discovered, the roots first and then level by level
+     */
+    int get(int i) {
+        return order[i];
+    }
+
+    /**
+     * @param v a position discovered
+     * @return the position of the parent of v, -1 if v is a root
+     */
+    int parentOf(int v) {
+        int p = parent.get(v) - 1;
+        return p == v ? -1 : p;
+    }
+
+    /**
+     * @param v a position discovered
+     * @return the distance of v from the nearest root
+     */
+    int distanceOf(int v) {
+        return distance[v];
+    }
+
+    /**
+     * Expands the chunk c of the frontier into a buffer of its own
+     *
+     * @param c
+     */
+    private void expand(int c) {
+        int from = head + c * GRAIN;
+        int to = Math.min(end, from + GRAIN);
+        int[] buffer = new int[16];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            int current = order[i];
+            for (int k = offsets.get(current); k < offsets.get(current + 1); k++) {
+                int neighbor = targets.get(k);
+                //Reads before the compare and set, as most of the successors are already claimed
+                if (parent.get(neighbor) == 0 && parent.compareAndSet(neighbor, 0, current + 1)) {
+                    distance[neighbor] = level;
+                    if (size == buffer.length)
+                        buffer = Arrays.copyOf(buffer, size * 2);
+                    buffer[size++] = neighbor;
+                }
+            }
+        }
+        next[c] = buffer;
+        sizes[c] = size;
+    }
+
+    /**
+     * Expands the chunks of the frontier in [lo, hi), halving the range until a single chunk is left
+     */
+    private final class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        Expand(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                expand(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Expand(lo, mid), new Expand(mid, hi));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package upo.graphimpl;
+
+import java.nio.Buffer;
+
+/**
+ * An array split in segments of 2^shift elements, each one a buffer over an array in the heap
+ * or over a part of a mapped file. A buffer cannot be larger than 2^31 bytes, so a single one cannot map
+ * the arrays of a snapshot with more than 2^29 edges: split in segments, an array can be as long as an int allows.
+ *
+ * @param <B> the type of the buffers
+ */
+abstract class SegmentedArray<B extends Buffer> {
+    //Segments of 2^27 elements, 512 MiB of ints or 1 GiB of doubles
+    static final int SEGMENT_SHIFT = 27;
+
+    protected final B[] segments;
+    protected final int shift;
+    protected final int mask;
+    private final int length;
+
+    /**
+     * @param segments the buffers, all of 2^shift elements but the last one
+     * @param shift
+     * @param length   the number of elements of all the segments
+     */
+    protected SegmentedArray(B[] segments, int shift, int length) {
+        this.segments = segments;
+        this.shift = shift;
+        this.mask = (1 << shift) - 1;
+        this.length = length;
+    }
+
+    /**
+     * @param length
+     * @param shift
+     * @return the number of segments of 2^shift elements of an array of the given length
+     */
+    static int segmentCount(int length, int shift) {
+        return (int) (((long) length + (1L << shift) - 1) >>> shift);
+    }
+
+    /**
+     * @param length
+     * @param shift
+     * @param k
+     * @return the number of elements of the segment k of an array of the given length
+     */
+    static int segmentLength(int length, int shift, int k) {
+        return (int) Math.min(length - ((long) k << shift), 1L << shift);
+    }
+
+    /**
+     * @return the number of elements
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Copies the elements into another array of the same length, such as a mapping opened for writing.
+     * The two arrays can be split in segments of different sizes.
+     *
+     * @param target
+     */
+    void copyTo(SegmentedArray<B> target) {
+        int i = 0;
+        while (i < length) {
+            int from = i & mask;
+            int to = i & target.mask;
+            //Copies up to the end of the current segment of either array
+            int count = Math.min(segmentLength(length, shift, i >>> shift) - from,
+                    segmentLength(length, target.shift, i >>> target.shift) - to);
+            transfer(segments[i >>> shift], from, target.segments[i >>> target.shift], to, count);
+            i += count;
+        }
+    }
+
+    /**
+     * Copies count elements from a buffer to another one, without changing their positions
+     *
+     * @param source
+     * @param from   the position of the first element in source
+     * @param target
+     * @param to     the position of the first element in target
+     * @param count
+     */
+    protected abstract void transfer(B source, int from, B target, int to, int count);
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package upo.graphimpl;
+
+import upo.graph.Vertex;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Assigns to each vertex of a graph a dense integer id, so that the graphs can store
+ * their structures in arrays indexed by id.
+ * The lookup from a vertex to its id is a hash lookup on the vertex, whose hash is the cached hash of the label.
+ * The ids of the removed vertices are reused by the next insertions, so every id
+ * is lower than bound() and bound() never exceeds the largest number of vertices the graph had.
+ * The vertices are iterated in order of id: this is the insertion order only as long as no vertex is removed,
+ * as a vertex added after a removal takes the last id freed.
+ */
+class VertexIndex implements Iterable<Vertex> {
+    private HashMap<Vertex, Integer> ids;
+    private Vertex[] vertices;
+    private int[] freeIds;
+    private int freeCount;
+    private int bound;
+
+    /**
+     * Initializes an empty index
+     */
+    VertexIndex() {
+        this(16);
+    }
+
+    /**
+     * Initializes an empty index with room for the given number of vertices
+     *
+     * @param capacity
+     */
+    VertexIndex(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ids = new HashMap<Vertex, Integer>(capacity * 4 / 3 + 1);
+        vertices = new Vertex[capacity];
+        freeIds = new int[16];
+    }
+
+    /**
+     * Assigns an id to v.
+     *
+     * @param v
+     * @return the id of v, or -1 if v is already in the index
+     */
+    int add(Vertex v) {
+        if (ids.containsKey(v))
+            return -1;
+        int id;
+        if (freeCount > 0)
+            id = freeIds[--freeCount];
+        else {
+            if (bound == vertices.length)
+                vertices = Arrays.copyOf(vertices, bound * 2);
+            id = bound++;
+        }
+        vertices[id] = v;
+        ids.put(v, id);
+        return id;
+    }
+
+    /**
+     * Returns the id of v.
+     * if v is null or is not in the index returns -1.
+     *
+     * @param v
+     * @return the id of v
+     */
+    int indexOf(Vertex v) {
+        if (v == null)
+            return -1;
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Removes v from the index, its id will be given to a next vertex.
+     *
+     * @param v
+     * @return the id v had, or -1 if v is not in the index
+     */
+    int remove(Vertex v) {
+        int id = indexOf(v);
+        if (id < 0)
+            return -1;
+        ids.remove(v);
+        vertices[id] = null;
+        if (freeCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+        return id;
+    }
+
+    /**
+     * @param id
+     * @return the vertex with the given id, null if the id is free
+     */
+    Vertex get(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * @param id
+     * @return true if the id belongs to a vertex
+     */
+    boolean isUsed(int id) {
+        return id >= 0 && id < bound && vertices[id] != null;
+    }
+
+    /**
+     * @return the number of vertices in the index
+     */
+    int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return an upper bound (exclusive) of the ids in use
+     */
+    int bound() {
+        return bound;
+    }
+
+    /**
+     * Returns an unmodifiable set backed by the index: it follows the later changes,
+     * its size is the size of the index and contains is a hash lookup.
+     *
+     * @return a set view of the vertices in the index
+     */
+    Set<Vertex> asSet() {
+        return new AbstractSet<Vertex>() {
+            @Override
+            public Iterator<Vertex> iterator() {
+                return VertexIndex.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return ids.containsKey(o);
+            }
+        };
+    }
+
+    /**
+     * Iterates over the vertices in order of id, which is not the insertion order after a removal
+     */
+    @Override
+    public Iterator<Vertex> iterator() {
+        return new Iterator<Vertex>() {
+            private int next = skipFree(0);
+
+            private int skipFree(int id) {
+                while (id < bound && vertices[id] == null)
+                    id++;
+                return id;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < bound;
+            }
+
+            @Override
+            public Vertex next() {
+                if (next >= bound)
+                    throw new NoSuchElementException();
+                Vertex v = vertices[next];
+                next = skipFree(next + 1);
+                return v;
+            }
+        };
+    }
+}
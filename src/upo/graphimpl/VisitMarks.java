@@ -0,0 +1,84 @@
+package upo.graphimpl;
+
+import java.util.Arrays;
+
+/**
+ * The colors of the vertices during a visit, indexed by vertex id.
+ * Each vertex keeps the stamp of the last visit that colored it: a stamp older than
+ * the current visit means white, so making every vertex white again is a counter increment
+ * instead of a pass over all the vertices.
+ */
+class VisitMarks {
+    //stamps[id] == epoch means grey, epoch + 1 means black, anything lower means white
+    private int[] stamps;
+    private int epoch = 2;
+
+    /**
+     * Initializes the marks with room for the given number of ids, all white
+     *
+     * @param capacity
+     */
+    VisitMarks(int capacity) {
+        stamps = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Makes room for the ids lower than bound, the new ids are white.
+     *
+     * @param bound
+     */
+    void ensureCapacity(int bound) {
+        if (bound > stamps.length)
+            stamps = Arrays.copyOf(stamps, Math.max(bound, stamps.length * 2));
+    }
+
+    /**
+     * Sets every id to white by starting a new epoch.
+     * The stamps are really cleared only when the epoch counter runs out.
+     */
+    void clear() {
+        if (epoch >= Integer.MAX_VALUE - 2) {
+            Arrays.fill(stamps, 0);
+            epoch = 2;
+        } else
+            epoch += 2;
+    }
+
+    /**
+     * @param id
+     * @return the color of the id
+     */
+    Colors get(int id) {
+        int stamp = stamps[id];
+        if (stamp == epoch)
+            return Colors.GREY;
+        if (stamp == epoch + 1)
+            return Colors.BLACK;
+        return Colors.WHITE;
+    }
+
+    /**
+     * @param id
+     * @return true if the id has not been discovered in the current epoch
+     */
+    boolean isWhite(int id) {
+        return stamps[id] < epoch;
+    }
+
+    /**
+     * @param id
+     * @param color the new color of the id
+     */
+    void set(int id, Colors color) {
+        switch (color) {
+            case GREY:
+                stamps[id] = epoch;
+                break;
+            case BLACK:
+                stamps[id] = epoch + 1;
+                break;
+            default:
+                stamps[id] = 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package upo.graphimpl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * A square matrix of doubles stored row-major outside of the Java heap, in direct buffers.
+ * A single direct buffer cannot exceed 2 GB, so the rows are split in bands of at most
+ * BAND_DOUBLES doubles, each in its own buffer.
+ */
+class WeightMatrix {
+    private static final int BAND_DOUBLES = 1 << 27;
+
+    private final int size;
+    private final int bandRows;
+    private final DoubleBuffer[] bands;
+
+    /**
+     * Allocates a size x size matrix with every cell set to value.
+     *
+     * @param size
+     * @param value
+     */
+    WeightMatrix(int size, double value) {
+        this.size = size;
+        bandRows = Math.max(1, BAND_DOUBLES / Math.max(size, 1));
+        bands = new DoubleBuffer[(size + bandRows - 1) / bandRows];
+        double[] chunk = new double[Math.min(Math.max(size, 1) * bandRows, 1 << 12)];
+        Arrays.fill(chunk, value);
+        for (int b = 0; b < bands.length; b++) {
+            int doubles = Math.min(bandRows, size - b * bandRows) * size;
+            bands[b] = ByteBuffer.allocateDirect(doubles * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            for (int i = 0; i < doubles; i += chunk.length)
+                bands[b].put(chunk, 0, Math.min(chunk.length, doubles - i));
+            bands[b].clear();
+        }
+    }
+
+    /**
+     * @return the number of rows (and columns) of the matrix
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param s row
+     * @return the buffer holding the row s
+     */
+    DoubleBuffer band(int s) {
+        return bands[s / bandRows];
+    }
+
+    /**
+     * @param s row
+     * @return the position of the row s in its buffer
+     */
+    int offset(int s) {
+        return (s % bandRows) * size;
+    }
+
+    double get(int s, int t) {
+        return band(s).get(offset(s) + t);
+    }
+
+    void set(int s, int t, double value) {
+        band(s).put(offset(s) + t, value);
+    }
+
+    /**
+     * Sets every cell of the row s and of the column s to value.
+     *
+     * @param s
+     * @param value
+     */
+    void fillCross(int s, double value) {
+        DoubleBuffer row = band(s);
+        int offset = offset(s);
+        for (int t = 0; t < size; t++) {
+            row.put(offset + t, value);
+            set(t, s, value);
+        }
+    }
+
+    /**
+     * Copies the matrix into a new one of the given size: the common rows and columns
+     * are copied with bulk transfers, the new cells are set to value.
+     *
+     * @param newSize
+     * @param value
+     * @return the new matrix
+     */
+    WeightMatrix resize(int newSize, double value) {
+        WeightMatrix resized = new WeightMatrix(newSize, value);
+        int n = Math.min(size, newSize);
+        for (int s = 0; s < n; s++) {
+            DoubleBuffer row = band(s).duplicate();
+            row.limit(offset(s) + n).position(offset(s));
+            DoubleBuffer target = resized.band(s).duplicate();
+            target.position(resized.offset(s));
+            target.put(row);
+        }
+        return resized;
+    }
+
+    /**
+     * @param n
+     * @return the n x n top left corner of the matrix in an array
+     */
+    double[][] toArray(int n) {
+        double[][] array = new double[n][n];
+        for (int s = 0; s < n; s++) {
+            DoubleBuffer row = band(s).duplicate();
+            row.position(offset(s));
+            row.get(array[s], 0, n);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,218 @@
+package upo.graphtests;
+
+import org.junit.Test;
+import upo.graph.Edge;
+import upo.graphimpl.ConcurrentDirectedGraphAdjList;
+import upo.graphimpl.EdgeImpl;
+import upo.graphimpl.VertexImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static upo.graph.SearchType.BFS;
+import static upo.graph.SearchType.DIJKSTRA;
+
+public class ConcurrentDirectedGraphAdjListTest {
+    private ConcurrentDirectedGraphAdjList graph;
+
+    public ConcurrentDirectedGraphAdjListTest() {
+        graph = new ConcurrentDirectedGraphAdjList();
+    }
+
+    @Test
+    public void addVertexTest() {
+        //Tests exception
+        assertThrows(NullPointerException.class, () -> {
+            graph.addVertex(null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ConcurrentDirectedGraphAdjList(-1);
+        });
+
+        VertexImpl v0 = new VertexImpl("A", graph);
+        assertTrue(graph.addVertex(v0));
+        assertFalse(graph.addVertex(v0));
+        assertFalse(graph.addVertex(new VertexImpl("A", graph)));
+        assertTrue(graph.addVertex(new VertexImpl("B", graph)));
+
+        assertEquals(2, graph.vertexSet().size());
+        assertTrue(graph.containsVertex(new VertexImpl("A", graph)));
+        assertFalse(graph.containsVertex(null));
+    }
+
+    @Test
+    public void edgeTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.addEdge(v0, new VertexImpl("D", graph));
+        });
+
+        assertNotNull(graph.addEdge(v0, v1));
+        assertNull(graph.addEdge(v0, v1));
+        assertNotNull(graph.addEdge(v1, v2));
+        assertNotNull(graph.addEdge(v2, v2));
+        assertNotNull(graph.addEdge(v2, v0));
+        assertTrue(graph.containsEdge(v0, v1));
+        assertFalse(graph.containsEdge(v1, v0));
+        assertEquals(4, graph.edgeSet().size());
+        assertEquals(1, graph.inDegreeOf(v2));
+        assertEquals(2, graph.outDegreeOf(v2));
+        assertEquals(3, graph.degreeOf(v2));
+
+        assertNotNull(graph.removeEdge(v0, v1));
+        assertNull(graph.removeEdge(v0, v1));
+        assertEquals(0, graph.inDegreeOf(v1));
+
+        assertTrue(graph.removeVertex(v2));
+        assertFalse(graph.removeVertex(v2));
+        assertEquals(0, graph.edgeSet().size());
+        assertEquals(0, graph.outDegreeOf(v1));
+        assertEquals(0, graph.inDegreeOf(v0));
+
+        //A vertex added again after its removal starts with no edges
+        graph.addVertex(v2);
+        assertEquals(0, graph.degreeOf(v2));
+        assertFalse(graph.containsEdge(v1, v2));
+
+        int count = 0;
+        graph.addEdge(v0, v2);
+        for (Edge e : graph.edgeSet())
+            count++;
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void batchTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        VertexImpl v1 = new VertexImpl("B", graph);
+        VertexImpl v2 = new VertexImpl("C", graph);
+        assertEquals(3, graph.addVertices(Arrays.asList(v0, v1, v2, v1)));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.addEdges(Arrays.asList(new EdgeImpl(v0, v1, graph), new EdgeImpl(v0, new VertexImpl("F", graph), graph)));
+        });
+        assertEquals(0, graph.edgeSet().size());
+
+        assertNotNull(graph.addEdge(v0, v1));
+        assertEquals(3, graph.addEdges(Arrays.asList(
+                new EdgeImpl(v0, v2, graph),
+                new EdgeImpl(v0, v1, graph),
+                new EdgeImpl(v1, v2, graph),
+                new EdgeImpl(v2, v2, graph),
+                new EdgeImpl(v0, v2, graph))));
+        assertEquals(4, graph.edgeSet().size());
+        assertEquals(2, graph.outDegreeOf(v0));
+        assertEquals(2, graph.inDegreeOf(v2));
+
+        assertEquals(2, graph.removeEdges(Arrays.asList(new EdgeImpl(v0, v2, graph), new EdgeImpl(v2, v2, graph), new EdgeImpl(v2, v0, graph))));
+        assertEquals(2, graph.edgeSet().size());
+        assertEquals(1, graph.inDegreeOf(v2));
+    }
+
+    @Test
+    public void algorithmsTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+
+        VertexImpl v4 = new VertexImpl("E", graph);
+        graph.addVertex(v4);
+
+        VertexImpl v5 = new VertexImpl("F", graph);
+        graph.addVertex(v5);
+
+        assertNotNull(graph.addEdge(v0, v1));
+        assertNotNull(graph.addEdge(v0, v2));
+        assertNotNull(graph.addEdge(v2, v3));
+        assertNotNull(graph.addEdge(v4, v0));
+        assertNotNull(graph.addEdge(v0, v5));
+
+        //The algorithms number the vertices in order of insertion
+        VertexImpl[] a = {v4, v0, v1, v2, v5, v3};
+        assertArrayEquals(a, graph.topologicalSort());
+        assertFalse(graph.isCyclic());
+        assertEquals(3.0, graph.visit(BFS).getDistance(v3), 0);
+        assertEquals(3.0, graph.parallelBFS(v4).getDistance(v3), 0);
+        assertEquals(v0, graph.parallelBFS(v4).getParentOf(v5));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.visit(DIJKSTRA);
+        });
+
+        graph.addEdge(v3, v4);
+        assertTrue(graph.isCyclic());
+        assertEquals("{{A,C,D,E},{B},{F}}", graph.toStringSCC());
+    }
+
+    @Test
+    public void concurrentIngestTest() throws Exception {
+        int threads = 8;
+        int perThread = 400;
+        VertexImpl hub = new VertexImpl("hub", graph);
+        graph.addVertex(hub);
+
+        //Every thread adds its vertices, links them to the hub and in a chain, then removes every fourth one
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                VertexImpl previous = hub;
+                for (int i = 0; i < perThread; i++) {
+                    VertexImpl v = new VertexImpl(thread + "-" + i, graph);
+                    graph.addVertex(v);
+                    graph.addEdge(hub, v);
+                    graph.addEdge(previous, v);
+                    if (!graph.containsEdge(hub, v) || graph.outDegreeOf(hub) < i + 1)
+                        return false;
+                    previous = v;
+                }
+                for (int i = 0; i < perThread; i += 4)
+                    graph.removeVertex(new VertexImpl(thread + "-" + i, graph));
+                return true;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        //Each thread keeps 3/4 of its vertices: their edges from the hub and the chain edges between two kept vertices
+        int kept = threads * perThread * 3 / 4;
+        assertEquals(kept + 1, graph.vertexSet().size());
+        assertEquals(kept, graph.outDegreeOf(hub));
+        int chain = threads * (perThread / 4) * 2;
+        assertEquals(kept + chain, graph.edgeSet().size());
+        int count = 0;
+        for (Edge e : graph.edgeSet())
+            count++;
+        assertEquals(kept + chain, count);
+        assertEquals(2, graph.inDegreeOf(new VertexImpl("0-2", graph)));
+        assertEquals(1, graph.inDegreeOf(new VertexImpl("0-1", graph)));
+        assertFalse(graph.isCyclic());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package upo.graphtests;
+
+import org.junit.Test;
+import upo.graph.Vertex;
+import upo.graphimpl.ConcurrentGraph;
+import upo.graphimpl.DirectedGraphAdjList;
+import upo.graphimpl.DirectedWeightedGraphAdjMatr;
+import upo.graphimpl.VertexImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static upo.graph.SearchType.BFS;
+
+public class ConcurrentGraphTest {
+    private ConcurrentGraph graph;
+
+    public ConcurrentGraphTest() {
+        graph = new ConcurrentGraph(new DirectedGraphAdjList());
+    }
+
+    @Test
+    public void delegateTest() {
+        assertThrows(NullPointerException.class, () -> {
+            new ConcurrentGraph(null);
+        });
+
+        VertexImpl v0 = new VertexImpl("A", graph);
+        VertexImpl v1 = new VertexImpl("B", graph);
+        VertexImpl v2 = new VertexImpl("C", graph);
+        assertTrue(graph.addVertex(v0));
+        assertTrue(graph.addVertex(v1));
+        assertTrue(graph.addVertex(v2));
+        assertFalse(graph.addVertex(v0));
+
+        assertNotNull(graph.addEdge(v0, v1));
+        assertNotNull(graph.addEdge(v1, v2));
+        assertTrue(graph.containsEdge(v0, v1));
+        assertFalse(graph.containsEdge(v1, v0));
+        assertEquals(1, graph.inDegreeOf(v1));
+        assertEquals(2, graph.degreeOf(v1));
+        assertEquals(3, graph.vertexSet().size());
+        assertEquals(2, graph.edgeSet().size());
+        assertFalse(graph.isCyclic());
+        assertArrayEquals(new Vertex[]{v0, v1, v2}, graph.topologicalSort());
+
+        //The exceptions of the wrapped graph reach the caller
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.outDegreeOf(new VertexImpl("D", graph));
+        });
+
+        assertNotNull(graph.removeEdge(v0, v1));
+        assertTrue(graph.removeVertex(v2));
+        assertEquals(0, graph.edgeSet().size());
+        assertEquals("{{A},{B}}", graph.toStringSCC());
+    }
+
+    @Test
+    public void weightTest() {
+        ConcurrentGraph weighted = new ConcurrentGraph(new DirectedWeightedGraphAdjMatr());
+        VertexImpl v0 = new VertexImpl("A", weighted);
+        VertexImpl v1 = new VertexImpl("B", weighted);
+        weighted.addVertex(v0);
+        weighted.addVertex(v1);
+        weighted.addEdge(v0, v1);
+        weighted.setEdgeWeight(v0, v1, 3);
+        assertEquals(3, weighted.getEdgeWeight(v0, v1), 0);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        int threads = 4;
+        int perThread = 500;
+        VertexImpl hub = new VertexImpl("hub", graph);
+        graph.addVertex(hub);
+
+        //Writers add their own vertices and link them to the hub while readers look the edges up
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    VertexImpl v = new VertexImpl(thread + "-" + i, graph);
+                    graph.addVertex(v);
+                    graph.addEdge(hub, v);
+                    if (!graph.containsEdge(hub, v))
+                        return false;
+                }
+                return true;
+            });
+            tasks.add(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    VertexImpl v = new VertexImpl(thread + "-" + i, graph);
+                    if (graph.containsEdge(v, hub) || graph.outDegreeOf(hub) > threads * perThread)
+                        return false;
+                    if (i % 50 == 0 && graph.visit(BFS).getSource() != hub)
+                        return false;
+                }
+                return true;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * perThread, graph.outDegreeOf(hub));
+        assertEquals(threads * perThread + 1, graph.vertexSet().size());
+        assertEquals(threads * perThread, graph.edgeSet().size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,462 @@
+package upo.graphtests;
+
+import org.junit.Test;
+import upo.graph.Graph;
+import upo.graph.GraphSearchResult;
+import upo.graph.Vertex;
+import upo.graphimpl.CsrGraph;
+import upo.graphimpl.DirectedGraphAdjList;
+import upo.graphimpl.DirectedGraphAdjMatr;
+import upo.graphimpl.DirectedWeightedGraphAdjMatr;
+import upo.graphimpl.VertexImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static upo.graph.SearchType.*;
+
+public class CsrGraphTest {
+    private DirectedGraphAdjList graph;
+    private VertexImpl v0, v1, v2, v3;
+
+    public CsrGraphTest() {
+        graph = new DirectedGraphAdjList();
+        v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+        v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+        v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+        v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v0, v2);
+        graph.addEdge(v1, v2);
+        graph.addEdge(v1, v3);
+        graph.addEdge(v2, v3);
+    }
+
+    @Test
+    public void containsTest() {
+        CsrGraph snapshot = new CsrGraph(graph);
+
+        assertEquals(4, snapshot.vertexSet().size());
+        assertEquals(5, snapshot.edgeSet().size());
+        assertTrue(snapshot.containsVertex(new VertexImpl("C", graph)));
+        assertFalse(snapshot.containsVertex(new VertexImpl("F", graph)));
+        assertFalse(snapshot.containsVertex(null));
+        assertTrue(snapshot.containsEdge(v1, v3));
+        assertFalse(snapshot.containsEdge(v3, v1));
+        assertFalse(snapshot.containsEdge(v0, new VertexImpl("F", graph)));
+    }
+
+    @Test
+    public void degreeOfTest() {
+        CsrGraph snapshot = new CsrGraph(graph);
+
+        assertEquals(2, snapshot.outDegreeOf(v0));
+        assertEquals(0, snapshot.inDegreeOf(v0));
+        assertEquals(2, snapshot.inDegreeOf(v3));
+        assertEquals(3, snapshot.degreeOf(v2));
+    }
+
+    @Test
+    public void selfLoopDegreeTest() {
+        graph.addEdge(v2, v2);
+        DirectedGraphAdjMatr matr = new DirectedGraphAdjMatr();
+        for (VertexImpl v : new VertexImpl[]{v0, v1, v2, v3})
+            matr.addVertex(v);
+        matr.addEdge(v0, v0);
+        matr.addEdge(v0, v1);
+        matr.addEdge(v1, v0);
+
+        //The snapshot counts the degrees as the graph it is built from
+        for (Graph source : new Graph[]{graph, matr}) {
+            CsrGraph snapshot = new CsrGraph(source);
+            for (VertexImpl v : new VertexImpl[]{v0, v1, v2, v3}) {
+                assertEquals(source.inDegreeOf(v), snapshot.inDegreeOf(v));
+                assertEquals(source.outDegreeOf(v), snapshot.outDegreeOf(v));
+                assertEquals(source.degreeOf(v), snapshot.degreeOf(v));
+            }
+            VertexImpl missing = new VertexImpl("F", graph);
+            assertEquals(source.inDegreeOf(missing), snapshot.inDegreeOf(missing));
+            //The self loop still makes the snapshot cyclic
+            assertTrue(snapshot.isCyclic());
+        }
+        assertEquals(2, new CsrGraph(graph).inDegreeOf(v2));
+    }
+
+    @Test
+    public void immutableTest() {
+        CsrGraph snapshot = new CsrGraph(graph);
+
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.addVertex(new VertexImpl("E", graph));
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.addEdge(v3, v0);
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.removeVertex(v0);
+        });
+
+        //Later changes to the source graph do not reach the snapshot
+        graph.addEdge(v3, v0);
+        assertFalse(snapshot.containsEdge(v3, v0));
+    }
+
+    @Test
+    public void fromMatrixTest() {
+        DirectedGraphAdjMatr matr = new DirectedGraphAdjMatr();
+        VertexImpl a = new VertexImpl("A", matr);
+        matr.addVertex(a);
+        VertexImpl b = new VertexImpl("B", matr);
+        matr.addVertex(b);
+        matr.addEdge(a, b);
+
+        CsrGraph snapshot = new CsrGraph(matr);
+        assertTrue(snapshot.containsEdge(a, b));
+        assertEquals(1.0, snapshot.getEdgeWeight(a, b), 0);
+        assertEquals(1, snapshot.edgeSet().size());
+    }
+
+    @Test
+    public void visitTest() {
+        CsrGraph snapshot = new CsrGraph(graph);
+
+        GraphSearchResult treeBFS = snapshot.visit(BFS);
+        assertEquals(v0, treeBFS.getSource());
+        assertEquals(1.0, treeBFS.getDistance(v1), 0);
+        assertEquals(2.0, treeBFS.getDistance(v3), 0);
+        assertEquals(v0, treeBFS.getParentOf(v2));
+
+        GraphSearchResult treeDFS_TOT = snapshot.visit(DFS_TOT);
+        assertEquals(3, treeDFS_TOT.getStartTime(v2));
+        assertEquals(v1, treeDFS_TOT.getParentOf(v2));
+
+        GraphSearchResult fromC = snapshot.visit(BFS, v2);
+        assertEquals(1.0, fromC.getDistance(v3), 0);
+        assertEquals(Double.POSITIVE_INFINITY, fromC.getDistance(v0), 0);
+
+        GraphSearchResult fromB = snapshot.visit(DFS, v1);
+        assertEquals(1, fromB.getStartTime(v1));
+        assertEquals(-1, fromB.getStartTime(v0));
+
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.visit(DIJKSTRA);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            snapshot.visit(BFS, new VertexImpl("F", graph));
+        });
+    }
+
+    @Test
+    public void directionOptimizingBFSTest() {
+        //A random graph of low diameter, whose middle levels are visited bottom-up, and a long tail visited top-down
+        int n = 3000, tail = 50;
+        Random random = new Random(42);
+        VertexImpl[] v = new VertexImpl[n + tail];
+        for (int i = 0; i < n + tail; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        List<List<Integer>> adjacency = new ArrayList<>();
+        for (int i = 0; i < n + tail; i++)
+            adjacency.add(new ArrayList<>());
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < 8; k++) {
+                int j = random.nextInt(n);
+                if (graph.addEdge(v[i], v[j]) != null)
+                    adjacency.get(i).add(j);
+            }
+        for (int i = n - 1; i < n + tail - 1; i++) {
+            graph.addEdge(v[i], v[i + 1]);
+            adjacency.get(i).add(i + 1);
+        }
+
+        //The distances of a plain breadth first visit
+        int[] expected = new int[n + tail];
+        Arrays.fill(expected, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        expected[0] = 0;
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int next : adjacency.get(current))
+                if (expected[next] < 0) {
+                    expected[next] = expected[current] + 1;
+                    queue.add(next);
+                }
+        }
+
+        CsrGraph snapshot = new CsrGraph(graph);
+        GraphSearchResult tree = snapshot.visit(BFS, v[0]);
+        for (int i = 0; i < n + tail; i++) {
+            if (expected[i] < 0) {
+                assertEquals(Double.POSITIVE_INFINITY, tree.getDistance(v[i]), 0);
+                continue;
+            }
+            assertEquals(expected[i], tree.getDistance(v[i]), 0);
+            //The parent is a predecessor in the previous level
+            Vertex parent = tree.getParentOf(v[i]);
+            if (i == 0) {
+                assertNull(parent);
+            } else {
+                assertTrue(graph.containsEdge(parent, v[i]));
+                assertEquals(expected[i] - 1, tree.getDistance(parent), 0);
+            }
+        }
+    }
+
+    @Test
+    public void parallelBFSTest() {
+        //Enough vertices for many chunks in the middle levels
+        int n = 20000;
+        Random random = new Random(7);
+        VertexImpl[] v = new VertexImpl[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < 4; k++)
+                graph.addEdge(v[i], v[random.nextInt(n)]);
+        CsrGraph snapshot = new CsrGraph(graph);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            GraphSearchResult expected = snapshot.visit(BFS, v[0]);
+            GraphSearchResult tree = snapshot.parallelBFS(Collections.singletonList(v[0]), pool);
+            assertEquals(v[0], tree.getSource());
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected.getDistance(v[i]), tree.getDistance(v[i]), 0);
+                if (i == 0 || tree.getDistance(v[i]) == Double.POSITIVE_INFINITY)
+                    continue;
+                //The parent is a predecessor in the previous level
+                Vertex parent = tree.getParentOf(v[i]);
+                assertTrue(snapshot.containsEdge(parent, v[i]));
+                assertEquals(tree.getDistance(v[i]) - 1, tree.getDistance(parent), 0);
+            }
+            assertNull(tree.getParentOf(v[0]));
+            //The vertices of the fixture are not reachable from V0
+            assertEquals(Double.POSITIVE_INFINITY, tree.getDistance(v0), 0);
+
+            GraphSearchResult fromBoth = snapshot.parallelBFS(Arrays.asList(v1, v0), pool);
+            assertEquals(v1, fromBoth.getSource());
+            assertEquals(1.0, fromBoth.getDistance(v3), 0);
+            assertEquals(v1, fromBoth.getParentOf(v3));
+            assertNull(fromBoth.getParentOf(v0));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(2.0, snapshot.parallelBFS(v0).getDistance(v3), 0);
+        assertThrows(IllegalArgumentException.class, () -> {
+            snapshot.parallelBFS(new VertexImpl("F", graph));
+        });
+    }
+
+    @Test
+    public void dijkstraTest() {
+        DirectedWeightedGraphAdjMatr matr = new DirectedWeightedGraphAdjMatr();
+        VertexImpl a = new VertexImpl("A", matr);
+        matr.addVertex(a);
+        VertexImpl b = new VertexImpl("B", matr);
+        matr.addVertex(b);
+        VertexImpl c = new VertexImpl("C", matr);
+        matr.addVertex(c);
+        matr.addEdge(a, b, 5);
+        matr.addEdge(a, c, 1);
+        matr.addEdge(c, b, 2);
+
+        CsrGraph snapshot = new CsrGraph(matr);
+        assertEquals(2.0, snapshot.getEdgeWeight(c, b), 0);
+
+        GraphSearchResult treeDIJKSTRA = snapshot.visit(DIJKSTRA);
+        assertEquals(3.0, treeDIJKSTRA.getDistance(b), 0);
+        assertEquals(c, treeDIJKSTRA.getParentOf(b));
+
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.parallelBFS(a);
+        });
+
+        //B is a source too, so it is at distance 0 and has no parent
+        GraphSearchResult fromBoth = snapshot.visit(DIJKSTRA, Arrays.asList(c, b));
+        assertEquals(0.0, fromBoth.getDistance(b), 0);
+        assertNull(fromBoth.getParentOf(b));
+        assertEquals(Double.POSITIVE_INFINITY, fromBoth.getDistance(a), 0);
+    }
+
+    @Test
+    public void isCyclicTest() {
+        assertFalse(new CsrGraph(graph).isCyclic());
+        assertTrue(new CsrGraph(graph).isDAG());
+
+        assertTrue(new CsrGraph(graph).findCycle().isEmpty());
+
+        graph.addEdge(v3, v0);
+
+        assertTrue(new CsrGraph(graph).isCyclic());
+        assertEquals(Arrays.asList(v0, v1, v2, v3), new CsrGraph(graph).findCycle());
+    }
+
+    @Test
+    public void topologicalSortTest() {
+        VertexImpl[] a = {v0, v1, v2, v3};
+
+        assertArrayEquals(a, new CsrGraph(graph).topologicalSort());
+        //B and C are both reached from A, but C has an edge from B
+        Vertex[][] levels = new CsrGraph(graph).topologicalLevels();
+        assertEquals(4, levels.length);
+        assertArrayEquals(new Vertex[]{v2}, levels[2]);
+
+        graph.addEdge(v3, v1);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            new CsrGraph(graph).topologicalSort();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            new CsrGraph(graph).topologicalLevels();
+        });
+    }
+
+    @Test
+    public void toStringSCCTest() {
+        VertexImpl v4 = new VertexImpl("E", graph);
+        graph.addVertex(v4);
+        graph.addEdge(v3, v1);
+        graph.addEdge(v3, v4);
+
+        assertEquals("{{A},{B,C,D},{E}}", new CsrGraph(graph).toStringSCC());
+    }
+
+    @Test
+    public void snapshotFileTest() throws IOException {
+        Path file = Files.createTempFile("graph", ".csr");
+        file.toFile().deleteOnExit();
+        graph.addVertex(new VertexImpl("\u00e9t\u00e9", graph));
+        graph.writeSnapshot(file);
+
+        CsrGraph mapped = CsrGraph.map(file);
+        assertEquals(5, mapped.vertexSet().size());
+        assertEquals(5, mapped.edgeSet().size());
+        assertTrue(mapped.containsVertex(new VertexImpl("\u00e9t\u00e9", graph)));
+        assertFalse(mapped.containsVertex(new VertexImpl("F", graph)));
+        assertTrue(mapped.containsEdge(v1, v3));
+        assertFalse(mapped.containsEdge(v3, v1));
+        assertEquals(2, mapped.inDegreeOf(v3));
+        assertArrayEquals(new CsrGraph(graph).topologicalSort(), mapped.topologicalSort());
+        assertEquals(new CsrGraph(graph).toStringSCC(), mapped.toStringSCC());
+        assertEquals(2.0, mapped.visit(BFS).getDistance(v3), 0);
+        assertSame(mapped, mapped.iterator().next().getGraph());
+
+        //A mapped snapshot can be written again
+        Path copy = Files.createTempFile("graph", ".csr");
+        copy.toFile().deleteOnExit();
+        mapped.write(copy);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+    }
+
+    @Test
+    public void segmentedSnapshotFileTest() throws IOException {
+        //Segments of 4 elements, so that every array of the file spans several mappings
+        int shift = 2;
+        Random random = new Random(3);
+        DirectedWeightedGraphAdjMatr weighted = new DirectedWeightedGraphAdjMatr();
+        VertexImpl[] v = new VertexImpl[30];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, weighted);
+            weighted.addVertex(v[i]);
+            graph.addVertex(v[i]);
+        }
+        for (int k = 0; k < 90; k++) {
+            VertexImpl s = v[random.nextInt(v.length)];
+            VertexImpl t = v[random.nextInt(v.length)];
+            weighted.addEdge(s, t, 1 + random.nextInt(9));
+            graph.addEdge(s, t);
+        }
+
+        Path file = Files.createTempFile("graph", ".csr");
+        file.toFile().deleteOnExit();
+        new CsrGraph(graph).write(file);
+        CsrGraph heap = new CsrGraph(graph);
+        CsrGraph mapped = CsrGraph.map(file, shift);
+        assertEquals(heap.edgeSet().size(), mapped.edgeSet().size());
+        assertEquals(heap.toStringSCC(), mapped.toStringSCC());
+        GraphSearchResult expected = heap.visit(BFS, v[0]);
+        GraphSearchResult tree = mapped.visit(BFS, v[0]);
+        for (VertexImpl u : v) {
+            assertEquals(expected.getDistance(u), tree.getDistance(u), 0);
+            assertEquals(heap.inDegreeOf(u), mapped.inDegreeOf(u));
+        }
+
+        Path weightedFile = Files.createTempFile("graph", ".csr");
+        weightedFile.toFile().deleteOnExit();
+        new CsrGraph(weighted).write(weightedFile);
+        CsrGraph weightedHeap = new CsrGraph(weighted);
+        CsrGraph weightedMapped = CsrGraph.map(weightedFile, shift);
+        assertEquals(weightedHeap.toStringSCC(), weightedMapped.toStringSCC());
+        GraphSearchResult expectedPaths = weightedHeap.visit(DIJKSTRA, v[0]);
+        GraphSearchResult paths = weightedMapped.visit(DIJKSTRA, v[0]);
+        for (VertexImpl u : v) {
+            assertEquals(expectedPaths.getDistance(u), paths.getDistance(u), 0);
+            for (VertexImpl w : v)
+                assertEquals(weightedHeap.getEdgeWeight(u, w), weightedMapped.getEdgeWeight(u, w), 0);
+        }
+
+        //Written again from the small segments into the default ones, the file is the same
+        Path copy = Files.createTempFile("graph", ".csr");
+        copy.toFile().deleteOnExit();
+        weightedMapped.write(copy);
+        assertArrayEquals(Files.readAllBytes(weightedFile), Files.readAllBytes(copy));
+        assertEquals(weightedHeap.toStringSCC(), CsrGraph.map(weightedFile, 0).toStringSCC());
+        assertThrows(IllegalArgumentException.class, () -> {
+            CsrGraph.map(file, 28);
+        });
+    }
+
+    @Test
+    public void weightedSnapshotFileTest() throws IOException {
+        DirectedWeightedGraphAdjMatr weighted = new DirectedWeightedGraphAdjMatr();
+        VertexImpl a = new VertexImpl("A", weighted);
+        VertexImpl b = new VertexImpl("B", weighted);
+        VertexImpl c = new VertexImpl("C", weighted);
+        weighted.addVertex(a);
+        weighted.addVertex(b);
+        weighted.addVertex(c);
+        weighted.addEdge(a, b, 2.5);
+        weighted.addEdge(b, c, -1);
+        weighted.addEdge(a, c, 4);
+
+        Path file = Files.createTempFile("graph", ".csr");
+        file.toFile().deleteOnExit();
+        weighted.writeSnapshot(file);
+        CsrGraph mapped = CsrGraph.map(file);
+        assertEquals(2.5, mapped.getEdgeWeight(a, b), 0);
+        assertEquals(-1, mapped.getEdgeWeight(b, c), 0);
+        assertEquals(1.5, mapped.visit(DIJKSTRA).getDistance(c), 0);
+
+        //Files of other kinds or versions are refused
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7] = 99;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> {
+            CsrGraph.map(file);
+        });
+        Files.write(file, new byte[40]);
+        assertThrows(IOException.class, () -> {
+            CsrGraph.map(file);
+        });
+    }
+}
+
@@ -1,14 +1,33 @@
 package upo.graphtests;
 
 import org.junit.Test;
+import upo.graph.Edge;
 import upo.graph.GraphSearchResult;
+import upo.graph.Vertex;
 import upo.graphimpl.DirectedGraphAdjList;
+import upo.graphimpl.EdgeImpl;
+import upo.graphimpl.EdgeType;
+import upo.graphimpl.GraphSearchResultImpl;
 import upo.graphimpl.VertexImpl;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static upo.graph.SearchType.BFS;
+import static upo.graph.SearchType.DFS;
 import static upo.graph.SearchType.DFS_TOT;
+import static upo.graph.SearchType.DIJKSTRA;
 
 public class DirectedGraphAdjListTest {
     private DirectedGraphAdjList graph;
@@ -47,6 +66,19 @@ public class DirectedGraphAdjListTest {
         assertEquals(graph.vertexSet().size(), 3);
     }
 
+    @Test
+    public void vertexHashTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        VertexImpl otherA = new VertexImpl("A", graph);
+        assertEquals(a, otherA);
+        assertEquals(a.hashCode(), otherA.hashCode());
+
+        //A vertex with the same label is found by the hashed structures
+        graph.addVertex(a);
+        assertTrue(graph.vertexSet().contains(otherA));
+        assertEquals(graph.vertexSet().size(), 1);
+    }
+
     @Test
     public void containsVertexTest() {
         VertexImpl v2 = new VertexImpl("C", graph);
@@ -79,6 +111,23 @@ public class DirectedGraphAdjListTest {
         assertEquals(2, graph.vertexSet().size());
     }
 
+    @Test
+    public void removeThenAddOrderTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        graph.addVertex(a);
+        graph.addVertex(new VertexImpl("B", graph));
+        graph.addVertex(new VertexImpl("C", graph));
+        graph.removeVertex(a);
+        graph.addVertex(new VertexImpl("D", graph));
+
+        //The vertices follow the order of their ids: D takes the id freed by A
+        List<String> labels = new ArrayList<String>();
+        for (Vertex v : graph)
+            labels.add(v.getLabel());
+        assertEquals(Arrays.asList("D", "B", "C"), labels);
+        assertEquals("{{D},{B},{C}}", graph.toStringSCC());
+    }
+
     @Test
     public void vertexSetTest() {
         graph.addVertex(new VertexImpl("A", graph));
@@ -166,6 +215,49 @@ public class DirectedGraphAdjListTest {
         assertEquals(3, graph.edgeSet().size());
     }
 
+    @Test
+    public void edgeSetViewTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        Set<Vertex> vertices = graph.vertexSet();
+        Set<Edge> edges = graph.edgeSet();
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v1, v2);
+        graph.addEdge(v2, v2);
+        graph.addEdge(v2, v0);
+
+        //The views follow the changes of the graph
+        assertEquals(4, edges.size());
+        assertTrue(edges.contains(new EdgeImpl(v1, v2, graph)));
+        assertFalse(edges.contains(new EdgeImpl(v2, v1, graph)));
+        int count = 0;
+        for (Edge e : edges)
+            count++;
+        assertEquals(4, count);
+
+        graph.removeVertex(v2);
+        assertEquals(2, vertices.size());
+        assertFalse(vertices.contains(v2));
+        assertTrue(vertices.contains(new VertexImpl("A", graph)));
+        assertEquals(1, edges.size());
+
+        //The views cannot be modified
+        assertThrows(UnsupportedOperationException.class, () -> {
+            vertices.add(v2);
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            edges.clear();
+        });
+    }
+
     @Test
     public void degreeOfTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -205,6 +297,40 @@ public class DirectedGraphAdjListTest {
         assertEquals(1, graph.inDegreeOf(v0));
     }
 
+    @Test
+    public void degreeUpdateTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v2, v1);
+        graph.addEdge(v1, v1);
+        graph.addEdge(v1, v2);
+        assertEquals(2, graph.inDegreeOf(v1));
+        assertEquals(2, graph.outDegreeOf(v1));
+
+        //The degrees follow the removal of edges and vertices
+        graph.removeEdge(v1, v1);
+        assertEquals(2, graph.inDegreeOf(v1));
+        assertEquals(1, graph.outDegreeOf(v1));
+
+        graph.removeVertex(v2);
+        assertEquals(1, graph.inDegreeOf(v1));
+        assertEquals(0, graph.outDegreeOf(v1));
+        assertEquals(1, graph.outDegreeOf(v0));
+
+        //A vertex taking the place of a removed one starts with no edges
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+        assertEquals(0, graph.degreeOf(v3));
+    }
+
     @Test
     public void outDegreeOf() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -246,6 +372,65 @@ public class DirectedGraphAdjListTest {
         assertNull(graph.removeEdge(v0, new VertexImpl("F", graph)));
     }
 
+    @Test
+    public void batchTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        VertexImpl v1 = new VertexImpl("B", graph);
+        VertexImpl v2 = new VertexImpl("C", graph);
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v0);
+
+        //Vertices already in the graph are skipped, a null one stops the whole batch
+        assertThrows(NullPointerException.class, () -> {
+            graph.addVertices(Arrays.asList(v1, null));
+        });
+        assertEquals(1, graph.vertexSet().size());
+        assertEquals(3, graph.addVertices(Arrays.asList(v0, v1, v2, v3, v3)));
+        assertEquals(4, graph.vertexSet().size());
+
+        assertNotNull(graph.addEdge(v0, v1));
+
+        //A bad edge stops the whole batch
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.addEdges(Arrays.asList(new EdgeImpl(v1, v2, graph), new EdgeImpl(v1, new VertexImpl("F", graph), graph)));
+        });
+        assertThrows(NullPointerException.class, () -> {
+            graph.addEdges(Arrays.asList(new EdgeImpl(v1, v2, graph), null));
+        });
+        assertEquals(1, graph.edgeSet().size());
+
+        //Duplicates, inside the batch or with the graph, are skipped
+        List<EdgeImpl> edges = Arrays.asList(
+                new EdgeImpl(v2, v3, graph),
+                new EdgeImpl(v0, v1, graph),
+                new EdgeImpl(v0, v3, graph),
+                new EdgeImpl(v0, v2, graph),
+                new EdgeImpl(v2, v2, graph),
+                new EdgeImpl(v0, v3, graph));
+        assertEquals(4, graph.addEdges(edges));
+        assertEquals(5, graph.edgeSet().size());
+        assertEquals(3, graph.outDegreeOf(v0));
+        assertEquals(2, graph.inDegreeOf(v3));
+        assertEquals(3, graph.degreeOf(v2));
+
+        //The adjacency lists keep the order of insertion, so D is reached from A before C
+        assertEquals(v0, graph.visit(DFS_TOT).getParentOf(v3));
+
+        assertEquals(3, graph.removeEdges(Arrays.asList(
+                new EdgeImpl(v0, v3, graph),
+                new EdgeImpl(v2, v2, graph),
+                new EdgeImpl(v3, v0, graph),
+                new EdgeImpl(v0, new VertexImpl("F", graph), graph),
+                new EdgeImpl(v0, v1, graph),
+                null)));
+        assertEquals(2, graph.edgeSet().size());
+        assertFalse(graph.containsEdge(v0, v3));
+        assertTrue(graph.containsEdge(v0, v2));
+        assertEquals(1, graph.inDegreeOf(v3));
+        assertEquals(1, graph.outDegreeOf(v0));
+        assertEquals(0, graph.inDegreeOf(v1));
+    }
+
     @Test
     public void getEdgeWeightTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -302,6 +487,232 @@ public class DirectedGraphAdjListTest {
         assertEquals(3, treeDFS_TOT.getStartTime(v2));
     }
 
+    @Test
+    public void directionOptimizingBFSTest() {
+        //A random graph of low diameter, whose middle levels are visited bottom-up, and a long tail visited top-down
+        int n = 3000, tail = 50;
+        Random random = new Random(42);
+        VertexImpl[] v = new VertexImpl[n + tail];
+        for (int i = 0; i < n + tail; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        List<List<Integer>> adjacency = new ArrayList<>();
+        for (int i = 0; i < n + tail; i++)
+            adjacency.add(new ArrayList<>());
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < 8; k++) {
+                int j = random.nextInt(n);
+                if (graph.addEdge(v[i], v[j]) != null)
+                    adjacency.get(i).add(j);
+            }
+        for (int i = n - 1; i < n + tail - 1; i++) {
+            graph.addEdge(v[i], v[i + 1]);
+            adjacency.get(i).add(i + 1);
+        }
+
+        //The distances of a plain breadth first visit
+        int[] expected = new int[n + tail];
+        Arrays.fill(expected, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        expected[0] = 0;
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int next : adjacency.get(current))
+                if (expected[next] < 0) {
+                    expected[next] = expected[current] + 1;
+                    queue.add(next);
+                }
+        }
+
+        GraphSearchResult tree = graph.visit(BFS, v[0]);
+        for (int i = 0; i < n + tail; i++) {
+            if (expected[i] < 0) {
+                assertEquals(Double.POSITIVE_INFINITY, tree.getDistance(v[i]), 0);
+                continue;
+            }
+            assertEquals(expected[i], tree.getDistance(v[i]), 0);
+            //The parent is a predecessor in the previous level
+            Vertex parent = tree.getParentOf(v[i]);
+            if (i == 0) {
+                assertNull(parent);
+            } else {
+                assertTrue(graph.containsEdge(parent, v[i]));
+                assertEquals(expected[i] - 1, tree.getDistance(parent), 0);
+            }
+        }
+    }
+
+    @Test
+    public void visitSourceTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        VertexImpl b = new VertexImpl("B", graph);
+        VertexImpl c = new VertexImpl("C", graph);
+        VertexImpl d = new VertexImpl("D", graph);
+        VertexImpl e = new VertexImpl("E", graph);
+        VertexImpl f = new VertexImpl("F", graph);
+        for (VertexImpl v : new VertexImpl[]{a, b, c, d, e, f})
+            graph.addVertex(v);
+        graph.addEdge(a, b);
+        graph.addEdge(b, c);
+        graph.addEdge(d, c);
+        graph.addEdge(c, f);
+
+        GraphSearchResult fromA = graph.visit(BFS, a);
+        assertEquals(2.0, fromA.getDistance(c), 0);
+        assertEquals(Double.POSITIVE_INFINITY, fromA.getDistance(d), 0);
+
+        //Every source is at distance 0, C is reached from D
+        GraphSearchResult fromBoth = graph.visit(BFS, Arrays.asList(a, d));
+        assertEquals(a, fromBoth.getSource());
+        assertEquals(1.0, fromBoth.getDistance(c), 0);
+        assertEquals(2.0, fromBoth.getDistance(f), 0);
+        assertEquals(d, fromBoth.getParentOf(c));
+        assertNull(fromBoth.getParentOf(d));
+
+        //A single source DFS reaches only the vertices reachable from it
+        GraphSearchResult fromB = graph.visit(DFS, b);
+        assertEquals(1, fromB.getStartTime(b));
+        assertEquals(3, fromB.getStartTime(f));
+        assertEquals(6, fromB.getEndTime(b));
+        assertEquals(-1, fromB.getStartTime(a));
+
+        //DFS_TOT goes on from the vertices not discovered yet
+        GraphSearchResult total = graph.visit(DFS_TOT, b);
+        assertEquals(7, total.getStartTime(a));
+        assertNull(total.getParentOf(a));
+        assertEquals(12, total.getEndTime(e));
+
+        assertThrows(NullPointerException.class, () -> {
+            graph.visit(BFS, (Vertex) null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.visit(BFS, new VertexImpl("Z", graph));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.visit(DFS, Collections.emptyList());
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.visit(DIJKSTRA, a);
+        });
+    }
+
+    @Test
+    public void DFSEdgeTypeTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        VertexImpl b = new VertexImpl("B", graph);
+        VertexImpl c = new VertexImpl("C", graph);
+        VertexImpl d = new VertexImpl("D", graph);
+        VertexImpl e = new VertexImpl("E", graph);
+        for (VertexImpl v : new VertexImpl[]{a, b, c, d, e})
+            graph.addVertex(v);
+        graph.addEdge(a, b);
+        graph.addEdge(a, c);
+        graph.addEdge(a, d);
+        graph.addEdge(b, c);
+        graph.addEdge(c, b);
+        graph.addEdge(d, c);
+
+        GraphSearchResultImpl tree = (GraphSearchResultImpl) graph.visit(DFS_TOT);
+        assertEquals(1, tree.getStartTime(a));
+        assertEquals(3, tree.getStartTime(c));
+        assertEquals(4, tree.getEndTime(c));
+        assertEquals(8, tree.getEndTime(a));
+        assertEquals(EdgeType.TREE, tree.getEdgeType(a, b));
+        assertEquals(EdgeType.TREE, tree.getEdgeType(b, c));
+        assertEquals(EdgeType.BACK, tree.getEdgeType(c, b));
+        assertEquals(EdgeType.FORWARD, tree.getEdgeType(a, c));
+        assertEquals(EdgeType.CROSS, tree.getEdgeType(d, c));
+        assertThrows(IllegalArgumentException.class, () -> {
+            tree.getEdgeType(c, a);
+        });
+
+        //E, which no edge reaches, starts a second tree of the forest
+        assertEquals(9, tree.getStartTime(e));
+        assertEquals(10, tree.getEndTime(e));
+        assertNull(tree.getParentOf(e));
+    }
+
+    @Test
+    public void deepDFSTest() {
+        //A path deeper than the call stack allows
+        int n = 200000;
+        VertexImpl[] v = new VertexImpl[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        for (int i = 0; i < n - 1; i++)
+            graph.addEdge(v[i], v[i + 1]);
+
+        GraphSearchResult tree = graph.visit(DFS_TOT);
+        assertEquals(n, tree.getStartTime(v[n - 1]));
+        assertEquals(n + 1, tree.getEndTime(v[n - 1]));
+        assertEquals(2 * n, tree.getEndTime(v[0]));
+        assertEquals(v[n - 2], tree.getParentOf(v[n - 1]));
+    }
+
+    @Test
+    public void repeatedVisitTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v1, v2);
+
+        //Every visit starts with all the vertices white, whatever the previous visits left
+        for (int i = 0; i < 1000; i++) {
+            GraphSearchResult treeBFS = graph.visit(BFS);
+            assertEquals(2.0, treeBFS.getDistance(v2), 0);
+            assertFalse(graph.isCyclic());
+        }
+
+        graph.addEdge(v2, v0);
+        assertTrue(graph.isCyclic());
+        assertEquals(3, graph.visit(DFS_TOT).getStartTime(v2));
+    }
+
+    @Test
+    public void concurrentReadTest() throws Exception {
+        //A tree where every vertex i has the children 2i + 1 and 2i + 2
+        VertexImpl[] v = new VertexImpl[300];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        for (int i = 1; i < v.length; i++)
+            graph.addEdge(v[(i - 1) / 2], v[i]);
+
+        //Threads running algorithms on the same graph do not see each other's visit state
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++)
+            tasks.add(() -> {
+                for (int i = 0; i < 20; i++) {
+                    if (graph.isCyclic() || graph.topologicalSort()[0] != v[0])
+                        return false;
+                    if (graph.stronglyConnectedComponents().size() != v.length)
+                        return false;
+                    if (graph.visit(BFS).getDistance(v[6]) != 2)
+                        return false;
+                }
+                return true;
+            });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void isCyclicTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -323,6 +734,29 @@ public class DirectedGraphAdjListTest {
         assertEquals(true, graph.isCyclic());
     }
 
+    @Test
+    public void findCycleTest() {
+        VertexImpl[] v = new VertexImpl[6];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        //A chain with a shortcut, no cycles
+        for (int i = 0; i < v.length - 1; i++)
+            graph.addEdge(v[i], v[i + 1]);
+        graph.addEdge(v[0], v[3]);
+        assertTrue(graph.findCycle().isEmpty());
+
+        //The witness is the path closed by the back edge
+        graph.addEdge(v[4], v[2]);
+        assertEquals(Arrays.asList(v[2], v[3], v[4]), graph.findCycle());
+        assertTrue(graph.isCyclic());
+
+        graph.removeEdge(v[4], v[2]);
+        graph.addEdge(v[5], v[5]);
+        assertEquals(Arrays.asList(v[5]), graph.findCycle());
+    }
+
     @Test
     public void isDAGTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -379,6 +813,41 @@ public class DirectedGraphAdjListTest {
         assertArrayEquals(a, graph.topologicalSort());
     }
 
+    @Test
+    public void topologicalLevelsTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+
+        //B must follow C, which is found after it
+        assertNotNull(graph.addEdge(v0, v1));
+        assertNotNull(graph.addEdge(v0, v2));
+        assertNotNull(graph.addEdge(v2, v1));
+
+        assertArrayEquals(new VertexImpl[]{v0, v3, v2, v1}, graph.topologicalSort());
+        Vertex[][] levels = graph.topologicalLevels();
+        assertEquals(3, levels.length);
+        assertArrayEquals(new VertexImpl[]{v0, v3}, levels[0]);
+        assertArrayEquals(new VertexImpl[]{v2}, levels[1]);
+        assertArrayEquals(new VertexImpl[]{v1}, levels[2]);
+
+        assertNotNull(graph.addEdge(v3, v3));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.topologicalLevels();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.topologicalSort();
+        });
+    }
+
     @Test
     public void toStringSCCTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -406,6 +875,25 @@ public class DirectedGraphAdjListTest {
 
         assertNotNull(graph.stronglyConnectedComponents());
 
-        assertEquals("{{A,C,B},{D},{E}}", graph.toStringSCC());
+        //D reaches A through C, so it is in the component of A
+        assertEquals("{{A,B,C,D},{E}}", graph.toStringSCC());
+    }
+
+    @Test
+    public void longCycleSCCTest() {
+        //A path deeper than the call stack allows, closed in a cycle, with a tail leaving it
+        int n = 100000;
+        VertexImpl[] v = new VertexImpl[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        for (int i = 0; i < n - 1; i++)
+            graph.addEdge(v[i], v[i + 1]);
+        graph.addEdge(v[n - 3], v[0]);
+
+        assertEquals(3, graph.stronglyConnectedComponents().size());
+        assertEquals(n - 2, graph.stronglyConnectedComponents().iterator().next().size());
+        assertEquals(Arrays.asList(v).subList(0, n - 2), graph.findCycle());
     }
 }
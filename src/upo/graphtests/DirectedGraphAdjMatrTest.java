@@ -1,14 +1,29 @@
 package upo.graphtests;
 
 import org.junit.Test;
+import upo.graph.Edge;
 import upo.graph.GraphSearchResult;
+import upo.graph.Vertex;
 import upo.graphimpl.DirectedGraphAdjMatr;
+import upo.graphimpl.EdgeImpl;
+import upo.graphimpl.EdgeType;
+import upo.graphimpl.GraphSearchResultImpl;
 import upo.graphimpl.VertexImpl;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static upo.graph.SearchType.BFS;
+import static upo.graph.SearchType.DFS;
 import static upo.graph.SearchType.DFS_TOT;
+import static upo.graph.SearchType.DIJKSTRA;
 
 public class DirectedGraphAdjMatrTest {
     private DirectedGraphAdjMatr graph;
@@ -166,6 +181,49 @@ public class DirectedGraphAdjMatrTest {
         assertEquals(3, graph.edgeSet().size());
     }
 
+    @Test
+    public void edgeSetViewTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        Set<Vertex> vertices = graph.vertexSet();
+        Set<Edge> edges = graph.edgeSet();
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v1, v2);
+        graph.addEdge(v2, v2);
+        graph.addEdge(v2, v0);
+
+        //The views follow the changes of the graph
+        assertEquals(4, edges.size());
+        assertTrue(edges.contains(new EdgeImpl(v1, v2, graph)));
+        assertFalse(edges.contains(new EdgeImpl(v2, v1, graph)));
+        int count = 0;
+        for (Edge e : edges)
+            count++;
+        assertEquals(4, count);
+
+        graph.removeVertex(v2);
+        assertEquals(2, vertices.size());
+        assertFalse(vertices.contains(v2));
+        assertTrue(vertices.contains(new VertexImpl("A", graph)));
+        assertEquals(1, edges.size());
+
+        //The views cannot be modified
+        assertThrows(UnsupportedOperationException.class, () -> {
+            vertices.add(v2);
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            edges.clear();
+        });
+    }
+
     @Test
     public void degreeOfTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -205,6 +263,40 @@ public class DirectedGraphAdjMatrTest {
         assertEquals(1, graph.inDegreeOf(v0));
     }
 
+    @Test
+    public void degreeUpdateTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        graph.addEdge(v0, v1);
+        graph.addEdge(v2, v1);
+        graph.addEdge(v1, v1);
+        graph.addEdge(v1, v2);
+        assertEquals(2, graph.inDegreeOf(v1));
+        assertEquals(2, graph.outDegreeOf(v1));
+
+        //The degrees follow the removal of edges and vertices
+        graph.removeEdge(v1, v1);
+        assertEquals(2, graph.inDegreeOf(v1));
+        assertEquals(1, graph.outDegreeOf(v1));
+
+        graph.removeVertex(v2);
+        assertEquals(1, graph.inDegreeOf(v1));
+        assertEquals(0, graph.outDegreeOf(v1));
+        assertEquals(1, graph.outDegreeOf(v0));
+
+        //A vertex taking the place of a removed one starts with no edges
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+        assertEquals(0, graph.degreeOf(v3));
+    }
+
     @Test
     public void outDegreeOf() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -302,6 +394,153 @@ public class DirectedGraphAdjMatrTest {
         assertEquals(3, treeDFS_TOT.getStartTime(v2));
     }
 
+    @Test
+    public void directionOptimizingBFSTest() {
+        //A random graph of low diameter, whose middle levels are visited bottom-up, and a long tail visited top-down
+        int n = 3000, tail = 50;
+        Random random = new Random(42);
+        VertexImpl[] v = new VertexImpl[n + tail];
+        for (int i = 0; i < n + tail; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        List<List<Integer>> adjacency = new ArrayList<>();
+        for (int i = 0; i < n + tail; i++)
+            adjacency.add(new ArrayList<>());
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < 8; k++) {
+                int j = random.nextInt(n);
+                if (graph.addEdge(v[i], v[j]) != null)
+                    adjacency.get(i).add(j);
+            }
+        for (int i = n - 1; i < n + tail - 1; i++) {
+            graph.addEdge(v[i], v[i + 1]);
+            adjacency.get(i).add(i + 1);
+        }
+
+        //The distances of a plain breadth first visit
+        int[] expected = new int[n + tail];
+        Arrays.fill(expected, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        expected[0] = 0;
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int next : adjacency.get(current))
+                if (expected[next] < 0) {
+                    expected[next] = expected[current] + 1;
+                    queue.add(next);
+                }
+        }
+
+        GraphSearchResult tree = graph.visit(BFS, v[0]);
+        for (int i = 0; i < n + tail; i++) {
+            if (expected[i] < 0) {
+                assertEquals(Double.POSITIVE_INFINITY, tree.getDistance(v[i]), 0);
+                continue;
+            }
+            assertEquals(expected[i], tree.getDistance(v[i]), 0);
+            //The parent is a predecessor in the previous level
+            Vertex parent = tree.getParentOf(v[i]);
+            if (i == 0) {
+                assertNull(parent);
+            } else {
+                assertTrue(graph.containsEdge(parent, v[i]));
+                assertEquals(expected[i] - 1, tree.getDistance(parent), 0);
+            }
+        }
+    }
+
+    @Test
+    public void visitSourceTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        VertexImpl b = new VertexImpl("B", graph);
+        VertexImpl c = new VertexImpl("C", graph);
+        VertexImpl d = new VertexImpl("D", graph);
+        VertexImpl e = new VertexImpl("E", graph);
+        VertexImpl f = new VertexImpl("F", graph);
+        for (VertexImpl v : new VertexImpl[]{a, b, c, d, e, f})
+            graph.addVertex(v);
+        graph.addEdge(a, b);
+        graph.addEdge(b, c);
+        graph.addEdge(d, c);
+        graph.addEdge(c, f);
+
+        GraphSearchResult fromA = graph.visit(BFS, a);
+        assertEquals(2.0, fromA.getDistance(c), 0);
+        assertEquals(Double.POSITIVE_INFINITY, fromA.getDistance(d), 0);
+
+        //Every source is at distance 0, C is reached from D
+        GraphSearchResult fromBoth = graph.visit(BFS, Arrays.asList(a, d));
+        assertEquals(a, fromBoth.getSource());
+        assertEquals(1.0, fromBoth.getDistance(c), 0);
+        assertEquals(2.0, fromBoth.getDistance(f), 0);
+        assertEquals(d, fromBoth.getParentOf(c));
+        assertNull(fromBoth.getParentOf(d));
+
+        //A single source DFS reaches only the vertices reachable from it
+        GraphSearchResult fromB = graph.visit(DFS, b);
+        assertEquals(1, fromB.getStartTime(b));
+        assertEquals(3, fromB.getStartTime(f));
+        assertEquals(6, fromB.getEndTime(b));
+        assertEquals(-1, fromB.getStartTime(a));
+
+        //DFS_TOT goes on from the vertices not discovered yet
+        GraphSearchResult total = graph.visit(DFS_TOT, b);
+        assertEquals(7, total.getStartTime(a));
+        assertNull(total.getParentOf(a));
+        assertEquals(12, total.getEndTime(e));
+
+        assertThrows(NullPointerException.class, () -> {
+            graph.visit(BFS, (Vertex) null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.visit(BFS, new VertexImpl("Z", graph));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.visit(DFS, Collections.emptyList());
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.visit(DIJKSTRA, a);
+        });
+    }
+
+    @Test
+    public void DFSEdgeTypeTest() {
+        VertexImpl a = new VertexImpl("A", graph);
+        VertexImpl b = new VertexImpl("B", graph);
+        VertexImpl c = new VertexImpl("C", graph);
+        VertexImpl d = new VertexImpl("D", graph);
+        VertexImpl e = new VertexImpl("E", graph);
+        for (VertexImpl v : new VertexImpl[]{a, b, c, d, e})
+            graph.addVertex(v);
+        graph.addEdge(a, b);
+        graph.addEdge(a, c);
+        graph.addEdge(a, d);
+        graph.addEdge(b, c);
+        graph.addEdge(c, b);
+        graph.addEdge(d, c);
+
+        GraphSearchResultImpl tree = (GraphSearchResultImpl) graph.visit(DFS_TOT);
+        assertEquals(1, tree.getStartTime(a));
+        assertEquals(3, tree.getStartTime(c));
+        assertEquals(4, tree.getEndTime(c));
+        assertEquals(8, tree.getEndTime(a));
+        assertEquals(EdgeType.TREE, tree.getEdgeType(a, b));
+        assertEquals(EdgeType.TREE, tree.getEdgeType(b, c));
+        assertEquals(EdgeType.BACK, tree.getEdgeType(c, b));
+        assertEquals(EdgeType.FORWARD, tree.getEdgeType(a, c));
+        assertEquals(EdgeType.CROSS, tree.getEdgeType(d, c));
+        assertThrows(IllegalArgumentException.class, () -> {
+            tree.getEdgeType(c, a);
+        });
+
+        //E, which no edge reaches, starts a second tree of the forest
+        assertEquals(9, tree.getStartTime(e));
+        assertEquals(10, tree.getEndTime(e));
+        assertNull(tree.getParentOf(e));
+    }
+
     @Test
     public void isCyclicTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -323,6 +562,29 @@ public class DirectedGraphAdjMatrTest {
         assertEquals(true, graph.isCyclic());
     }
 
+    @Test
+    public void findCycleTest() {
+        VertexImpl[] v = new VertexImpl[6];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            graph.addVertex(v[i]);
+        }
+        //A chain with a shortcut, no cycles
+        for (int i = 0; i < v.length - 1; i++)
+            graph.addEdge(v[i], v[i + 1]);
+        graph.addEdge(v[0], v[3]);
+        assertTrue(graph.findCycle().isEmpty());
+
+        //The witness is the path closed by the back edge
+        graph.addEdge(v[4], v[2]);
+        assertEquals(Arrays.asList(v[2], v[3], v[4]), graph.findCycle());
+        assertTrue(graph.isCyclic());
+
+        graph.removeEdge(v[4], v[2]);
+        graph.addEdge(v[5], v[5]);
+        assertEquals(Arrays.asList(v[5]), graph.findCycle());
+    }
+
     @Test
     public void isDAGTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -379,6 +641,41 @@ public class DirectedGraphAdjMatrTest {
         assertArrayEquals(a, graph.topologicalSort());
     }
 
+    @Test
+    public void topologicalLevelsTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        graph.addVertex(v0);
+
+        VertexImpl v1 = new VertexImpl("B", graph);
+        graph.addVertex(v1);
+
+        VertexImpl v2 = new VertexImpl("C", graph);
+        graph.addVertex(v2);
+
+        VertexImpl v3 = new VertexImpl("D", graph);
+        graph.addVertex(v3);
+
+        //B must follow C, which is found after it
+        assertNotNull(graph.addEdge(v0, v1));
+        assertNotNull(graph.addEdge(v0, v2));
+        assertNotNull(graph.addEdge(v2, v1));
+
+        assertArrayEquals(new VertexImpl[]{v0, v3, v2, v1}, graph.topologicalSort());
+        Vertex[][] levels = graph.topologicalLevels();
+        assertEquals(3, levels.length);
+        assertArrayEquals(new VertexImpl[]{v0, v3}, levels[0]);
+        assertArrayEquals(new VertexImpl[]{v2}, levels[1]);
+        assertArrayEquals(new VertexImpl[]{v1}, levels[2]);
+
+        assertNotNull(graph.addEdge(v3, v3));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.topologicalLevels();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.topologicalSort();
+        });
+    }
+
     @Test
     public void toStringSCCTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -406,6 +703,33 @@ public class DirectedGraphAdjMatrTest {
 
         assertNotNull(graph.stronglyConnectedComponents());
 
-        assertEquals("{{A,C,B},{E},{D}}", graph.toStringSCC());
+        //D reaches A through C, so it is in the component of A
+        assertEquals("{{A,B,C,D},{E}}", graph.toStringSCC());
+    }
+
+    @Test
+    public void capacityTest() {
+        //Grows beyond the initial capacity
+        VertexImpl[] v = new VertexImpl[300];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, graph);
+            assertTrue(graph.addVertex(v[i]));
+        }
+        for (int i = 0; i < v.length; i++)
+            assertNotNull(graph.addEdge(v[i], v[(i + 1) % v.length]));
+
+        assertEquals(300, graph.vertexSet().size());
+        assertEquals(300, graph.edgeSet().size());
+        assertTrue(graph.containsEdge(v[299], v[0]));
+
+        //A capacity hint allocates the matrix once
+        DirectedGraphAdjMatr hinted = new DirectedGraphAdjMatr(500);
+        VertexImpl a = new VertexImpl("A", hinted);
+        hinted.addVertex(a);
+        assertNotNull(hinted.addEdge(a, a));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new DirectedGraphAdjMatr(-1);
+        });
     }
-}
+}
\ No newline at end of file
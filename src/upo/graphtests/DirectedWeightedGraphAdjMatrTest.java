@@ -2,9 +2,13 @@ package upo.graphtests;
 
 import org.junit.Test;
 import upo.graph.GraphSearchResult;
+import upo.graph.SearchType;
 import upo.graphimpl.DirectedWeightedGraphAdjMatr;
+import upo.graphimpl.EdgeImpl;
 import upo.graphimpl.VertexImpl;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static upo.graph.SearchType.DIJKSTRA;
@@ -245,6 +249,34 @@ public class DirectedWeightedGraphAdjMatrTest {
         assertNull(graph.removeEdge(v0, new VertexImpl("F", graph)));
     }
 
+    @Test
+    public void batchTest() {
+        VertexImpl v0 = new VertexImpl("A", graph);
+        VertexImpl v1 = new VertexImpl("B", graph);
+        VertexImpl v2 = new VertexImpl("C", graph);
+        assertEquals(3, graph.addVertices(Arrays.asList(v0, v1, v2, v0)));
+        assertEquals(3, graph.vertexSet().size());
+
+        //A bad edge stops the whole batch
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.addEdges(Arrays.asList(new EdgeImpl(v0, v1, 2, graph), new EdgeImpl(v0, new VertexImpl("F", graph), graph)));
+        });
+        assertEquals(0, graph.edgeSet().size());
+
+        //The edges keep their weights, the duplicates are skipped
+        assertEquals(2, graph.addEdges(Arrays.asList(
+                new EdgeImpl(v0, v1, 2, graph),
+                new EdgeImpl(v1, v2, -1, graph),
+                new EdgeImpl(v0, v1, 5, graph))));
+        assertEquals(2, graph.getEdgeWeight(v0, v1), 0);
+        assertEquals(-1, graph.getEdgeWeight(v1, v2), 0);
+        assertEquals(1, graph.visit(DIJKSTRA).getDistance(v2), 0);
+
+        assertEquals(1, graph.removeEdges(Arrays.asList(new EdgeImpl(v1, v2, graph), new EdgeImpl(v2, v1, graph))));
+        assertEquals(1, graph.edgeSet().size());
+        assertEquals(0, graph.inDegreeOf(v2));
+    }
+
     @Test
     public void getEdgeWeightTest() {
         VertexImpl v0 = new VertexImpl("A", graph);
@@ -307,8 +339,27 @@ public class DirectedWeightedGraphAdjMatrTest {
 
         GraphSearchResult treeDIJKSTRA = graph.visit(DIJKSTRA);
         assertEquals(4.0, treeDIJKSTRA.getDistance(v3), 0);
-        assertEquals(6, treeDIJKSTRA.getStartTime(v5));
-        assertEquals(1, treeDIJKSTRA.getEndTime(v5));
+        //The shortest paths tree has no edge from F to D, so G is the fifth vertex in breadth
+        assertEquals(5, treeDIJKSTRA.getStartTime(v5));
+        assertEquals(2, treeDIJKSTRA.getEndTime(v5));
+        assertEquals(6.0, treeDIJKSTRA.getDistance(v6), 0);
+        assertNull(treeDIJKSTRA.getParentOf(v0));
+
+        //From C and F together, H is reached from C and D from C
+        GraphSearchResult fromBoth = graph.visit(DIJKSTRA, Arrays.asList(v2, v4));
+        assertEquals(0.0, fromBoth.getDistance(v4), 0);
+        assertEquals(1.0, fromBoth.getDistance(v3), 0);
+        assertEquals(3.0, fromBoth.getDistance(v5), 0);
+        assertEquals(Double.POSITIVE_INFINITY, fromBoth.getDistance(v0), 0);
+        assertNull(fromBoth.getParentOf(v4));
+        assertEquals(v2, fromBoth.getParentOf(v6));
+
+        assertThrows(UnsupportedOperationException.class, () -> {
+            graph.visit(SearchType.BFS, v0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.visit(DIJKSTRA, new VertexImpl("Z", graph));
+        });
     }
 
     @Test
@@ -415,7 +466,8 @@ public class DirectedWeightedGraphAdjMatrTest {
 
         assertNotNull(graph.stronglyConnectedComponents());
 
-        assertEquals("{{A,C,B},{D},{E}}", graph.toStringSCC());
+        //D reaches A through C, so it is in the component of A
+        assertEquals("{{A,B,C,D},{E}}", graph.toStringSCC());
     }
 
     @Test
@@ -448,4 +500,21 @@ public class DirectedWeightedGraphAdjMatrTest {
             for (int j = 0; j < 4; j++)
                 assertEquals(a[i][j], graph.allToAllShortestPaths()[i][j], 0);
     }
-}
+
+    @Test
+    public void capacityTest() {
+        DirectedWeightedGraphAdjMatr hinted = new DirectedWeightedGraphAdjMatr(2);
+        VertexImpl[] v = new VertexImpl[150];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = new VertexImpl("V" + i, hinted);
+            assertTrue(hinted.addVertex(v[i]));
+            if (i > 0)
+                assertNotNull(hinted.addEdge(v[i - 1], v[i], i));
+        }
+
+        //Weights survive the growth of the matrix
+        assertEquals(1.0, hinted.getEdgeWeight(v[0], v[1]), 0);
+        assertEquals(149.0, hinted.getEdgeWeight(v[148], v[149]), 0);
+        assertEquals(149, hinted.edgeSet().size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package upo.graphtests;
+
+import org.junit.Test;
+import upo.graph.Edge;
+import upo.graph.Vertex;
+import upo.graphimpl.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static upo.graph.SearchType.DIJKSTRA;
+
+public class EdgeListTest {
+
+    /**
+     * Writes the text to a temporary file, deleted when the JVM exits
+     *
+     * @param text
+     * @return the file
+     * @throws IOException
+     */
+    private static Path textFile(String text) throws IOException {
+        Path file = Files.createTempFile("edges", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void readTextTest() throws IOException {
+        Path file = textFile("# comment\n"
+                + "A B\n"
+                + "\tB  C 2.5\r\n"
+                + "\n"
+                + "% another comment\n"
+                + "A B 7\n"
+                + "C A -1e-1 extra\n"
+                + "citt\u00e0 A 1\n"
+                + "A C");
+        EdgeList edges = EdgeList.readText(file);
+        assertEquals(4, edges.vertexCount());
+        assertEquals(6, edges.edgeCount());
+        assertTrue(edges.isWeighted());
+
+        DirectedGraphAdjList list = edges.toAdjList();
+        assertEquals(4, list.vertexSet().size());
+        assertEquals(5, list.edgeSet().size());
+        assertTrue(list.containsEdge(new VertexImpl("citt\u00e0", list), new VertexImpl("A", list)));
+        assertEquals(2, list.outDegreeOf(new VertexImpl("A", list)));
+
+        //The copies of an edge keep the weight of the first one, which had the default weight
+        DirectedWeightedGraphAdjMatr matrix = edges.toWeightedAdjMatr();
+        VertexImpl a = new VertexImpl("A", matrix);
+        VertexImpl b = new VertexImpl("B", matrix);
+        VertexImpl c = new VertexImpl("C", matrix);
+        assertEquals(5, matrix.edgeSet().size());
+        assertEquals(1.0, matrix.getEdgeWeight(a, b), 0);
+        assertEquals(2.5, matrix.getEdgeWeight(b, c), 0);
+        assertEquals(-0.1, matrix.getEdgeWeight(c, a), 0);
+
+        CsrGraph snapshot = edges.toCsrGraph();
+        assertEquals(5, snapshot.edgeSet().size());
+        assertEquals(2.5, snapshot.getEdgeWeight(b, c), 0);
+        assertEquals(2, snapshot.inDegreeOf(a));
+        //The visit starts from the only vertex with no edges entering it
+        assertEquals(2.0, snapshot.visit(DIJKSTRA).getDistance(c), 0);
+        for (Vertex v : snapshot)
+            assertSame(snapshot, v.getGraph());
+    }
+
+    @Test
+    public void unweightedTextTest() throws IOException {
+        EdgeList edges = EdgeList.readText(textFile("1 2\n2 3\n3 1\n"));
+        assertFalse(edges.isWeighted());
+        DirectedWeightedGraphAdjMatr matrix = edges.toWeightedAdjMatr();
+        assertEquals(1.0, matrix.getEdgeWeight(new VertexImpl("3", matrix), new VertexImpl("1", matrix)), 0);
+        assertTrue(edges.toCsrGraph().isCyclic());
+        assertEquals(0, EdgeList.readText(textFile("")).edgeCount());
+    }
+
+    @Test
+    public void malformedTextTest() {
+        assertThrows(IOException.class, () -> {
+            EdgeList.readText(textFile("A B\nC\n"));
+        });
+        assertThrows(IOException.class, () -> {
+            EdgeList.readText(textFile("A B x\n"));
+        });
+    }
+
+    @Test
+    public void parseWeightTest() throws IOException {
+        String[] weights = {"0", "-0", "3", "+4.25", ".5", "1e3", "1E-3", "123456789012345678", "0.1", "1e300", "2.2250738585072014E-308", "Infinity"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < weights.length; i++)
+            text.append("S").append(i).append(" T ").append(weights[i]).append('\n');
+        DirectedWeightedGraphAdjMatr matrix = EdgeList.readText(textFile(text.toString())).toWeightedAdjMatr();
+        VertexImpl t = new VertexImpl("T", matrix);
+        for (int i = 0; i < weights.length; i++)
+            assertEquals(Double.parseDouble(weights[i]), matrix.getEdgeWeight(new VertexImpl("S" + i, matrix), t), 0);
+    }
+
+    @Test
+    public void parallelTextTest() throws IOException {
+        StringBuilder text = new StringBuilder("# generated\n");
+        for (int i = 0; i < 500; i++) {
+            text.append("V").append(i % 37).append(' ').append("V").append(i * 7 % 53);
+            if (i % 3 == 0)
+                text.append(' ').append(i / 4.0);
+            text.append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        Path file = textFile(text.toString());
+        EdgeList sequential = EdgeList.readText(file);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            //Chunks smaller than a line, of a few lines and larger than the file
+            for (int chunkSize : new int[]{1, 7, 64, 1 << 20}) {
+                EdgeList parallel = EdgeList.readText(file, pool, chunkSize);
+                assertEquals(sequential.vertexCount(), parallel.vertexCount());
+                assertEquals(sequential.edgeCount(), parallel.edgeCount());
+                assertTrue(parallel.isWeighted());
+
+                //The vertices are numbered in order of appearance, as in a sequential read
+                List<Vertex> expected = new ArrayList<>();
+                for (Vertex v : sequential.toAdjList())
+                    expected.add(v);
+                List<Vertex> actual = new ArrayList<>();
+                for (Vertex v : parallel.toAdjList())
+                    actual.add(v);
+                assertEquals(expected, actual);
+
+                CsrGraph a = sequential.toCsrGraph();
+                CsrGraph b = parallel.toCsrGraph();
+                assertEquals(a.edgeSet(), b.edgeSet());
+                for (Edge e : a.edgeSet()) {
+                    Vertex[] ends = e.getVertices().toArray(new Vertex[0]);
+                    if (ends.length == 2 && a.containsEdge(ends[0], ends[1]))
+                        assertEquals(a.getEdgeWeight(ends[0], ends[1]), b.getEdgeWeight(ends[0], ends[1]), 0);
+                }
+            }
+
+            //The error tells the line in the whole file
+            IOException error = assertThrows(IOException.class, () -> {
+                EdgeList.readText(textFile("A B\nC D\n\nE\nF G\n"), pool, 2);
+            });
+            assertTrue(error.getMessage().startsWith("Line 4"));
+            assertThrows(IllegalArgumentException.class, () -> {
+                EdgeList.readText(file, pool, 0);
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void readBinaryTest() throws IOException {
+        Path file = Files.createTempFile("edges", ".bin");
+        file.toFile().deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            int[][] edges = {{0, 1}, {1, 2}, {-5, 0}, {1, 2}};
+            for (int[] e : edges) {
+                out.writeInt(e[0]);
+                out.writeInt(e[1]);
+                out.writeDouble(e[0] + e[1]);
+            }
+        }
+
+        EdgeList edges = EdgeList.readBinary(file, true);
+        assertEquals(4, edges.vertexCount());
+        assertEquals(4, edges.edgeCount());
+        DirectedWeightedGraphAdjMatr matrix = edges.toWeightedAdjMatr();
+        assertEquals(3, matrix.edgeSet().size());
+        assertEquals(-5, matrix.getEdgeWeight(new VertexImpl("-5", matrix), new VertexImpl("0", matrix)), 0);
+
+        //Read as unweighted, each record is two edges
+        EdgeList pairs = EdgeList.readBinary(file, false);
+        assertEquals(8, pairs.edgeCount());
+        assertFalse(pairs.isWeighted());
+
+        Files.write(file, new byte[12]);
+        assertThrows(IOException.class, () -> {
+            EdgeList.readBinary(file, false);
+        });
+    }
+}
\ No newline at end of file
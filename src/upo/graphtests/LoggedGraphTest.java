@@ -0,0 +1,200 @@
+package upo.graphtests;
+
+import org.junit.Test;
+import upo.graphimpl.ConcurrentGraph;
+import upo.graphimpl.DirectedGraphAdjList;
+import upo.graphimpl.DirectedWeightedGraphAdjMatr;
+import upo.graphimpl.LoggedGraph;
+import upo.graphimpl.VertexImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoggedGraphTest {
+
+    /**
+     * Creates a temporary directory, deleted with its files when the JVM exits
+     *
+     * @return the directory
+     * @throws IOException
+     */
+    private static Path directory() throws IOException {
+        Path directory = Files.createTempDirectory("graph");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            File[] files = directory.toFile().listFiles();
+            if (files != null)
+                for (File f : files)
+                    f.delete();
+            directory.toFile().delete();
+        }));
+        return directory;
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        Path directory = directory();
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 4, 1000)) {
+            VertexImpl a = new VertexImpl("A", graph);
+            VertexImpl b = new VertexImpl("B", graph);
+            VertexImpl c = new VertexImpl("C", graph);
+            assertTrue(graph.addVertex(a));
+            assertFalse(graph.addVertex(a));
+            graph.addVertex(b);
+            graph.addVertex(c);
+            graph.addVertex(new VertexImpl("citt\u00e0", graph));
+            graph.addEdge(a, b);
+            graph.addEdge(b, c);
+            graph.addEdge(c, a);
+            assertNotNull(graph.removeEdge(c, a));
+            assertNull(graph.removeEdge(c, a));
+            assertTrue(graph.removeVertex(b));
+        }
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 4, 1000)) {
+            assertEquals(3, graph.vertexSet().size());
+            assertTrue(graph.containsVertex(new VertexImpl("citt\u00e0", graph)));
+            assertFalse(graph.containsVertex(new VertexImpl("B", graph)));
+            assertEquals(0, graph.edgeSet().size());
+            graph.addEdge(new VertexImpl("A", graph), new VertexImpl("C", graph));
+        }
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 4, 1000)) {
+            assertTrue(graph.containsEdge(new VertexImpl("A", graph), new VertexImpl("C", graph)));
+            assertFalse(graph.isCyclic());
+        }
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+        Path directory = directory();
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedWeightedGraphAdjMatr::new, 3, 5)) {
+            for (int i = 0; i < 12; i++)
+                graph.addVertex(new VertexImpl("V" + i, graph));
+            for (int i = 0; i < 11; i++) {
+                VertexImpl s = new VertexImpl("V" + i, graph);
+                VertexImpl t = new VertexImpl("V" + (i + 1), graph);
+                graph.addEdge(s, t);
+                graph.setEdgeWeight(s, t, i / 2.0);
+            }
+            graph.removeVertex(new VertexImpl("V11", graph));
+        }
+        //Only the last snapshot and its log are kept
+        assertEquals(2, directory.toFile().list().length);
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedWeightedGraphAdjMatr::new, 3, 5)) {
+            assertEquals(11, graph.vertexSet().size());
+            assertEquals(10, graph.edgeSet().size());
+            assertEquals(4.5, graph.getEdgeWeight(new VertexImpl("V9", graph), new VertexImpl("V10", graph)), 0);
+            graph.compact();
+        }
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedWeightedGraphAdjMatr::new, 3, 5)) {
+            assertEquals(10, graph.edgeSet().size());
+            assertEquals(0.5, graph.getEdgeWeight(new VertexImpl("V1", graph), new VertexImpl("V2", graph)), 0);
+        }
+    }
+
+    @Test
+    public void reopenAfterCompactionTest() throws IOException {
+        Path directory = directory();
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 2, 1000)) {
+            VertexImpl a = new VertexImpl("A", graph);
+            VertexImpl b = new VertexImpl("B", graph);
+            graph.addVertex(a);
+            graph.addVertex(b);
+            graph.addEdge(a, b);
+            graph.compact();
+            //Changes after the compaction go to the new log
+            graph.addVertex(new VertexImpl("C", graph));
+            graph.addEdge(b, new VertexImpl("C", graph));
+        }
+        assertTrue(Files.exists(directory.resolve("snapshot-1.csr")));
+        assertTrue(Files.exists(directory.resolve("log-1.wal")));
+        assertFalse(Files.exists(directory.resolve("log-0.wal")));
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 2, 1000)) {
+            assertEquals(3, graph.vertexSet().size());
+            assertTrue(graph.containsEdge(new VertexImpl("A", graph), new VertexImpl("B", graph)));
+            assertTrue(graph.containsEdge(new VertexImpl("B", graph), new VertexImpl("C", graph)));
+            graph.compact();
+        }
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 2, 1000)) {
+            assertEquals(2, graph.edgeSet().size());
+            assertFalse(Files.exists(directory.resolve("snapshot-1.csr")));
+        }
+    }
+
+    @Test
+    public void compactDecoratedWeightedGraphTest() throws IOException {
+        Path directory = directory();
+        try (LoggedGraph graph = new LoggedGraph(directory, () -> new ConcurrentGraph(new DirectedWeightedGraphAdjMatr()), 1, 1000)) {
+            VertexImpl a = new VertexImpl("A", graph);
+            VertexImpl b = new VertexImpl("B", graph);
+            VertexImpl c = new VertexImpl("C", graph);
+            graph.addVertex(a);
+            graph.addVertex(b);
+            graph.addVertex(c);
+            graph.addEdge(a, b);
+            graph.addEdge(b, c);
+            graph.setEdgeWeight(a, b, 42.0);
+            graph.compact();
+        }
+
+        //The weights come back from the snapshot, the log after it is empty
+        try (LoggedGraph graph = new LoggedGraph(directory, () -> new ConcurrentGraph(new DirectedWeightedGraphAdjMatr()), 1, 1000)) {
+            assertEquals(42.0, graph.getEdgeWeight(new VertexImpl("A", graph), new VertexImpl("B", graph)), 0);
+            assertEquals(1.0, graph.getEdgeWeight(new VertexImpl("B", graph), new VertexImpl("C", graph)), 0);
+        }
+    }
+
+    @Test
+    public void tornLogTest() throws IOException {
+        Path directory = directory();
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 1, 1000)) {
+            graph.addVertex(new VertexImpl("A", graph));
+            graph.addVertex(new VertexImpl("B", graph));
+            graph.addEdge(new VertexImpl("A", graph), new VertexImpl("B", graph));
+        }
+
+        //Cuts the last record in half, as a crash while writing it would
+        Path log = directory.resolve("log-0.wal");
+        long size = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 1, 1000)) {
+            assertEquals(2, graph.vertexSet().size());
+            assertEquals(0, graph.edgeSet().size());
+            graph.addVertex(new VertexImpl("C", graph));
+        }
+
+        //The records appended after the cut are kept
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 1, 1000)) {
+            assertEquals(3, graph.vertexSet().size());
+        }
+
+        //A record changed on disk is dropped with the ones after it
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(log, bytes);
+        try (LoggedGraph graph = new LoggedGraph(directory, DirectedGraphAdjList::new, 1, 1000)) {
+            assertEquals(2, graph.vertexSet().size());
+        }
+    }
+
+    @Test
+    public void invalidSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new LoggedGraph(directory(), DirectedGraphAdjList::new, 0, 10);
+        });
+    }
+}
\ No newline at end of file